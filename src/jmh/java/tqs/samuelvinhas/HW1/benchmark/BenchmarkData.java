@@ -0,0 +1,42 @@
+package tqs.samuelvinhas.HW1.benchmark;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+import tqs.samuelvinhas.HW1.service.BookingTokens;
+
+final class BenchmarkData {
+
+    static final String[] MUNICIPALITIES = {"Lisboa", "Porto", "Estremoz", "Aveiro", "Faro"};
+
+    private BenchmarkData() {
+    }
+
+    static LocalDateTime firstSlot() {
+        return LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.DAYS).withHour(8);
+    }
+
+    /** {@code count} bookings per municipality, in consecutive half-hour slots. */
+    static List<ServiceRequest> bookings(int count, String... municipalities) {
+        REQUEST_STATE[] states = REQUEST_STATE.values();
+        LocalDateTime start = firstSlot();
+        List<ServiceRequest> rows = new ArrayList<>(count * municipalities.length);
+        for (String municipality : municipalities) {
+            for (int i = 0; i < count; i++) {
+                ServiceRequest request = new ServiceRequest(
+                        BookingTokens.next(),
+                        municipality,
+                        "Rua das Flores, n" + i,
+                        start.plusMinutes(30L * i),
+                        "Old sofa and two chairs, item " + i);
+                request.setState(states[i % states.length]);
+                rows.add(request);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,139 @@
+package tqs.samuelvinhas.HW1.benchmark;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.event.Level;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+
+/**
+ * Cost on the request thread of the log lines ZeroMonosController writes for a booking
+ * lookup, before and after the prod logging profile:
+ * <ul>
+ *   <li>before: {@code appender=SYNC_TEXT, requestLogLevel=INFO} (default console pattern,
+ *       written and flushed by the calling thread)</li>
+ *   <li>after: {@code appender=ASYNC_JSON, requestLogLevel=DEBUG} (request lines filtered by
+ *       level, everything else ECS JSON behind a bounded non-blocking queue)</li>
+ * </ul>
+ * The other two combinations separate the effect of the level from that of the appender.
+ * Events are written to /dev/null, so this measures formatting, locking and the write
+ * syscall but not a terminal or log shipper reading the output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RequestLoggingBenchmark {
+
+    /** Spring Boot's default console pattern, as used without a profile. */
+    private static final String CONSOLE_PATTERN =
+            "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p ${PID:- } --- [%15.15t] %-40.40logger{39} : %m%n";
+
+    public enum Appenders { SYNC_TEXT, ASYNC_JSON }
+
+    @Param({"SYNC_TEXT", "ASYNC_JSON"})
+    public Appenders appender;
+
+    @Param({"INFO", "DEBUG"})
+    public Level requestLogLevel;
+
+    private LoggerContext context;
+    private Logger logger;
+    private String[] tokens;
+    private int sequence;
+
+    @Setup
+    public void setUp() throws FileNotFoundException {
+        context = new LoggerContext();
+        context.putObject(Environment.class.getName(), new StandardEnvironment());
+        context.putProperty("PID", String.valueOf(ProcessHandle.current().pid()));
+
+        OutputStreamAppender<ILoggingEvent> console = new OutputStreamAppender<>();
+        console.setContext(context);
+        console.setName("CONSOLE");
+        console.setEncoder(appender == Appenders.SYNC_TEXT ? textEncoder() : jsonEncoder());
+        console.setOutputStream(new FileOutputStream("/dev/null"));
+        console.start();
+
+        Appender<ILoggingEvent> root = console;
+        if (appender == Appenders.ASYNC_JSON) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setName("ASYNC_CONSOLE");
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(console);
+            async.start();
+            root = async;
+        }
+
+        Logger rootLogger = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        rootLogger.detachAndStopAllAppenders();
+        rootLogger.addAppender(root);
+        rootLogger.setLevel(ch.qos.logback.classic.Level.INFO);
+        logger = context.getLogger("tqs.samuelvinhas.HW1.boundary.ZeroMonosController");
+
+        tokens = new String[1024];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = UUID.randomUUID().toString();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    /** The two lines logged by GET /api/bookings/{token} for a booking that exists. */
+    @Benchmark
+    public void getBooking() {
+        String token = tokens[sequence++ & (tokens.length - 1)];
+        logger.atLevel(requestLogLevel).log("GET /api/bookings/{} - Fetching booking", token);
+        logger.atLevel(requestLogLevel).log("Booking found: {}", token);
+    }
+
+    private Encoder<ILoggingEvent> textEncoder() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(CONSOLE_PATTERN);
+        encoder.start();
+        return encoder;
+    }
+
+    private Encoder<ILoggingEvent> jsonEncoder() {
+        StructuredLogEncoder encoder = new StructuredLogEncoder();
+        encoder.setContext(context);
+        encoder.setFormat("ecs");
+        encoder.start();
+        return encoder;
+    }
+}
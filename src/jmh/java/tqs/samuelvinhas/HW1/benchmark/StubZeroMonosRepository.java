@@ -0,0 +1,54 @@
+package tqs.samuelvinhas.HW1.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+
+/**
+ * Read-only in-memory ZeroMonosRepository for benchmarks. Lookups are served from
+ * fixed maps and saves are not retained, so a benchmark measures the service code
+ * instead of the growth of a backing store.
+ */
+final class StubZeroMonosRepository implements InvocationHandler {
+
+    private final Map<String, ServiceRequest> byToken;
+    private final Map<String, List<ServiceRequest>> byMunicipality;
+
+    private StubZeroMonosRepository(List<ServiceRequest> rows) {
+        this.byToken = new HashMap<>();
+        rows.forEach(row -> byToken.put(row.getToken(), row));
+        this.byMunicipality = rows.stream().collect(Collectors.groupingBy(ServiceRequest::getMunicipality));
+    }
+
+    static ZeroMonosRepository create(List<ServiceRequest> rows) {
+        return (ZeroMonosRepository) Proxy.newProxyInstance(
+                ZeroMonosRepository.class.getClassLoader(),
+                new Class<?>[] {ZeroMonosRepository.class},
+                new StubZeroMonosRepository(rows));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "save" -> args[0];
+            case "findById" -> Optional.ofNullable(byToken.get(args[0]));
+            case "findArchivedById" -> Optional.empty();
+            case "findByMunicipality" -> byMunicipality.getOrDefault(args[0], List.of());
+            case "findByMunicipalityAndTimeSlot" -> List.of();
+            case "reserveSlot" -> Optional.of(1);
+            case "findBookedSlotsFrom", "countGroupedByMunicipalityDayAndState" -> List.of();
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> StubZeroMonosRepository.class.getSimpleName();
+            default -> throw new UnsupportedOperationException(method.getName());
+        };
+    }
+}
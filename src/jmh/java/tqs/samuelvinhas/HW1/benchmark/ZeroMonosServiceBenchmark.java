@@ -0,0 +1,118 @@
+package tqs.samuelvinhas.HW1.benchmark;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+import tqs.samuelvinhas.HW1.service.BookingCache;
+import tqs.samuelvinhas.HW1.service.BookingIngestionQueue;
+import tqs.samuelvinhas.HW1.service.BookingMetrics;
+import tqs.samuelvinhas.HW1.service.BookingStatistics;
+import tqs.samuelvinhas.HW1.service.SlotCapacity;
+import tqs.samuelvinhas.HW1.service.SlotOccupancyIndex;
+import tqs.samuelvinhas.HW1.service.WriteBehindProperties;
+import tqs.samuelvinhas.HW1.service.ZeroMonosService;
+
+/**
+ * Service-layer hot paths over a stubbed repository: what a request costs before it reaches JDBC.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ZeroMonosServiceBenchmark {
+
+    /** Distinct slots cycled through by requestService, so the occupancy index stays bounded. */
+    private static final int SLOT_CYCLE = 10_000;
+
+    @Param({"100", "1000"})
+    public int bookingsPerMunicipality;
+
+    private ZeroMonosService service;
+    private LocalDateTime firstSlot;
+    private int sequence;
+
+    private String updateToken;
+    private ServiceRequest[] updates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ServiceRequest> rows = BenchmarkData.bookings(bookingsPerMunicipality, BenchmarkData.MUNICIPALITIES);
+        ZeroMonosRepository repository = StubZeroMonosRepository.create(rows);
+        SlotOccupancyIndex occupancyIndex = new SlotOccupancyIndex();
+        BookingStatistics statistics = new BookingStatistics();
+        SlotCapacity capacity = new SlotCapacity(1, Map.of());
+        BookingCache bookingCache = new BookingCache(10_000, Duration.ofSeconds(30));
+        BookingMetrics metrics = new BookingMetrics(new SimpleMeterRegistry());
+        TransactionTemplate transactionTemplate = new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        };
+        ApplicationEventPublisher events = event -> { };
+        // Write-behind off: bookings are saved on the calling thread
+        WriteBehindProperties writeBehind = new WriteBehindProperties(false, 1, 1, Path.of("unused"),
+                Duration.ZERO, Duration.ZERO, Duration.ZERO);
+        service = new ZeroMonosService(repository, occupancyIndex, statistics, capacity, bookingCache, metrics,
+                transactionTemplate, events, new BookingIngestionQueue(repository, occupancyIndex, statistics,
+                        capacity, bookingCache, metrics, transactionTemplate, events, writeBehind));
+        service.warmUp();
+        firstSlot = BenchmarkData.firstSlot().plusDays(30);
+
+        // Alternate an existing booking between two slots so every update moves it
+        ServiceRequest existing = rows.get(0);
+        updateToken = existing.getToken();
+        updates = new ServiceRequest[] {copyAt(existing, existing.getTimeSlot().plusDays(1)), copyAt(existing, existing.getTimeSlot())};
+    }
+
+    @Benchmark
+    public String requestService() {
+        int slot = sequence++ % SLOT_CYCLE;
+        ServiceRequest request = new ServiceRequest(null, "Estremoz", "Rua Principal, n12",
+                firstSlot.plusMinutes(30L * slot), "Old mattress");
+        return service.requestService(request);
+    }
+
+    @Benchmark
+    public String updateServiceRequest() {
+        return service.updateServiceRequest(updateToken, updates[sequence++ & 1]);
+    }
+
+    @Benchmark
+    public List<ServiceRequest> getServiceRequestsByMunicipality() {
+        return service.getServiceRequestsByMunicipality("Estremoz");
+    }
+
+    private static ServiceRequest copyAt(ServiceRequest source, LocalDateTime timeSlot) {
+        ServiceRequest copy = new ServiceRequest(null, source.getMunicipality(), source.getAddress(),
+                timeSlot, source.getItemDescription());
+        copy.setState(source.getState());
+        return copy;
+    }
+}
@@ -0,0 +1,158 @@
+package tqs.samuelvinhas.HW1.boundary;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import tqs.samuelvinhas.HW1.service.BookingEvent;
+
+/**
+ * Fans booking events out to Server-Sent Events subscribers. Each subscriber has a bounded
+ * queue drained by its own virtual thread, so a slow client never holds up the request that
+ * changed a booking. When a queue overflows its backlog is dropped and replaced with a single
+ * {@value #RESYNC} event, telling that client to reload instead of replaying every change.
+ * Archive runs, which move bookings in bulk, are sent to every subscriber as a resync too.
+ */
+@Component
+public class BookingEventBroadcaster {
+
+    public static final String BOOKING = "booking";
+    public static final String RESYNC = "resync";
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingEventBroadcaster.class);
+
+    private record Message(long id, String name, Object data) {
+    }
+
+    private final int bufferSize;
+    private final Duration timeout;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder droppedEvents = new LongAdder();
+
+    public BookingEventBroadcaster(@Value("${zeromonos.events.buffer-size:256}") int bufferSize,
+                                   @Value("${zeromonos.events.timeout:PT30M}") Duration timeout) {
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+    }
+
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, bufferSize);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.start();
+        logger.debug("Event stream subscriber added, {} connected", subscribers.size());
+        return emitter;
+    }
+
+    @EventListener
+    public void onBookingEvent(BookingEvent event) {
+        long id = sequence.incrementAndGet();
+        Message message = event.type() == BookingEvent.Type.ARCHIVED
+                ? new Message(id, RESYNC, Map.of("lastEventId", id))
+                : new Message(id, BOOKING, event);
+        subscribers.forEach(subscriber -> subscriber.offer(message));
+    }
+
+    /** Keeps idle connections alive through proxies and detects clients that went away. */
+    @Scheduled(fixedDelayString = "${zeromonos.events.heartbeat:PT15S}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.stop();
+            logger.debug("Event stream subscriber removed, {} connected", subscribers.size());
+        }
+    }
+
+    private final class Subscriber implements Runnable {
+
+        // Null name marks a heartbeat, sent as an SSE comment
+        private static final Message HEARTBEAT = new Message(0, null, null);
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Message> queue;
+        private Thread sender;
+
+        Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void start() {
+            sender = Thread.ofVirtual().name("sse-subscriber").start(this);
+        }
+
+        void stop() {
+            sender.interrupt();
+        }
+
+        synchronized void offer(Message message) {
+            if (!queue.offer(message)) {
+                // Too far behind to catch up: drop the backlog and have the client reload
+                droppedEvents.add(queue.size() + 1L);
+                queue.clear();
+                queue.offer(new Message(message.id(), RESYNC, Map.of("lastEventId", message.id())));
+            }
+        }
+
+        void heartbeat() {
+            if (queue.isEmpty()) {
+                queue.offer(HEARTBEAT);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Message message = queue.take();
+                    if (message.name() == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(message.id()))
+                                .name(message.name())
+                                .data(message.data(), MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                // Client disconnected or the emitter already completed
+                remove(this);
+            }
+        }
+    }
+}
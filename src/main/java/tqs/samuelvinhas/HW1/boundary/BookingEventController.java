@@ -0,0 +1,31 @@
+package tqs.samuelvinhas.HW1.boundary;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Live stream of booking changes for the staff dashboard.
+ */
+@RestController
+@RequestMapping("/api")
+public class BookingEventController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingEventController.class);
+
+    private final BookingEventBroadcaster broadcaster;
+
+    public BookingEventController(BookingEventBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    @GetMapping(value = "/bookings/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookingEvents() {
+        logger.debug("GET /api/bookings/events - Opening booking event stream");
+        return broadcaster.subscribe();
+    }
+}
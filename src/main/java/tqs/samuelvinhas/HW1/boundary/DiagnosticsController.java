@@ -0,0 +1,152 @@
+package tqs.samuelvinhas.HW1.boundary;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import tqs.samuelvinhas.HW1.service.BookingArchiveService;
+import tqs.samuelvinhas.HW1.service.BookingCache;
+import tqs.samuelvinhas.HW1.service.BookingIngestionQueue;
+import tqs.samuelvinhas.HW1.service.BookingPartitionMaintenance;
+import tqs.samuelvinhas.HW1.service.CircuitBreaker;
+
+/**
+ * Read-only runtime diagnostics for operators.
+ */
+@RestController
+@RequestMapping("/api/diagnostics")
+public class DiagnosticsController {
+
+    public record HttpPoolDiagnostics(int leased, int available, int pending, int max,
+                                      CircuitBreaker.State circuitState, long circuitRejected) {
+    }
+
+    /**
+     * One database connection pool: connections in use, idle and being waited for, and how
+     * long getting one took over the last few minutes (percentiles from the
+     * {@code hikaricp.connections.acquire} timer; 0 before the first acquisition).
+     */
+    public record DbPoolDiagnostics(String pool, int active, int idle, int waiting, int total, int max,
+                                    long acquisitions, double acquireP50Millis, double acquireP95Millis,
+                                    double acquireP99Millis, double acquireMaxMillis, long timeouts) {
+    }
+
+    private static final String ACQUIRE_TIMER = "hikaricp.connections.acquire";
+    private static final String TIMEOUT_COUNTER = "hikaricp.connections.timeout";
+    // As published by management.metrics.distribution.percentiles.hikaricp.connections.acquire
+    private static final double[] ACQUIRE_PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final PoolingHttpClientConnectionManager httpConnectionManager;
+    private final CircuitBreaker municipalityCircuitBreaker;
+    private final BookingCache bookingCache;
+    private final BookingIngestionQueue ingestionQueue;
+    private final BookingArchiveService archiveService;
+    private final BookingPartitionMaintenance partitionMaintenance;
+    private final List<HikariDataSource> connectionPools;
+    private final MeterRegistry meterRegistry;
+
+    public DiagnosticsController(PoolingHttpClientConnectionManager httpConnectionManager,
+                                 CircuitBreaker municipalityCircuitBreaker,
+                                 BookingCache bookingCache,
+                                 BookingIngestionQueue ingestionQueue,
+                                 BookingArchiveService archiveService,
+                                 BookingPartitionMaintenance partitionMaintenance,
+                                 List<HikariDataSource> connectionPools,
+                                 MeterRegistry meterRegistry) {
+        this.httpConnectionManager = httpConnectionManager;
+        this.municipalityCircuitBreaker = municipalityCircuitBreaker;
+        this.bookingCache = bookingCache;
+        this.ingestionQueue = ingestionQueue;
+        this.archiveService = archiveService;
+        this.partitionMaintenance = partitionMaintenance;
+        this.connectionPools = connectionPools;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @GetMapping("/http-pool")
+    public ResponseEntity<HttpPoolDiagnostics> getHttpPool() {
+        PoolStats stats = httpConnectionManager.getTotalStats();
+        return ResponseEntity.ok(new HttpPoolDiagnostics(
+                stats.getLeased(),
+                stats.getAvailable(),
+                stats.getPending(),
+                stats.getMax(),
+                municipalityCircuitBreaker.getState(),
+                municipalityCircuitBreaker.getRejectedCalls()));
+    }
+
+    /** The primary pool and, when configured, the replica pool. */
+    @GetMapping("/db-pool")
+    public ResponseEntity<List<DbPoolDiagnostics>> getDbPools() {
+        return ResponseEntity.ok(connectionPools.stream().map(this::dbPoolDiagnostics).toList());
+    }
+
+    @GetMapping("/booking-cache")
+    public ResponseEntity<BookingCache.Stats> getBookingCache() {
+        return ResponseEntity.ok(bookingCache.stats());
+    }
+
+    @GetMapping("/booking-queue")
+    public ResponseEntity<BookingIngestionQueue.Stats> getBookingQueue() {
+        return ResponseEntity.ok(ingestionQueue.stats());
+    }
+
+    /** Rows moved and time taken by the last archive run; 204 until the first one. */
+    @GetMapping("/archive")
+    public ResponseEntity<BookingArchiveService.Run> getLastArchiveRun() {
+        BookingArchiveService.Run run = archiveService.getLastRun();
+        return run != null ? ResponseEntity.ok(run) : ResponseEntity.noContent().build();
+    }
+
+    /** Partitions created and bookings left in the default partition by the last maintenance run. */
+    @GetMapping("/partitions")
+    public ResponseEntity<BookingPartitionMaintenance.Run> getLastPartitionRun() {
+        BookingPartitionMaintenance.Run run = partitionMaintenance.getLastRun();
+        return run != null ? ResponseEntity.ok(run) : ResponseEntity.noContent().build();
+    }
+
+    private DbPoolDiagnostics dbPoolDiagnostics(HikariDataSource dataSource) {
+        String pool = dataSource.getPoolName();
+        // Null until the pool has handed out its first connection
+        HikariPoolMXBean stats = dataSource.getHikariPoolMXBean();
+        Timer acquire = meterRegistry.find(ACQUIRE_TIMER).tag("pool", pool).timer();
+        Counter timeouts = meterRegistry.find(TIMEOUT_COUNTER).tag("pool", pool).counter();
+        double[] percentiles = new double[ACQUIRE_PERCENTILES.length];
+        if (acquire != null) {
+            for (ValueAtPercentile value : acquire.takeSnapshot().percentileValues()) {
+                int index = Arrays.binarySearch(ACQUIRE_PERCENTILES, value.percentile());
+                if (index >= 0) {
+                    percentiles[index] = value.value(TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        return new DbPoolDiagnostics(
+                pool,
+                stats != null ? stats.getActiveConnections() : 0,
+                stats != null ? stats.getIdleConnections() : 0,
+                stats != null ? stats.getThreadsAwaitingConnection() : 0,
+                stats != null ? stats.getTotalConnections() : 0,
+                dataSource.getMaximumPoolSize(),
+                acquire != null ? acquire.count() : 0,
+                percentiles[0],
+                percentiles[1],
+                percentiles[2],
+                acquire != null ? acquire.max(TimeUnit.MILLISECONDS) : 0,
+                timeouts != null ? (long) timeouts.count() : 0);
+    }
+}
@@ -2,109 +2,328 @@ package tqs.samuelvinhas.HW1.boundary;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import tqs.samuelvinhas.HW1.data.BookingSummary;
 import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
 import tqs.samuelvinhas.HW1.service.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 public class ZeroMonosController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    /** Seconds a client is asked to wait when the write-behind queue is full. */
+    public static final int RETRY_AFTER_SECONDS = 1;
+
     private static final Logger logger = LoggerFactory.getLogger(ZeroMonosController.class);
     private final ZeroMonosService service;
     private final MunicipalityService municipalityService;
+    private final BookingExportService exportService;
+    private final BookingBatchService batchService;
 
-    public ZeroMonosController(ZeroMonosService service, MunicipalityService municipalityService) {
+    public ZeroMonosController(ZeroMonosService service, MunicipalityService municipalityService,
+                               BookingExportService exportService, BookingBatchService batchService) {
         this.service = service;
+        this.exportService = exportService;
+        this.batchService = batchService;
         this.municipalityService = municipalityService;
         logger.info("ZeroMonosController initialized");
     }
 
     @PostMapping("/bookings")
     public ResponseEntity<String> book(@RequestBody ServiceRequest request) {
-        logger.info("POST /api/bookings - Creating new booking for municipality: {}", request.getMunicipality());
+        logger.debug("POST /api/bookings - Creating new booking for municipality: {}", request.getMunicipality());
         try {
             String token = service.requestService(request);
-            logger.info("Booking created successfully with token: {}", token);
+            logger.debug("Booking created successfully with token: {}", token);
             return ResponseEntity.status(201).body(token);
         } catch (IllegalStateException e) {
             logger.warn("Failed to create booking: {}", e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Booking not accepted: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS))
+                    .body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/bookings/batch")
+    public ResponseEntity<List<BatchItemResult>> createBookings(@RequestBody List<ServiceRequest> requests) {
+        logger.debug("POST /api/bookings/batch - Creating {} bookings", requests.size());
+        try {
+            return ResponseEntity.ok(batchService.createAll(requests));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected booking batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PatchMapping("/bookings/batch")
+    public ResponseEntity<List<BatchItemResult>> updateBookings(@RequestBody List<BookingPatch> patches) {
+        logger.debug("PATCH /api/bookings/batch - Updating {} bookings", patches.size());
+        try {
+            return ResponseEntity.ok(batchService.updateAll(patches));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected booking batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/bookings/batch/state")
+    public ResponseEntity<StateTransitionResult> transitionBookings(@RequestBody StateTransitionRequest request) {
+        List<String> tokens = request.tokens() != null ? request.tokens() : List.of();
+        logger.debug("POST /api/bookings/batch/state - Moving {} bookings to {}", tokens.size(), request.state());
+        try {
+            return ResponseEntity.ok(batchService.transitionAll(tokens, request.state()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected state transition: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping("/bookings/{token}")
-    public ResponseEntity<ServiceRequest> getBooking(@PathVariable String token) {
-        logger.info("GET /api/bookings/{} - Fetching booking", token);
+    public ResponseEntity<ServiceRequest> getBooking(@PathVariable String token, WebRequest webRequest) {
+        logger.debug("GET /api/bookings/{} - Fetching booking", token);
         Optional<ServiceRequest> request = service.getServiceRequest(token);
         if (request.isPresent()) {
-            logger.info("Booking found: {}", token);
-            return ResponseEntity.ok(request.get());
+            ServiceRequest booking = request.get();
+            ZonedDateTime lastModified = booking.getLastModified() != null
+                    ? booking.getLastModified().atZone(ZoneId.systemDefault()) : null;
+            if (webRequest.checkNotModified(etagOf(booking), lastModified != null ? lastModified.toInstant().toEpochMilli() : -1)) {
+                logger.debug("Booking not modified: {}", token);
+                return null;
+            }
+            logger.debug("Booking found: {}", token);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .eTag(etagOf(booking))
+                    .cacheControl(CacheControl.noCache());
+            if (lastModified != null) {
+                response.lastModified(lastModified);
+            }
+            return response.body(booking);
         } else {
             logger.warn("Booking not found: {}", token);
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Pages through bookings. With {@code fields} (a comma-separated subset of
+     * {@link BookingSummary#FIELDS}) only those fields are selected and returned.
+     */
     @GetMapping("/bookings")
-    public ResponseEntity<List<ServiceRequest>> getAllBookings() {
-        logger.info("GET /api/bookings - Fetching all bookings");
-        List<ServiceRequest> requests = service.getAllServiceRequests();
-        logger.info("Found {} bookings", requests.size());
-        return ResponseEntity.ok(requests);
+    public ResponseEntity<?> getAllBookings(
+            @RequestParam(required = false) REQUEST_STATE state,
+            @RequestParam(required = false) String municipality,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ZeroMonosService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String fields) {
+        logger.debug("GET /api/bookings - Fetching bookings page (state={}, municipality={}, from={}, to={}, limit={}, fields={})",
+                state, municipality, from, to, limit, fields);
+        BookingPage<?> page;
+        Set<String> selected;
+        try {
+            selected = fields != null ? fieldsOf(fields) : null;
+            BookingCursor after = cursor != null ? BookingCursor.decode(cursor) : null;
+            BookingFilter filter = new BookingFilter(state, municipality, from, to);
+            page = selected != null
+                    ? service.getBookingSummariesPage(filter, after, limit)
+                    : service.getServiceRequestsPage(filter, after, limit);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid bookings page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        logger.debug("Found {} bookings, more available: {}", page.items().size(), page.nextCursor() != null);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(selected != null ? withFields(page.items(), selected) : page.items());
+    }
+
+    @GetMapping("/bookings/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        logger.debug("GET /api/bookings/export - Exporting all bookings as {}", format);
+        BookingExportService.Format exportFormat;
+        try {
+            exportFormat = BookingExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unsupported export format: {}", format);
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> {
+            long rows = exportService.export(exportFormat, out);
+            logger.info("Exported {} bookings as {}", rows, exportFormat);
+        };
+        String filename = "bookings-" + LocalDate.now() + "." + exportFormat.extension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.mediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    @GetMapping("/bookings/stats")
+    public ResponseEntity<BookingStats> getBookingStats() {
+        logger.debug("GET /api/bookings/stats - Fetching booking statistics");
+        return ResponseEntity.ok(service.getStatistics());
     }
 
     @GetMapping("/bookings/municipality/{municipality}")
-    public ResponseEntity<List<ServiceRequest>> getBookingsByMunicipality(@PathVariable String municipality) {
-        logger.info("GET /api/bookings/municipality/{} - Fetching bookings by municipality", municipality);
+    public ResponseEntity<?> getBookingsByMunicipality(@PathVariable String municipality,
+            @RequestParam(required = false) String fields) {
+        logger.debug("GET /api/bookings/municipality/{} - Fetching bookings by municipality", municipality);
+        if (fields != null) {
+            Set<String> selected;
+            try {
+                selected = fieldsOf(fields);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid bookings request: {}", e.getMessage());
+                return ResponseEntity.badRequest().build();
+            }
+            List<BookingSummary> summaries = service.getBookingSummariesByMunicipality(municipality);
+            logger.debug("Found {} bookings for municipality: {}", summaries.size(), municipality);
+            return ResponseEntity.ok(withFields(summaries, selected));
+        }
         List<ServiceRequest> requests = service.getServiceRequestsByMunicipality(municipality);
-        logger.info("Found {} bookings for municipality: {}", requests.size(), municipality);
+        logger.debug("Found {} bookings for municipality: {}", requests.size(), municipality);
         return ResponseEntity.ok(requests);
     }
 
     @PutMapping("/bookings/{token}")
-    public ResponseEntity<String> updateBooking(@PathVariable String token, @RequestBody ServiceRequest updatedRequest) {
-        logger.info("PUT /api/bookings/{} - Updating booking", token);
+    public ResponseEntity<String> updateBooking(@PathVariable String token, @RequestBody ServiceRequest updatedRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.debug("PUT /api/bookings/{} - Updating booking", token);
         try {
-            String updatedService = service.updateServiceRequest(token, updatedRequest);
-            logger.info("Booking updated successfully: {}", token);
+            String updatedService = service.updateServiceRequest(token, updatedRequest, versionsOf(ifMatch));
+            logger.debug("Booking updated successfully: {}", token);
             return ResponseEntity.ok(updatedService);
         } catch (NoSuchElementException | IllegalStateException e) {
             logger.warn("Failed to update booking {}: {}", token, e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            // 412 when the client's If-Match was stale, 409 when an unconditional update lost a race
+            logger.warn("Booking {} was modified concurrently", token);
+            HttpStatus status = ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+            return ResponseEntity.status(status).body(ZeroMonosService.MODIFIED);
         }
     }
 
     @DeleteMapping("/bookings/{token}")
     public ResponseEntity<Void> deleteBooking(@PathVariable String token) {
-        logger.info("DELETE /api/bookings/{} - Deleting booking", token);
+        logger.debug("DELETE /api/bookings/{} - Deleting booking", token);
         try {
             service.deleteServiceRequest(token);
-            logger.info("Booking deleted successfully: {}", token);
+            logger.debug("Booking deleted successfully: {}", token);
             return ResponseEntity.noContent().build();  } 
         catch (NoSuchElementException e) {
             logger.warn("Booking not found for deletion: {}", token);
             return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Booking {} was modified while being deleted", token);
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
 
     @GetMapping("/municipalities")
-    public ResponseEntity<List<String>> getMunicipalities() {
-        logger.info("GET /api/municipalities - Fetching municipalities");
-        try {
-            List<String> municipalities = municipalityService.getAllMunicipalities();
-            logger.info("Successfully fetched {} municipalities", municipalities.size());
-            return ResponseEntity.ok(municipalities);
-        } catch (Exception e) {
-            logger.error("Error fetching municipalities", e);
-            return ResponseEntity.internalServerError().build();
+    public ResponseEntity<List<String>> getMunicipalities(WebRequest webRequest) {
+        logger.debug("GET /api/municipalities - Fetching municipalities");
+        MunicipalityCatalog catalog = municipalityService.getCatalog();
+        if (webRequest.checkNotModified(catalog.etag(), catalog.lastModified().toEpochMilli())) {
+            logger.debug("Municipalities not modified since {}", catalog.etag());
+            return null;
         }
+        logger.debug("Returning {} municipalities from {} catalog", catalog.municipalities().size(), catalog.source());
+        return ResponseEntity.ok()
+                .eTag(catalog.etag())
+                .lastModified(catalog.lastModified())
+                .cacheControl(CacheControl.noCache())
+                .body(catalog.municipalities());
+    }
+
+    /** Parses a {@code fields} parameter; unknown or missing field names are rejected. */
+    private static Set<String> fieldsOf(String fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!BookingSummary.FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "', expected some of " + BookingSummary.FIELDS);
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+
+    private static MappingJacksonValue withFields(List<?> summaries, Set<String> fields) {
+        MappingJacksonValue body = new MappingJacksonValue(summaries);
+        body.setFilters(new SimpleFilterProvider()
+                .addFilter(BookingSummary.FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        return body;
+    }
+
+    private static String etagOf(ServiceRequest booking) {
+        return "\"" + booking.getVersion() + "\"";
+    }
+
+    /**
+     * Versions named by an If-Match header, a comma-separated list of tags any of which may match;
+     * null for none or "*". Tags that aren't one of our ETags name no version.
+     */
+    private static Set<Long> versionsOf(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new LinkedHashSet<>();
+        for (String entry : ifMatch.split(",")) {
+            String tag = entry.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            try {
+                versions.add(Long.parseLong(tag.replace("\"", "")));
+            } catch (NumberFormatException e) {
+                // Not a tag we handed out, so no version of the booking matches it
+            }
+        }
+        return versions;
+    }
+
+    @GetMapping("/municipalities/{municipality}/availability")
+    public ResponseEntity<SlotAvailability> getAvailability(@PathVariable String municipality,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        logger.debug("GET /api/municipalities/{}/availability - Fetching availability for {}", municipality, date);
+        return ResponseEntity.ok(service.getAvailability(municipality, date));
     }
 
 }
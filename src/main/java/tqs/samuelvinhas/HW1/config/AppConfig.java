@@ -1,14 +1,80 @@
 package tqs.samuelvinhas.HW1.config;
 
+import java.time.Clock;
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import io.micrometer.observation.ObservationRegistry;
+
+import tqs.samuelvinhas.HW1.service.CircuitBreaker;
+import tqs.samuelvinhas.HW1.service.SlotCapacity;
+import tqs.samuelvinhas.HW1.service.WriteBehindProperties;
+
 @Configuration
+@EnableConfigurationProperties({SlotCapacity.class, WriteBehindProperties.class})
 public class AppConfig {
-    
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(
+            @Value("${zeromonos.http.max-connections:20}") int maxConnections,
+            @Value("${zeromonos.http.max-connections-per-route:10}") int maxConnectionsPerRoute,
+            @Value("${zeromonos.http.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${zeromonos.http.read-timeout:PT5S}") Duration readTimeout,
+            @Value("${zeromonos.http.connection-ttl:PT5M}") Duration connectionTtl) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(connectionTtl))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager,
+            @Value("${zeromonos.http.read-timeout:PT5S}") Duration readTimeout,
+            @Value("${zeromonos.http.pool-acquire-timeout:PT1S}") Duration poolAcquireTimeout,
+            @Value("${zeromonos.http.keep-alive:PT30S}") Duration keepAlive) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(keepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .build();
+    }
+
+    /** Observed, so upstream calls show up as {@code http.client.requests} timers. */
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient httpClient, ObservationRegistry observationRegistry) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        restTemplate.setObservationRegistry(observationRegistry);
+        return restTemplate;
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public CircuitBreaker municipalityCircuitBreaker(
+            @Value("${zeromonos.municipalities.failure-threshold:3}") int failureThreshold,
+            @Value("${zeromonos.municipalities.open-duration:PT1M}") Duration openDuration) {
+        return new CircuitBreaker("municipalities", failureThreshold, openDuration, Clock.systemUTC());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package tqs.samuelvinhas.HW1.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Primary connection pool plus an optional read replica. The DataSource handed to JPA
+ * only fetches a physical connection on the first statement, by which time the
+ * transaction's read-only flag is known: read-only transactions then use the replica
+ * pool when {@code zeromonos.datasource.replica.url} is set, everything else the primary.
+ * Without a replica, a transaction that never reaches the database (a cache hit, say)
+ * doesn't take a connection from the pool at all.
+ * <p>
+ * With {@code zeromonos.datasource.pool.connections-per-core} set, both pools default to
+ * {@code cores * connections-per-core + spindles} connections (PostgreSQL's rule of thumb, with
+ * this host's cores standing in for the database server's); an explicit {@code maximum-pool-size}
+ * still wins.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private final int connectionsPerCore;
+    private final int spindles;
+
+    public DataSourceConfig(@Value("${zeromonos.datasource.pool.connections-per-core:0}") int connectionsPerCore,
+                            @Value("${zeromonos.datasource.pool.spindles:1}") int spindles) {
+        this.connectionsPerCore = connectionsPerCore;
+        this.spindles = spindles;
+    }
+
+    /** Pool size for a database with {@code cores} cores and {@code spindles} effective disks. */
+    public static int poolSize(int cores, int connectionsPerCore, int spindles) {
+        return Math.max(cores * connectionsPerCore + spindles, 2);
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        sizeFromCores(dataSource);
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty("zeromonos.datasource.replica.url")
+    @ConfigurationProperties("zeromonos.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+            @Value("${zeromonos.datasource.replica.url}") String url,
+            @Value("${zeromonos.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${zeromonos.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        sizeFromCores(dataSource);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        replicaDataSource.ifAvailable(dataSource::setReadOnlyDataSource);
+        return dataSource;
+    }
+
+    // Runs before the pool's hikari.* properties are bound, so they override it
+    private void sizeFromCores(HikariDataSource dataSource) {
+        if (connectionsPerCore > 0) {
+            dataSource.setMaximumPoolSize(poolSize(Runtime.getRuntime().availableProcessors(), connectionsPerCore, spindles));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package tqs.samuelvinhas.HW1.config;
+
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import tqs.samuelvinhas.HW1.boundary.BookingEventBroadcaster;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+import tqs.samuelvinhas.HW1.service.BookingCache;
+import tqs.samuelvinhas.HW1.service.BookingIngestionQueue;
+import tqs.samuelvinhas.HW1.service.BookingStatistics;
+import tqs.samuelvinhas.HW1.service.CircuitBreaker;
+
+/**
+ * Gauges over the in-process components that already keep their own counters. HTTP
+ * server, repository, outbound HTTP, JVM and Hikari pool metrics come from actuator.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder httpPoolMetrics(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return registry -> {
+            Gauge.builder("zeromonos.http.pool.leased", httpConnectionManager, m -> m.getTotalStats().getLeased())
+                    .description("Outbound HTTP connections in use").register(registry);
+            Gauge.builder("zeromonos.http.pool.available", httpConnectionManager, m -> m.getTotalStats().getAvailable())
+                    .description("Idle pooled outbound HTTP connections").register(registry);
+            Gauge.builder("zeromonos.http.pool.pending", httpConnectionManager, m -> m.getTotalStats().getPending())
+                    .description("Requests waiting for an outbound HTTP connection").register(registry);
+            Gauge.builder("zeromonos.http.pool.max", httpConnectionManager, m -> m.getTotalStats().getMax())
+                    .description("Maximum outbound HTTP connections").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder municipalityUpstreamMetrics(CircuitBreaker municipalityCircuitBreaker) {
+        return registry -> {
+            for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+                Gauge.builder("zeromonos.circuitbreaker.state", municipalityCircuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+                        .tags("name", municipalityCircuitBreaker.getName(), "state", state.name().toLowerCase())
+                        .register(registry);
+            }
+            FunctionCounter.builder("zeromonos.circuitbreaker.rejected", municipalityCircuitBreaker, CircuitBreaker::getRejectedCalls)
+                    .tag("name", municipalityCircuitBreaker.getName()).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder bookingCacheMetrics(BookingCache bookingCache) {
+        return registry -> {
+            Gauge.builder("zeromonos.booking.cache.size", bookingCache, c -> c.stats().size()).register(registry);
+            FunctionCounter.builder("zeromonos.booking.cache.gets", bookingCache, c -> c.stats().hits())
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("zeromonos.booking.cache.gets", bookingCache, c -> c.stats().misses())
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("zeromonos.booking.cache.evictions", bookingCache, c -> c.stats().evictions())
+                    .tag("cause", "size").register(registry);
+            FunctionCounter.builder("zeromonos.booking.cache.evictions", bookingCache, c -> c.stats().expirations())
+                    .tag("cause", "expired").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder bookingQueueMetrics(BookingIngestionQueue ingestionQueue) {
+        return registry -> {
+            Gauge.builder("zeromonos.bookings.queue.size", ingestionQueue, q -> q.stats().queued())
+                    .description("Accepted bookings waiting to be written").register(registry);
+            FunctionCounter.builder("zeromonos.bookings.queue.written", ingestionQueue, q -> q.stats().written())
+                    .register(registry);
+            FunctionCounter.builder("zeromonos.bookings.queue.rejected", ingestionQueue, q -> q.stats().rejected())
+                    .description("Bookings refused because the queue was full").register(registry);
+            FunctionCounter.builder("zeromonos.bookings.queue.dropped", ingestionQueue, q -> q.stats().dropped())
+                    .description("Accepted bookings that could not be written").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder bookingMetrics(BookingStatistics statistics, BookingEventBroadcaster broadcaster) {
+        return registry -> {
+            for (REQUEST_STATE state : REQUEST_STATE.values()) {
+                Gauge.builder("zeromonos.bookings", statistics, s -> s.count(state))
+                        .tag("state", state.name().toLowerCase()).register(registry);
+            }
+            Gauge.builder("zeromonos.events.subscribers", broadcaster, BookingEventBroadcaster::getSubscriberCount)
+                    .register(registry);
+            FunctionCounter.builder("zeromonos.events.dropped", broadcaster, BookingEventBroadcaster::getDroppedEvents)
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package tqs.samuelvinhas.HW1.data;
+
+import java.time.LocalDate;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+/**
+ * Number of bookings of one municipality, collection day and state moved by
+ * {@link ZeroMonosRepository#archive}. An interface projection, since the rows come from
+ * a native DELETE ... RETURNING.
+ */
+public interface ArchivedCount {
+
+    String getMunicipality();
+
+    LocalDate getDay();
+
+    REQUEST_STATE getState();
+
+    long getCount();
+}
@@ -0,0 +1,10 @@
+package tqs.samuelvinhas.HW1.data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight (municipality, timeSlot) pair, used to warm up in-memory slot indexes
+ * without loading whole ServiceRequest entities.
+ */
+public record BookedSlot(String municipality, LocalDateTime timeSlot) {
+}
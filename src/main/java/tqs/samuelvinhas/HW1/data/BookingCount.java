@@ -0,0 +1,11 @@
+package tqs.samuelvinhas.HW1.data;
+
+import java.time.LocalDate;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+/**
+ * Number of bookings sharing a municipality, collection day and state.
+ */
+public record BookingCount(String municipality, LocalDate day, REQUEST_STATE state, long count) {
+}
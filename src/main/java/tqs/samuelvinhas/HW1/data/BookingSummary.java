@@ -0,0 +1,21 @@
+package tqs.samuelvinhas.HW1.data;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+/**
+ * The columns listings need, selected straight into a record so no entity is
+ * loaded into the persistence context. Serialized through the {@value #FILTER}
+ * filter, which keeps only the fields the caller asked for.
+ */
+@JsonFilter(BookingSummary.FILTER)
+public record BookingSummary(String token, String municipality, String address,
+                             LocalDateTime timeSlot, REQUEST_STATE state, long version) {
+
+    public static final String FILTER = "bookingSummaryFields";
+    public static final Set<String> FIELDS = Set.of("token", "municipality", "address", "timeSlot", "state", "version");
+}
@@ -1,22 +1,65 @@
 package tqs.samuelvinhas.HW1.data;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "service_requests")
-public class ServiceRequest {
+@Table(name = "service_requests", indexes = {
+    @Index(name = "idx_service_requests_municipality_time_slot", columnList = "municipality, time_slot"),
+    @Index(name = "idx_service_requests_state_time_slot", columnList = "state, time_slot"),
+    @Index(name = "idx_service_requests_municipality_state", columnList = "municipality, state"),
+    @Index(name = "idx_service_requests_time_slot_token", columnList = "time_slot, token")
+})
+public class ServiceRequest implements Persistable<String> {
 
     public enum REQUEST_STATE { 
         RECEIVED,
         ASSIGNED,
         IN_PROGRESS,
         COMPLETED,
-        CANCELLED
+        CANCELLED;
+
+        /**
+         * Dispatch workflow: RECEIVED -> ASSIGNED -> IN_PROGRESS -> COMPLETED, and a
+         * booking can be cancelled until a crew starts on it.
+         */
+        public boolean canMoveTo(REQUEST_STATE next) {
+            return switch (next) {
+                case ASSIGNED -> this == RECEIVED;
+                case IN_PROGRESS -> this == ASSIGNED;
+                case COMPLETED -> this == IN_PROGRESS;
+                case CANCELLED -> this == RECEIVED || this == ASSIGNED;
+                case RECEIVED -> false;
+            };
+        }
+
+        /** The states a booking can move to {@code next} from. */
+        public static Set<REQUEST_STATE> sourcesOf(REQUEST_STATE next) {
+            Set<REQUEST_STATE> sources = EnumSet.noneOf(REQUEST_STATE.class);
+            for (REQUEST_STATE state : values()) {
+                if (state.canMoveTo(next)) {
+                    sources.add(state);
+                }
+            }
+            return sources;
+        }
     }
 
+    // Stored as a native uuid; see UuidTokenJavaType
     @Id
+    @JdbcTypeCode(SqlTypes.UUID)
+    @JavaType(UuidTokenJavaType.class)
     private String token;
 
     @Column(nullable = false)
@@ -25,7 +68,7 @@ public class ServiceRequest {
     @Column(nullable = false)
     private String address;
 
-    @Column(nullable = false)
+    @Column(name = "time_slot", nullable = false)
     private LocalDateTime timeSlot;
 
     @Column(nullable = false)
@@ -38,6 +81,20 @@ public class ServiceRequest {
     @Column(nullable = false)
     private LocalDateTime date;
 
+    // Bumped on every update; exposed as the booking's ETag and checked against If-Match
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    @Column(name = "last_modified", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime lastModified;
+
+    // Tokens are assigned by the service, so tell Spring Data whether to persist or merge
+    // instead of letting save() issue a SELECT for every new booking
+    @Transient
+    private boolean isNew = true;
+
     public ServiceRequest() {
         this.date = LocalDateTime.now();
         this.state = REQUEST_STATE.RECEIVED;
@@ -75,4 +132,25 @@ public class ServiceRequest {
     public LocalDateTime getDate() { return date; }
     public void setDate(LocalDateTime date) { this.date = date; }
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public LocalDateTime getLastModified() { return lastModified; }
+
+    @Override
+    @JsonIgnore
+    public String getId() { return token; }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+
+    @PrePersist
+    @PreUpdate
+    void touch() { this.lastModified = LocalDateTime.now(); }
+
 }
@@ -0,0 +1,13 @@
+package tqs.samuelvinhas.HW1.data;
+
+/**
+ * Places taken in one slot by {@link ZeroMonosRepository#claimSlots}: {@code slot} is the slot's
+ * 1-based position in the arrays passed in. An interface projection, since the rows come from a
+ * native UPDATE ... RETURNING.
+ */
+public interface SlotClaim {
+
+    int getSlot();
+
+    int getClaimed();
+}
@@ -0,0 +1,16 @@
+package tqs.samuelvinhas.HW1.data;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+/**
+ * A booking moved by {@link ZeroMonosRepository#transitionStates}, the state it left and its new version.
+ * An interface projection, since the row comes from a native UPDATE ... RETURNING.
+ */
+public interface StateTransition {
+
+    String getToken();
+
+    REQUEST_STATE getPreviousState();
+
+    long getVersion();
+}
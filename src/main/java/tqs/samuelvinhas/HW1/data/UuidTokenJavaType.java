@@ -0,0 +1,31 @@
+package tqs.samuelvinhas.HW1.data;
+
+import java.util.UUID;
+
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.StringJavaType;
+
+/**
+ * Booking tokens stay strings in Java and in the API but are stored in a native {@code uuid}
+ * column: bound as {@link UUID} and read back as their canonical string. Callers must only pass
+ * well-formed UUID strings (see {@code BookingTokens#isValid}).
+ */
+public class UuidTokenJavaType extends StringJavaType {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+        if (value != null && UUID.class.isAssignableFrom(type)) {
+            return (X) UUID.fromString(value);
+        }
+        return super.unwrap(value, type, options);
+    }
+
+    @Override
+    public <X> String wrap(X value, WrapperOptions options) {
+        if (value instanceof UUID uuid) {
+            return uuid.toString();
+        }
+        return super.wrap(value, options);
+    }
+}
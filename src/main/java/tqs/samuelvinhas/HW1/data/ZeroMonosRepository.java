@@ -1,16 +1,266 @@
 package tqs.samuelvinhas.HW1.data;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface ZeroMonosRepository extends JpaRepository<ServiceRequest, String> {
 
-    Optional<ServiceRequest> findByMunicipalityAndTimeSlot(String municipality, LocalDateTime timeSlot);
+    int EXPORT_FETCH_SIZE = 500;
+
+    /**
+     * Filters and (timeSlot, token) keyset shared by the page queries. The time bounds are never
+     * null, so PostgreSQL only scans the monthly partitions they cover.
+     */
+    String PAGE_WHERE = "where (:state is null or r.state = :state) "
+            + "and (:municipality is null or r.municipality = :municipality) "
+            + "and r.timeSlot >= :from and r.timeSlot < :to "
+            + "and r.timeSlot >= :afterTimeSlot and (r.timeSlot > :afterTimeSlot or r.token > :afterToken) "
+            + "order by r.timeSlot, r.token";
+
+    /** Stand-ins for an open end of a page's time range, before and after every booking. */
+    LocalDateTime EARLIEST_SLOT = LocalDateTime.of(1900, 1, 1, 0, 0);
+    LocalDateTime LATEST_SLOT = LocalDateTime.of(9999, 1, 1, 0, 0);
+
+    /** Sorts before every issued token, which are version 7 UUIDs. */
+    String NIL_TOKEN = "00000000-0000-0000-0000-000000000000";
+
+    String SUMMARY = "select new tqs.samuelvinhas.HW1.data.BookingSummary("
+            + "r.token, r.municipality, r.address, r.timeSlot, r.state, r.version) ";
+
+    /**
+     * Read-write, unlike the inherited read-only default, so that the read in a
+     * read-modify-write (update, delete) sees the primary and not a lagging replica.
+     * Inside a read-only transaction it joins that transaction and reads from the replica.
+     */
+    @Override
+    @Transactional
+    Optional<ServiceRequest> findById(String token);
+
+    List<ServiceRequest> findByMunicipalityAndTimeSlot(String municipality, LocalDateTime timeSlot);
+
+    /**
+     * Takes one place in the slot if fewer than {@code capacity} are taken, creating the slot's
+     * row on first use, and returns how many places are now taken; empty when the slot was full.
+     * The check and the increment are one statement on one row, so concurrent bookings of a slot
+     * queue on its row lock (held until the transaction ends) instead of overbooking it.
+     * Places are given back by database triggers when a booking is deleted or moved.
+     */
+    @Transactional
+    @Query(value = "insert into slot_reservations as s (municipality, time_slot, booked) "
+            + "values (:municipality, :timeSlot, 1) "
+            + "on conflict (municipality, time_slot) do update set booked = s.booked + 1 "
+            + "where s.booked < :capacity "
+            + "returning s.booked",
+            nativeQuery = true)
+    Optional<Integer> reserveSlot(@Param("municipality") String municipality,
+                                  @Param("timeSlot") LocalDateTime timeSlot,
+                                  @Param("capacity") int capacity);
+
+    /**
+     * Set-based {@link #reserveSlot} for many slots at once: creates the counter rows that don't
+     * exist yet. Followed by {@link #claimSlots} in the same transaction.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into slot_reservations (municipality, time_slot, booked) "
+            + "select w.municipality, w.time_slot, 0 "
+            + "from unnest(cast(:municipalities as varchar[]), cast(:timeSlots as timestamp[])) "
+            + "as w(municipality, time_slot) "
+            + "order by w.municipality, w.time_slot "
+            + "on conflict (municipality, time_slot) do nothing",
+            nativeQuery = true)
+    int createSlots(@Param("municipalities") String[] municipalities,
+                    @Param("timeSlots") LocalDateTime[] timeSlots);
+
+    /**
+     * Takes up to {@code wanted[i]} places in slot i, as many as are left below {@code capacities[i]},
+     * in one statement, and returns how many it took in each slot that had any left. The counter
+     * rows (see {@link #createSlots}) are locked in slot order, like concurrent batches lock them,
+     * and held until the transaction ends.
+     */
+    @Transactional
+    @Query(value = "update slot_reservations s set booked = s.booked + c.claimed "
+            + "from (select r.municipality, r.time_slot, w.slot, least(w.wanted, w.capacity - r.booked) as claimed "
+            + "from slot_reservations r join unnest(cast(:municipalities as varchar[]), cast(:timeSlots as timestamp[]), "
+            + "cast(:wanted as int[]), cast(:capacities as int[])) with ordinality "
+            + "as w(municipality, time_slot, wanted, capacity, slot) "
+            + "on r.municipality = w.municipality and r.time_slot = w.time_slot "
+            + "where r.booked < w.capacity "
+            + "order by r.municipality, r.time_slot for update of r) c "
+            + "where s.municipality = c.municipality and s.time_slot = c.time_slot "
+            + "returning cast(c.slot as int) as \"slot\", c.claimed as \"claimed\"",
+            nativeQuery = true)
+    List<SlotClaim> claimSlots(@Param("municipalities") String[] municipalities,
+                               @Param("timeSlots") LocalDateTime[] timeSlots,
+                               @Param("wanted") Integer[] wanted,
+                               @Param("capacities") Integer[] capacities);
 
     List<ServiceRequest> findByMunicipality(String municipality);
 
+    @Query(SUMMARY + "from ServiceRequest r where r.municipality = :municipality")
+    List<BookingSummary> findSummariesByMunicipality(@Param("municipality") String municipality);
+
+    @Query("select new tqs.samuelvinhas.HW1.data.BookedSlot(r.municipality, r.timeSlot) "
+            + "from ServiceRequest r where r.timeSlot >= :from")
+    List<BookedSlot> findBookedSlotsFrom(@Param("from") LocalDateTime from);
+
+    @Query("select new tqs.samuelvinhas.HW1.data.BookingCount(r.municipality, cast(r.timeSlot as LocalDate), r.state, count(r)) "
+            + "from ServiceRequest r group by r.municipality, cast(r.timeSlot as LocalDate), r.state")
+    List<BookingCount> countGroupedByMunicipalityDayAndState();
+
+    /**
+     * Keyset page over the (timeSlot, token) ordering, starting strictly after
+     * (afterTimeSlot, afterToken) when given. Null filters are ignored.
+     */
+    default List<ServiceRequest> findPage(REQUEST_STATE state, String municipality, LocalDateTime from,
+                                          LocalDateTime to, LocalDateTime afterTimeSlot, String afterToken,
+                                          Limit limit) {
+        return afterTimeSlot != null
+                ? findPageInRange(state, municipality, orEarliest(from), orLatest(to), afterTimeSlot, afterToken, limit)
+                : findPageInRange(state, municipality, orEarliest(from), orLatest(to), EARLIEST_SLOT, NIL_TOKEN, limit);
+    }
+
+    /** Same page as {@link #findPage}, selecting only the summary columns into records instead of entities. */
+    default List<BookingSummary> findSummaryPage(REQUEST_STATE state, String municipality, LocalDateTime from,
+                                                 LocalDateTime to, LocalDateTime afterTimeSlot, String afterToken,
+                                                 Limit limit) {
+        return afterTimeSlot != null
+                ? findSummaryPageInRange(state, municipality, orEarliest(from), orLatest(to), afterTimeSlot, afterToken, limit)
+                : findSummaryPageInRange(state, municipality, orEarliest(from), orLatest(to), EARLIEST_SLOT, NIL_TOKEN, limit);
+    }
+
+    /** {@link #findPage} with every time bound given. */
+    @Query("select r from ServiceRequest r " + PAGE_WHERE)
+    List<ServiceRequest> findPageInRange(@Param("state") REQUEST_STATE state,
+                                         @Param("municipality") String municipality,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to,
+                                         @Param("afterTimeSlot") LocalDateTime afterTimeSlot,
+                                         @Param("afterToken") String afterToken,
+                                         Limit limit);
+
+    /** {@link #findSummaryPage} with every time bound given. */
+    @Query(SUMMARY + "from ServiceRequest r " + PAGE_WHERE)
+    List<BookingSummary> findSummaryPageInRange(@Param("state") REQUEST_STATE state,
+                                                @Param("municipality") String municipality,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to,
+                                                @Param("afterTimeSlot") LocalDateTime afterTimeSlot,
+                                                @Param("afterToken") String afterToken,
+                                                Limit limit);
+
+    /**
+     * Deletes the booking only if it is still at {@code version}, which also limits the delete to
+     * the partition of {@code timeSlot}. Returns 0 when it was deleted or changed since it was read.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from ServiceRequest r where r.token = :token and r.timeSlot = :timeSlot and r.version = :version")
+    int deleteIfUnchanged(@Param("token") String token,
+                          @Param("timeSlot") LocalDateTime timeSlot,
+                          @Param("version") long version);
+
+    /**
+     * Moves the given bookings to {@code state} in one statement, touching only rows whose
+     * current state is one of {@code sources}, bumping their version like a JPA update would.
+     * Rows are locked in token order so concurrent bulk transitions cannot deadlock.
+     * Returns the bookings that moved.
+     */
+    @Transactional
+    @Query(value = "update service_requests r set state = :state, "
+            + "version = r.version + 1, last_modified = :now "
+            + "from (select token, state from service_requests "
+            + "where token in (:tokens) and state in (:sources) "
+            + "order by token for update) locked "
+            + "where r.token = locked.token "
+            + "returning r.token::text as \"token\", locked.state as \"previousState\", r.version as \"version\"",
+            nativeQuery = true)
+    List<StateTransition> transitionStates(@Param("tokens") Collection<UUID> tokens,
+                                           @Param("sources") Collection<String> sources,
+                                           @Param("state") String state,
+                                           @Param("now") LocalDateTime now);
+
+    /**
+     * Moves up to {@code limit} bookings in one of {@code states} whose slot is before {@code before}
+     * from service_requests to service_requests_archive, in one statement, and returns how many
+     * moved per municipality, day and state. Rows locked by a concurrent write are left for the
+     * next run. Their slot places are given back by the delete trigger.
+     */
+    @Transactional
+    @Query(value = "with moved as ("
+            + "delete from service_requests r where r.time_slot < :before and r.token in (select token from service_requests "
+            + "where state in (:states) and time_slot < :before "
+            + "order by time_slot limit :limit for update skip locked) "
+            + "returning r.*), "
+            + "archived as (insert into service_requests_archive (token, municipality, address, time_slot, "
+            + "item_description, state, date, version, last_modified, archived_at) "
+            + "select token, municipality, address, time_slot, item_description, state, date, version, "
+            + "last_modified, :now from moved) "
+            + "select municipality as \"municipality\", cast(time_slot as date) as \"day\", "
+            + "state as \"state\", count(*) as \"count\" "
+            + "from moved group by municipality, cast(time_slot as date), state",
+            nativeQuery = true)
+    List<ArchivedCount> archive(@Param("states") Collection<String> states,
+                                @Param("before") LocalDateTime before,
+                                @Param("limit") int limit,
+                                @Param("now") LocalDateTime now);
+
+    /** An archived booking, see {@link #archive}. */
+    @Query(value = "select token, municipality, address, time_slot, item_description, state, date, "
+            + "version, last_modified from service_requests_archive where token = :token",
+            nativeQuery = true)
+    Optional<ServiceRequest> findArchivedById(@Param("token") UUID token);
+
+    /**
+     * Creates the monthly partitions of service_requests from {@code from} to {@code to} (both
+     * months included) that don't exist yet, moving bookings of those months out of the default
+     * partition. Returns how many it created.
+     */
+    @Transactional
+    @Query(value = "select create_service_requests_partitions(:from, :to)", nativeQuery = true)
+    int createPartitions(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /** Bookings in no monthly partition: slots too far ahead, or older than the partitions kept. */
+    @Query(value = "select count(*) from service_requests_default", nativeQuery = true)
+    long countUnpartitioned();
+
+    /**
+     * Every booking in (timeSlot, token) order, read through a server-side cursor
+     * {@value #EXPORT_FETCH_SIZE} rows at a time. Must be consumed inside a transaction
+     * (PostgreSQL only uses a cursor when auto-commit is off) and closed afterwards.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select r from ServiceRequest r order by r.timeSlot, r.token")
+    Stream<ServiceRequest> streamAllOrderByTimeSlot();
+
+    private static LocalDateTime orEarliest(LocalDateTime from) {
+        return from != null ? from : EARLIEST_SLOT;
+    }
+
+    private static LocalDateTime orLatest(LocalDateTime to) {
+        return to != null ? to : LATEST_SLOT;
+    }
 }
@@ -0,0 +1,23 @@
+package tqs.samuelvinhas.HW1.service;
+
+/**
+ * Outcome of one item of a batch request; {@code index} is the item's position in the request.
+ */
+public record BatchItemResult(int index, String token, Status status, String message) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        CONFLICT,
+        INVALID,
+        NOT_FOUND
+    }
+
+    static BatchItemResult ok(int index, String token, Status status) {
+        return new BatchItemResult(index, token, status, null);
+    }
+
+    static BatchItemResult failed(int index, String token, Status status, String message) {
+        return new BatchItemResult(index, token, status, message);
+    }
+}
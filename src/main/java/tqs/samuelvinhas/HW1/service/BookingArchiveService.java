@@ -0,0 +1,96 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.annotation.Timed;
+
+import tqs.samuelvinhas.HW1.data.ArchivedCount;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+
+/**
+ * Moves completed and cancelled bookings whose time slot is more than {@code zeromonos.archive.age}
+ * in the past to the archive table, every night by default ({@code zeromonos.archive.cron}, "-"
+ * to turn it off). Each batch of {@code batch-size} rows is its own short transaction, so the job
+ * never holds many row locks or a long transaction. Archived bookings are still found by token.
+ * A run that moved anything publishes a single {@link BookingEvent.Type#ARCHIVED} event so live
+ * dashboards reload instead of showing the archived bookings until their next refresh.
+ */
+@Service
+public class BookingArchiveService {
+
+    public static final List<String> ARCHIVED_STATES = List.of(REQUEST_STATE.COMPLETED.name(), REQUEST_STATE.CANCELLED.name());
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingArchiveService.class);
+
+    /** Outcome of one archive run: bookings with a slot before {@code before} were moved. */
+    public record Run(LocalDateTime startedAt, LocalDateTime before, long rows, long millis) {
+    }
+
+    private final ZeroMonosRepository repository;
+    private final BookingStatistics statistics;
+    private final BookingMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final Duration age;
+    private final int batchSize;
+    private volatile Run lastRun;
+
+    public BookingArchiveService(ZeroMonosRepository repository, BookingStatistics statistics, BookingMetrics metrics,
+                                 TransactionTemplate transactionTemplate, ApplicationEventPublisher events,
+                                 @Value("${zeromonos.archive.age:90d}") Duration age,
+                                 @Value("${zeromonos.archive.batch-size:5000}") int batchSize) {
+        this.repository = repository;
+        this.statistics = statistics;
+        this.metrics = metrics;
+        this.transactionTemplate = transactionTemplate;
+        this.events = events;
+        this.age = age;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${zeromonos.archive.cron:0 30 3 * * *}")
+    @Timed(value = "zeromonos.bookings.archive", histogram = true)
+    public Run archive() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime before = startedAt.minus(age);
+        long begin = System.nanoTime();
+        long rows = 0;
+        long moved;
+        do {
+            List<ArchivedCount> counts = transactionTemplate.execute(status ->
+                    repository.archive(ARCHIVED_STATES, before, batchSize, startedAt));
+            moved = 0;
+            for (ArchivedCount count : counts) {
+                statistics.recordArchived(count);
+                moved += count.getCount();
+            }
+            rows += moved;
+        } while (moved == batchSize);
+
+        Run run = new Run(startedAt, before, rows, (System.nanoTime() - begin) / 1_000_000);
+        lastRun = run;
+        metrics.recordArchived(rows);
+        if (rows > 0) {
+            events.publishEvent(BookingEvent.archived());
+        }
+        logger.info("Archived {} completed and cancelled bookings with a slot before {} in {} ms",
+                run.rows(), run.before(), run.millis());
+        return run;
+    }
+
+    /** The last completed run, or null before the first one. */
+    public Run getLastRun() {
+        return lastRun;
+    }
+}
@@ -0,0 +1,462 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.annotation.Timed;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+import tqs.samuelvinhas.HW1.data.SlotClaim;
+import tqs.samuelvinhas.HW1.data.StateTransition;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+import tqs.samuelvinhas.HW1.service.BatchItemResult.Status;
+
+/**
+ * Creates and updates many bookings at once, in one transaction: the places every item needs
+ * are claimed on the slots' counter rows in two set-based statements, locking the rows in slot
+ * order so concurrent batches lock them in the same order, and the writes go out as JDBC batches. Items whose slot is full fail on
+ * their own. If the batch still trips a constraint, a concurrent edit the version check, or a
+ * deadlock with single-booking writes, it is rolled back and retried item by item through
+ * ZeroMonosService, so every item gets an individual result either way.
+ * With write-behind on, items claim their place in the occupancy index before the database, as
+ * every write does then (see ZeroMonosService#holdPlace), and give it back if they don't get in.
+ * Bulk state transitions are a single set-based UPDATE instead.
+ */
+@Service
+public class BookingBatchService {
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingBatchService.class);
+
+    private record SlotKey(String municipality, LocalDateTime timeSlot) {
+        static final Comparator<SlotKey> ORDER =
+                Comparator.comparing(SlotKey::municipality).thenComparing(SlotKey::timeSlot);
+
+        static SlotKey of(ServiceRequest request) {
+            return new SlotKey(request.getMunicipality(), request.getTimeSlot());
+        }
+    }
+
+    /** {@code held} when the booking already took its new place in the occupancy index. */
+    private record Change(ServiceRequest booking, String previousMunicipality,
+                          LocalDateTime previousTimeSlot, REQUEST_STATE previousState, boolean held) {
+    }
+
+    private final ZeroMonosRepository repository;
+    private final ZeroMonosService service;
+    private final SlotOccupancyIndex occupancyIndex;
+    private final BookingStatistics statistics;
+    private final BookingCache bookingCache;
+    private final SlotCapacity capacity;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingMetrics metrics;
+    private final ApplicationEventPublisher events;
+
+    public BookingBatchService(ZeroMonosRepository repository, ZeroMonosService service,
+                               SlotOccupancyIndex occupancyIndex, BookingStatistics statistics,
+                               BookingCache bookingCache, SlotCapacity capacity,
+                               TransactionTemplate transactionTemplate, BookingMetrics metrics,
+                               ApplicationEventPublisher events) {
+        this.repository = repository;
+        this.service = service;
+        this.occupancyIndex = occupancyIndex;
+        this.statistics = statistics;
+        this.bookingCache = bookingCache;
+        this.capacity = capacity;
+        this.transactionTemplate = transactionTemplate;
+        this.metrics = metrics;
+        this.events = events;
+    }
+
+    @Timed(value = ZeroMonosService.OPERATIONS_TIMER, extraTags = {"operation", "batch_create"}, histogram = true)
+    public List<BatchItemResult> createAll(List<ServiceRequest> requests) {
+        checkSize(requests.size());
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        LocalDateTime earliest = LocalDateTime.now().plusHours(1);
+
+        Map<Integer, SlotKey> candidates = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ServiceRequest request = requests.get(i);
+            String problem = missingFields(request.getMunicipality(), request.getAddress(),
+                    request.getTimeSlot(), request.getItemDescription());
+            if (problem == null && request.getTimeSlot().isBefore(earliest)) {
+                problem = ZeroMonosService.TOO_SOON;
+            }
+            if (problem != null) {
+                results[i] = BatchItemResult.failed(i, null, Status.INVALID, problem);
+            } else {
+                candidates.put(i, SlotKey.of(request));
+            }
+        }
+
+        List<Integer> sorted = new ArrayList<>(candidates.keySet());
+        sorted.sort(Comparator.<Integer, SlotKey>comparing(candidates::get, SlotKey.ORDER).thenComparing(Comparator.naturalOrder()));
+        boolean writeBehind = service.isWriteBehind();
+        List<Integer> indexes = new ArrayList<>(sorted.size());
+        int refused = 0;
+        for (int i : sorted) {
+            if (writeBehind && !hold(candidates.get(i))) {
+                results[i] = BatchItemResult.failed(i, null, Status.CONFLICT, ZeroMonosService.SLOT_TAKEN);
+                refused++;
+            } else {
+                indexes.add(i);
+            }
+        }
+        for (int i : indexes) {
+            ServiceRequest booking = requests.get(i);
+            booking.setToken(BookingTokens.next());
+            if (booking.getState() == null) {
+                booking.setState(REQUEST_STATE.RECEIVED);
+            }
+        }
+
+        List<Integer> created;
+        try {
+            created = transactionTemplate.execute(status -> {
+                Map<SlotKey, Integer> wanted = new TreeMap<>(SlotKey.ORDER);
+                indexes.forEach(i -> wanted.merge(candidates.get(i), 1, Integer::sum));
+                Map<SlotKey, Integer> places = reserve(wanted);
+                List<Integer> placed = new ArrayList<>();
+                for (int i : indexes) {
+                    if (take(places, candidates.get(i))) {
+                        placed.add(i);
+                    } else {
+                        results[i] = BatchItemResult.failed(i, null, Status.CONFLICT, ZeroMonosService.SLOT_TAKEN);
+                    }
+                }
+                repository.saveAll(placed.stream().map(requests::get).toList());
+                repository.flush();
+                return placed;
+            });
+        } catch (RuntimeException e) {
+            if (writeBehind) {
+                indexes.forEach(i -> release(candidates.get(i)));
+            }
+            if (!(e instanceof DataIntegrityViolationException || e instanceof ConcurrencyFailureException)) {
+                throw e;
+            }
+            logger.warn("Batch insert of {} bookings raced with other bookings, retrying one by one", indexes.size());
+            for (int i : indexes) {
+                results[i] = createOne(i, requests.get(i));
+            }
+            metrics.recordConflicts("batch_create", BookingMetrics.SLOT_TAKEN, refused);
+            return Arrays.asList(results);
+        }
+        // Conflicts found on the one-by-one fallback are counted by ZeroMonosService
+        metrics.recordConflicts("batch_create", BookingMetrics.SLOT_TAKEN, refused + indexes.size() - created.size());
+
+        if (writeBehind) {
+            Set<Integer> placed = new HashSet<>(created);
+            indexes.stream().filter(i -> !placed.contains(i)).forEach(i -> release(candidates.get(i)));
+        }
+        for (int i : created) {
+            ServiceRequest booking = requests.get(i);
+            if (!writeBehind) {
+                occupancyIndex.occupy(booking.getMunicipality(), booking.getTimeSlot());
+            }
+            statistics.recordCreated(booking);
+            events.publishEvent(BookingEvent.created(booking));
+            results[i] = BatchItemResult.ok(i, booking.getToken(), Status.CREATED);
+        }
+        logger.info("Batch created {} of {} bookings", created.size(), requests.size());
+        return Arrays.asList(results);
+    }
+
+    @Timed(value = ZeroMonosService.OPERATIONS_TIMER, extraTags = {"operation", "batch_update"}, histogram = true)
+    public List<BatchItemResult> updateAll(List<BookingPatch> requested) {
+        checkSize(requested.size());
+        // Matched against the loaded bookings, checked for duplicates and reported by canonical token
+        List<BookingPatch> patches = requested.stream().map(BookingPatch::withCanonicalToken).toList();
+        BatchItemResult[] results = new BatchItemResult[patches.size()];
+
+        // Places taken in the occupancy index by bookings of this batch, given back on rollback
+        List<SlotKey> held = new ArrayList<>();
+        List<Change> changes;
+        try {
+            changes = transactionTemplate.execute(status -> applyPatches(patches, results, held));
+        } catch (RuntimeException e) {
+            held.forEach(this::release);
+            if (!(e instanceof DataIntegrityViolationException || e instanceof ConcurrencyFailureException)) {
+                throw e;
+            }
+            logger.warn("Batch update of {} bookings raced with other bookings, retrying one by one", patches.size());
+            for (int i = 0; i < patches.size(); i++) {
+                results[i] = updateOne(i, patches.get(i));
+            }
+            return Arrays.asList(results);
+        }
+
+        for (Change change : changes) {
+            ServiceRequest booking = change.booking();
+            bookingCache.invalidate(booking.getToken());
+            occupancyIndex.release(change.previousMunicipality(), change.previousTimeSlot());
+            if (!change.held()) {
+                occupancyIndex.occupy(booking.getMunicipality(), booking.getTimeSlot());
+            }
+            statistics.recordUpdated(change.previousMunicipality(), change.previousTimeSlot(), change.previousState(), booking);
+            events.publishEvent(BookingEvent.updated(booking));
+        }
+        logger.info("Batch updated {} of {} bookings", changes.size(), patches.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Moves the given bookings to {@code state} with a single UPDATE that only matches rows
+     * whose current state allows the transition (see {@link REQUEST_STATE#canMoveTo}).
+     */
+    @Timed(value = ZeroMonosService.OPERATIONS_TIMER, extraTags = {"operation", "batch_state"}, histogram = true)
+    public StateTransitionResult transitionAll(Collection<String> tokens, REQUEST_STATE state) {
+        if (state == null) {
+            throw new IllegalArgumentException("Target state is required.");
+        }
+        checkSize(tokens.size());
+        Set<REQUEST_STATE> sources = REQUEST_STATE.sourcesOf(state);
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("No booking can move to " + state + ".");
+        }
+
+        // Tokens in the canonical lower-case form the database returns, so that a token given in
+        // upper case is matched against its transition; anything that isn't a UUID can't be a
+        // booking and is simply reported as skipped
+        Set<String> requested = new LinkedHashSet<>();
+        for (String token : tokens) {
+            if (token != null) {
+                requested.add(BookingTokens.canonical(token));
+            }
+        }
+        if (requested.isEmpty()) {
+            return new StateTransitionResult(state, List.of(), List.of());
+        }
+
+        List<UUID> ids = requested.stream().filter(BookingTokens::isValid).map(UUID::fromString).toList();
+        List<StateTransition> transitions = ids.isEmpty() ? List.of() : repository.transitionStates(ids,
+                sources.stream().map(Enum::name).toList(), state.name(), LocalDateTime.now());
+
+        List<String> moved = new ArrayList<>(transitions.size());
+        for (StateTransition transition : transitions) {
+            bookingCache.invalidate(transition.getToken());
+            statistics.recordStateChanged(transition.getPreviousState(), state);
+            events.publishEvent(BookingEvent.stateChanged(transition.getToken(), state, transition.getVersion()));
+            moved.add(transition.getToken());
+            requested.remove(transition.getToken());
+        }
+        logger.info("Moved {} of {} bookings to {}", moved.size(), moved.size() + requested.size(), state);
+        return new StateTransitionResult(state, moved, new ArrayList<>(requested));
+    }
+
+    /**
+     * Validates the patches against the bookings loaded in the current transaction and applies
+     * the valid ones to those managed entities, so they're written as batched UPDATEs on flush.
+     * With write-behind on, bookings moving to another slot first take a place there in the
+     * occupancy index and add it to {@code held}.
+     */
+    private List<Change> applyPatches(List<BookingPatch> patches, BatchItemResult[] results, List<SlotKey> held) {
+        Set<String> tokens = new HashSet<>();
+        patches.stream().map(BookingPatch::token).filter(BookingTokens::isValid).forEach(tokens::add);
+        Map<String, ServiceRequest> existing = repository.findAllById(tokens).stream()
+                .collect(Collectors.toMap(ServiceRequest::getToken, Function.identity()));
+        LocalDateTime earliest = LocalDateTime.now().plusHours(1);
+
+        Map<Integer, SlotKey> targets = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < patches.size(); i++) {
+            BookingPatch patch = patches.get(i);
+            ServiceRequest booking = existing.get(patch.token());
+            if (booking == null) {
+                results[i] = BatchItemResult.failed(i, patch.token(), Status.NOT_FOUND,
+                        "Service request with token " + patch.token() + " not found.");
+                continue;
+            }
+            if (!seen.add(patch.token())) {
+                results[i] = BatchItemResult.failed(i, patch.token(), Status.INVALID, "Booking appears more than once in the batch.");
+                continue;
+            }
+            SlotKey target = new SlotKey(
+                    patch.municipality() != null ? patch.municipality() : booking.getMunicipality(),
+                    patch.timeSlot() != null ? patch.timeSlot() : booking.getTimeSlot());
+            if (!target.timeSlot().isEqual(booking.getTimeSlot()) && target.timeSlot().isBefore(earliest)) {
+                results[i] = BatchItemResult.failed(i, patch.token(), Status.INVALID, ZeroMonosService.TOO_SOON);
+                continue;
+            }
+            targets.put(i, target);
+        }
+
+        // Bookings moving to another slot claim a place there; the database gives back their old
+        // place when the UPDATE is flushed
+        List<Integer> order = new ArrayList<>(targets.keySet());
+        order.sort(Comparator.<Integer, SlotKey>comparing(targets::get, SlotKey.ORDER).thenComparing(Comparator.naturalOrder()));
+        boolean writeBehind = service.isWriteBehind();
+        Map<SlotKey, Integer> wanted = new TreeMap<>(SlotKey.ORDER);
+        int conflicts = 0;
+        for (int i : order) {
+            SlotKey target = targets.get(i);
+            if (target.equals(SlotKey.of(existing.get(patches.get(i).token())))) {
+                continue;
+            }
+            if (writeBehind && !hold(target)) {
+                results[i] = BatchItemResult.failed(i, patches.get(i).token(), Status.CONFLICT, ZeroMonosService.SLOT_TAKEN);
+                conflicts++;
+                continue;
+            }
+            if (writeBehind) {
+                held.add(target);
+            }
+            wanted.merge(target, 1, Integer::sum);
+        }
+        Map<SlotKey, Integer> places = reserve(wanted);
+        List<Change> changes = new ArrayList<>();
+        for (int i : order) {
+            if (results[i] != null) {
+                continue;
+            }
+            SlotKey target = targets.get(i);
+            BookingPatch patch = patches.get(i);
+            ServiceRequest booking = existing.get(patch.token());
+            boolean moving = !target.equals(SlotKey.of(booking));
+            if (moving && !take(places, target)) {
+                if (writeBehind) {
+                    held.remove(target);
+                    release(target);
+                }
+                results[i] = BatchItemResult.failed(i, patch.token(), Status.CONFLICT, ZeroMonosService.SLOT_TAKEN);
+                conflicts++;
+                continue;
+            }
+            changes.add(new Change(booking, booking.getMunicipality(), booking.getTimeSlot(), booking.getState(),
+                    moving && writeBehind));
+            booking.setMunicipality(target.municipality());
+            booking.setTimeSlot(target.timeSlot());
+            if (patch.address() != null) {
+                booking.setAddress(patch.address());
+            }
+            if (patch.state() != null) {
+                booking.setState(patch.state());
+            }
+            results[i] = BatchItemResult.ok(i, patch.token(), Status.UPDATED);
+        }
+        repository.flush();
+        metrics.recordConflicts("batch_update", BookingMetrics.SLOT_TAKEN, conflicts);
+        return changes;
+    }
+
+    private BatchItemResult createOne(int index, ServiceRequest request) {
+        ServiceRequest copy = new ServiceRequest(null, request.getMunicipality(), request.getAddress(),
+                request.getTimeSlot(), request.getItemDescription());
+        copy.setState(request.getState());
+        try {
+            return BatchItemResult.ok(index, service.requestService(copy), Status.CREATED);
+        } catch (IllegalStateException e) {
+            return BatchItemResult.failed(index, null, statusOf(e), e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            return BatchItemResult.failed(index, null, Status.INVALID, "Booking rejected by the database.");
+        }
+    }
+
+    private BatchItemResult updateOne(int index, BookingPatch patch) {
+        try {
+            ServiceRequest current = service.findBooking(patch.token()).orElseThrow(() ->
+                    new NoSuchElementException("Service request with token " + patch.token() + " not found."));
+            ServiceRequest updated = new ServiceRequest(patch.token(),
+                    patch.municipality() != null ? patch.municipality() : current.getMunicipality(),
+                    patch.address() != null ? patch.address() : current.getAddress(),
+                    patch.timeSlot() != null ? patch.timeSlot() : current.getTimeSlot(),
+                    current.getItemDescription());
+            updated.setState(patch.state() != null ? patch.state() : current.getState());
+            return BatchItemResult.ok(index, service.updateServiceRequest(patch.token(), updated), Status.UPDATED);
+        } catch (NoSuchElementException e) {
+            return BatchItemResult.failed(index, patch.token(), Status.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            return BatchItemResult.failed(index, patch.token(), statusOf(e), e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return BatchItemResult.failed(index, patch.token(), Status.CONFLICT, ZeroMonosService.MODIFIED);
+        } catch (DataIntegrityViolationException e) {
+            return BatchItemResult.failed(index, patch.token(), Status.INVALID, "Booking rejected by the database.");
+        }
+    }
+
+    /**
+     * Claims {@code wanted} places per slot within the current transaction, in two statements
+     * whatever the batch size, and returns how many each slot had left to give (missing when none).
+     */
+    private Map<SlotKey, Integer> reserve(Map<SlotKey, Integer> wanted) {
+        Map<SlotKey, Integer> places = new HashMap<>();
+        if (wanted.isEmpty()) {
+            return places;
+        }
+        List<SlotKey> slots = new ArrayList<>(wanted.keySet());
+        String[] municipalities = slots.stream().map(SlotKey::municipality).toArray(String[]::new);
+        LocalDateTime[] timeSlots = slots.stream().map(SlotKey::timeSlot).toArray(LocalDateTime[]::new);
+        repository.createSlots(municipalities, timeSlots);
+        List<SlotClaim> claims = repository.claimSlots(municipalities, timeSlots,
+                slots.stream().map(wanted::get).toArray(Integer[]::new),
+                slots.stream().map(slot -> capacity.of(slot.municipality())).toArray(Integer[]::new));
+        for (SlotClaim claim : claims) {
+            places.put(slots.get(claim.getSlot() - 1), claim.getClaimed());
+        }
+        return places;
+    }
+
+    /** Takes a place in the slot in the occupancy index; false when it's full there. */
+    private boolean hold(SlotKey slot) {
+        return occupancyIndex.tryOccupy(slot.municipality(), slot.timeSlot(), capacity.of(slot.municipality()));
+    }
+
+    private void release(SlotKey slot) {
+        occupancyIndex.release(slot.municipality(), slot.timeSlot());
+    }
+
+    /** Hands out one of the places {@link #reserve} got for the slot; false when there are none left. */
+    private static boolean take(Map<SlotKey, Integer> places, SlotKey slot) {
+        return places.merge(slot, -1, Integer::sum) >= 0;
+    }
+
+    private static Status statusOf(IllegalStateException e) {
+        return ZeroMonosService.SLOT_TAKEN.equals(e.getMessage()) ? Status.CONFLICT : Status.INVALID;
+    }
+
+    private static String missingFields(String municipality, String address, LocalDateTime timeSlot, String itemDescription) {
+        if (municipality == null || municipality.isBlank()) {
+            return "Municipality is required.";
+        }
+        if (address == null || address.isBlank()) {
+            return "Address is required.";
+        }
+        if (timeSlot == null) {
+            return "Time slot is required.";
+        }
+        if (itemDescription == null || itemDescription.isBlank()) {
+            return "Item description is required.";
+        }
+        return null;
+    }
+
+    private static void checkSize(int size) {
+        if (size > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch holds at most " + MAX_BATCH_SIZE + " items, got " + size + ".");
+        }
+    }
+}
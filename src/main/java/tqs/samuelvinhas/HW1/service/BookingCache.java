@@ -0,0 +1,143 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+
+/**
+ * Bounded read-through cache of bookings by token. Entries expire {@code ttl} after
+ * being loaded and the least recently used entry is evicted once {@code maxSize} is
+ * reached. Writers must call {@link #invalidate} so readers never see a stale booking
+ * for longer than it takes the write to commit.
+ */
+@Component
+public class BookingCache {
+
+    public record Stats(int size, int maxSize, long hits, long misses, long evictions, long expirations) {
+    }
+
+    private record Entry(ServiceRequest request, long expiresAt) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Entry> entries;
+
+    // Bumped on every invalidation; a load that overlapped one is not cached
+    private long invalidations;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    @Autowired
+    public BookingCache(@Value("${zeromonos.booking-cache.max-size:10000}") int maxSize,
+                        @Value("${zeromonos.booking-cache.ttl:PT30S}") Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    public BookingCache(int maxSize, Duration ttl, LongSupplier ticker) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > BookingCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached booking for {@code token}, or loads it with {@code loader} and
+     * caches it when found. Absent bookings are not cached.
+     */
+    public Optional<ServiceRequest> get(String token, Function<String, Optional<ServiceRequest>> loader) {
+        long invalidationsBeforeLoad;
+        lock.lock();
+        try {
+            Entry entry = entries.get(token);
+            if (entry != null) {
+                if (ticker.getAsLong() - entry.expiresAt() < 0) {
+                    hits.increment();
+                    return Optional.of(entry.request());
+                }
+                entries.remove(token);
+                expirations.increment();
+            }
+            misses.increment();
+            invalidationsBeforeLoad = invalidations;
+        } finally {
+            lock.unlock();
+        }
+
+        Optional<ServiceRequest> loaded = loader.apply(token);
+        loaded.ifPresent(request -> {
+            lock.lock();
+            try {
+                if (invalidations == invalidationsBeforeLoad) {
+                    entries.put(token, new Entry(request, ticker.getAsLong() + ttlNanos));
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+        return loaded;
+    }
+
+    public void put(ServiceRequest request) {
+        lock.lock();
+        try {
+            entries.put(request.getToken(), new Entry(request, ticker.getAsLong() + ttlNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(String token) {
+        lock.lock();
+        try {
+            invalidations++;
+            entries.remove(token);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            invalidations++;
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(entries.size(), maxSize, hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import tqs.samuelvinhas.HW1.data.BookingSummary;
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+
+/**
+ * Keyset position in the (timeSlot, token) ordering of bookings.
+ * Encoded as an opaque URL-safe string so clients just hand it back.
+ */
+public record BookingCursor(LocalDateTime timeSlot, String token) {
+
+    private static final String SEPARATOR = "|";
+
+    public static BookingCursor after(ServiceRequest request) {
+        return new BookingCursor(request.getTimeSlot(), request.getToken());
+    }
+
+    public static BookingCursor after(BookingSummary summary) {
+        return new BookingCursor(summary.timeSlot(), summary.token());
+    }
+
+    public String encode() {
+        String raw = timeSlot + SEPARATOR + token;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0 || !BookingTokens.isValid(raw.substring(separator + 1))) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            return new BookingCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package tqs.samuelvinhas.HW1.service;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+/**
+ * Published after a booking change is committed. {@code booking} is the booking as saved
+ * for CREATED and UPDATED, and null for DELETED and STATE_CHANGED, where the token (and
+ * new state and version) is all a listener needs. ARCHIVED carries nothing: an archive run
+ * moves bookings in bulk, so listeners should reload rather than apply it booking by booking.
+ */
+public record BookingEvent(Type type, String token, REQUEST_STATE state, Long version, ServiceRequest booking) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STATE_CHANGED,
+        ARCHIVED
+    }
+
+    public static BookingEvent created(ServiceRequest booking) {
+        return new BookingEvent(Type.CREATED, booking.getToken(), booking.getState(), booking.getVersion(), booking);
+    }
+
+    public static BookingEvent updated(ServiceRequest booking) {
+        return new BookingEvent(Type.UPDATED, booking.getToken(), booking.getState(), booking.getVersion(), booking);
+    }
+
+    public static BookingEvent deleted(String token) {
+        return new BookingEvent(Type.DELETED, token, null, null, null);
+    }
+
+    public static BookingEvent stateChanged(String token, REQUEST_STATE state, long version) {
+        return new BookingEvent(Type.STATE_CHANGED, token, state, version, null);
+    }
+
+    public static BookingEvent archived() {
+        return new BookingEvent(Type.ARCHIVED, null, null, null, null);
+    }
+}
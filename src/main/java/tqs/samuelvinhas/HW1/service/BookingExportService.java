@@ -0,0 +1,114 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.persistence.EntityManager;
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+
+/**
+ * Writes the whole bookings table to an output stream, one row at a time, so memory
+ * use doesn't grow with the table: rows come from a database cursor and each one is
+ * detached from the persistence context once written.
+ */
+@Service
+public class BookingExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String mediaType() { return mediaType; }
+
+        public String extension() { return extension; }
+    }
+
+    static final String CSV_HEADER = "token,municipality,address,timeSlot,itemDescription,state,date";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ZeroMonosRepository repository;
+    private final EntityManager entityManager;
+    private final ObjectWriter jsonWriter;
+
+    public BookingExportService(ZeroMonosRepository repository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.jsonWriter = objectMapper.writerFor(ServiceRequest.class);
+    }
+
+    /**
+     * Streams every booking to {@code out} in the given format and returns the number
+     * of rows written. {@code out} is flushed but not closed.
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, OutputStream out) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        long rows = 0;
+        if (format == Format.CSV) {
+            writeLine(buffered, CSV_HEADER);
+        }
+        try (Stream<ServiceRequest> bookings = repository.streamAllOrderByTimeSlot()) {
+            Iterator<ServiceRequest> iterator = bookings.iterator();
+            while (iterator.hasNext()) {
+                ServiceRequest booking = iterator.next();
+                if (format == Format.CSV) {
+                    writeLine(buffered, toCsv(booking));
+                } else {
+                    buffered.write(jsonWriter.writeValueAsBytes(booking));
+                    buffered.write('\n');
+                }
+                entityManager.detach(booking);
+                rows++;
+            }
+        }
+        buffered.flush();
+        return rows;
+    }
+
+    static String toCsv(ServiceRequest booking) {
+        return String.join(",",
+                csvField(booking.getToken()),
+                csvField(booking.getMunicipality()),
+                csvField(booking.getAddress()),
+                csvField(booking.getTimeSlot()),
+                csvField(booking.getItemDescription()),
+                csvField(booking.getState()),
+                csvField(booking.getDate()));
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static void writeLine(OutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,16 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.time.LocalDateTime;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+/**
+ * Optional server-side filters for booking listings; {@code null} fields are not applied.
+ * The time range is half-open: {@code from <= timeSlot < to}.
+ */
+public record BookingFilter(REQUEST_STATE state, String municipality, LocalDateTime from, LocalDateTime to) {
+
+    public static BookingFilter none() {
+        return new BookingFilter(null, null, null, null);
+    }
+}
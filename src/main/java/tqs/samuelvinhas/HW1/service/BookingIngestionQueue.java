@@ -0,0 +1,348 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+
+/**
+ * Write-behind path for new bookings, off unless {@code zeromonos.write-behind.enabled} is set.
+ * A booking is accepted once its place is claimed in the {@link SlotOccupancyIndex} and it is
+ * on disk in the {@link BookingJournal}; a single writer thread then saves queued bookings in
+ * batches, one transaction per batch that also claims their places in the database, so a burst
+ * of bookings takes a single connection instead of one per request.
+ * <p>
+ * At most {@code capacity} bookings wait at a time; beyond that {@link #submit} refuses new ones
+ * so callers are told to retry instead of the backlog growing without bound. If the database is
+ * unreachable the writer keeps retrying the batch. Bookings still in the journal at startup are
+ * queued again before the web server accepts requests, and on shutdown the queue is drained
+ * after it stops.
+ * <p>
+ * The in-memory index only sees every booking on a single instance. While this queue is on,
+ * reschedules and batch imports also take their places in the index before the database, so
+ * none of them can take the place a queued booking was promised; the writer only drops a
+ * booking (publishing it as deleted) if another instance wrote to the same slots.
+ */
+@Component
+public class BookingIngestionQueue implements SmartLifecycle {
+
+    public static final String QUEUE_FULL = "Too many bookings are waiting to be saved, try again shortly.";
+    public static final String JOURNAL_UNAVAILABLE = "Bookings can't be accepted right now, try again shortly.";
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingIngestionQueue.class);
+
+    public record Stats(boolean enabled, int queued, int capacity, long written, long rejected, long dropped,
+                        long journalBytes) {
+    }
+
+    private final ZeroMonosRepository repository;
+    private final SlotOccupancyIndex occupancyIndex;
+    private final BookingStatistics statistics;
+    private final SlotCapacity capacity;
+    private final BookingCache bookingCache;
+    private final BookingMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final WriteBehindProperties properties;
+
+    private final BlockingQueue<ServiceRequest> queue = new LinkedBlockingQueue<>();
+    // Counts bookings from submit until written, so it includes the batch being written
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Map<String, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private BookingJournal journal;
+    private Thread writer;
+    private volatile boolean running;
+
+    public BookingIngestionQueue(ZeroMonosRepository repository, SlotOccupancyIndex occupancyIndex,
+                                 BookingStatistics statistics, SlotCapacity capacity, BookingCache bookingCache,
+                                 BookingMetrics metrics, TransactionTemplate transactionTemplate,
+                                 ApplicationEventPublisher events, WriteBehindProperties properties) {
+        this.repository = repository;
+        this.occupancyIndex = occupancyIndex;
+        this.statistics = statistics;
+        this.capacity = capacity;
+        this.bookingCache = bookingCache;
+        this.metrics = metrics;
+        this.transactionTemplate = transactionTemplate;
+        this.events = events;
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Queues a booking whose place is already claimed in the occupancy index. Returns once the
+     * booking is in the journal, or throws RejectedExecutionException when the queue is full or
+     * the journal can't be written.
+     */
+    public void submit(ServiceRequest booking) {
+        if (!running) {
+            throw new RejectedExecutionException(JOURNAL_UNAVAILABLE);
+        }
+        if (queued.incrementAndGet() > properties.capacity()) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException(QUEUE_FULL);
+        }
+        pending.put(booking.getToken(), new CompletableFuture<>());
+        try {
+            journal.append(booking);
+        } catch (IOException e) {
+            logger.error("Could not append booking {} to the journal", booking.getToken(), e);
+            pending.remove(booking.getToken());
+            queued.decrementAndGet();
+            throw new RejectedExecutionException(JOURNAL_UNAVAILABLE, e);
+        }
+        queue.add(booking);
+    }
+
+    /**
+     * Waits, up to {@code read-wait}, for a booking that is still queued to be written, so reads
+     * and changes that follow a booking find it in the database. Returns at once for any other token.
+     */
+    public void awaitWritten(String token) {
+        CompletableFuture<Void> done = pending.get(token);
+        if (done == null) {
+            return;
+        }
+        try {
+            done.get(properties.readWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Booking {} is still waiting to be written after {}", token, properties.readWait());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public Stats stats() {
+        long journalBytes = 0;
+        if (journal != null) {
+            try {
+                journalBytes = journal.size();
+            } catch (IOException e) {
+                journalBytes = -1;
+            }
+        }
+        return new Stats(isEnabled(), queued.get(), properties.capacity(), written.sum(), rejected.sum(),
+                dropped.sum(), journalBytes);
+    }
+
+    /** Opens the journal, queues whatever a previous run left in it and starts the writer. */
+    @Override
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            journal = new BookingJournal(properties.journal());
+            recover(journal.recover());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the booking journal " + properties.journal(), e);
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("booking-writer").start(this::run);
+        logger.info("Write-behind booking queue started (capacity {}, batches of {}, journal {})",
+                properties.capacity(), properties.batchSize(), properties.journal().toAbsolutePath());
+    }
+
+    /** Stops accepting bookings and waits, up to {@code shutdown-timeout}, for the queue to drain. */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(properties.shutdownTimeout());
+            if (writer.isAlive()) {
+                logger.warn("{} bookings were not written before shutdown; they stay in the journal for the next start",
+                        queued.get());
+                writer.interrupt();
+                writer.join(properties.shutdownTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Could not close the booking journal", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Before the web server, which starts and stops at a later phase, so the queue is only
+    // closed once no more bookings can come in
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Writes a batch, retrying while the database fails. A batch that breaks a constraint is
+     * written again booking by booking, and a booking that still breaks it is dropped.
+     */
+    void write(List<ServiceRequest> batch) throws InterruptedException {
+        while (true) {
+            try {
+                List<ServiceRequest> full = save(batch);
+                for (ServiceRequest booking : full) {
+                    logger.warn("Dropping queued booking {}: its slot was filled before it could be written", booking.getToken());
+                }
+                metrics.recordConflicts("write_behind", BookingMetrics.SLOT_TAKEN, full.size());
+                completed(batch, full);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (batch.size() == 1) {
+                    logger.error("Dropping booking {} that the database rejects", batch.get(0).getToken(), e);
+                    completed(batch, batch);
+                    return;
+                }
+                for (ServiceRequest booking : batch) {
+                    write(List.of(booking));
+                }
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Could not write {} queued bookings, retrying in {}", batch.size(), properties.retryDelay(), e);
+                Thread.sleep(properties.retryDelay().toMillis());
+            }
+        }
+    }
+
+    private void run() {
+        List<ServiceRequest> batch = new ArrayList<>(properties.batchSize());
+        try {
+            while (running || !queue.isEmpty()) {
+                ServiceRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Whatever queued up while the previous batch was being written goes in this one
+                batch.add(first);
+                queue.drainTo(batch, properties.batchSize() - 1);
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Saves the batch in one transaction and returns the bookings whose slot turned out full. */
+    private List<ServiceRequest> save(List<ServiceRequest> batch) {
+        return transactionTemplate.execute(status -> {
+            List<ServiceRequest> rows = new ArrayList<>(batch.size());
+            List<ServiceRequest> full = new ArrayList<>();
+            // Claim places in slot order, like batch imports, so concurrent writers lock the rows in the same order
+            List<ServiceRequest> bySlot = batch.stream()
+                    .sorted(Comparator.comparing(ServiceRequest::getMunicipality, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                            .thenComparing(ServiceRequest::getTimeSlot))
+                    .toList();
+            for (ServiceRequest booking : bySlot) {
+                String municipality = booking.getMunicipality();
+                if (repository.reserveSlot(municipality, booking.getTimeSlot(), capacity.of(municipality)).isPresent()) {
+                    rows.add(rowOf(booking));
+                } else {
+                    full.add(booking);
+                }
+            }
+            repository.saveAll(rows);
+            return full;
+        });
+    }
+
+    private void completed(List<ServiceRequest> batch, List<ServiceRequest> droppedBookings) {
+        for (ServiceRequest booking : droppedBookings) {
+            occupancyIndex.release(booking.getMunicipality(), booking.getTimeSlot());
+            statistics.recordDeleted(booking);
+            bookingCache.invalidate(booking.getToken());
+            events.publishEvent(BookingEvent.deleted(booking.getToken()));
+        }
+        dropped.add(droppedBookings.size());
+        written.add(batch.size() - droppedBookings.size());
+        try {
+            journal.written(batch.size());
+        } catch (IOException e) {
+            // The bookings are saved; at worst they are read back and skipped on the next start
+            logger.warn("Could not truncate the booking journal", e);
+        }
+        queued.addAndGet(-batch.size());
+        for (ServiceRequest booking : batch) {
+            CompletableFuture<Void> done = pending.remove(booking.getToken());
+            if (done != null) {
+                done.complete(null);
+            }
+        }
+    }
+
+    /** Queues journaled bookings that didn't make it to the database, as if just submitted. */
+    private void recover(List<ServiceRequest> journaled) throws IOException {
+        if (journaled.isEmpty()) {
+            return;
+        }
+        Set<String> saved = new HashSet<>();
+        repository.findAllById(journaled.stream().map(ServiceRequest::getToken).toList())
+                .forEach(booking -> saved.add(booking.getToken()));
+        int alreadySaved = 0;
+        for (ServiceRequest booking : journaled) {
+            if (saved.contains(booking.getToken())) {
+                alreadySaved++;
+                continue;
+            }
+            occupancyIndex.occupy(booking.getMunicipality(), booking.getTimeSlot());
+            statistics.recordCreated(booking);
+            pending.put(booking.getToken(), new CompletableFuture<>());
+            queued.incrementAndGet();
+            queue.add(booking);
+        }
+        journal.written(alreadySaved);
+        logger.info("Recovered {} unwritten bookings from the journal ({} were already saved)",
+                journaled.size() - alreadySaved, alreadySaved);
+    }
+
+    // A fresh entity per attempt: a row from a rolled-back attempt would be merged instead of inserted
+    private static ServiceRequest rowOf(ServiceRequest booking) {
+        ServiceRequest row = new ServiceRequest(booking.getToken(), booking.getMunicipality(), booking.getAddress(),
+                booking.getTimeSlot(), booking.getItemDescription());
+        row.setState(booking.getState());
+        row.setDate(booking.getDate());
+        return row;
+    }
+}
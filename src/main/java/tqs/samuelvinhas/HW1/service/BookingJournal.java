@@ -0,0 +1,173 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+/**
+ * Local write-ahead log of bookings accepted but not yet in the database, one JSON line per
+ * booking. {@link #append} returns once the line is on disk; callers report bookings they
+ * have written with {@link #written}, and the file is emptied whenever that leaves none
+ * outstanding. After a crash, {@link #recover} returns every booking still in the file; a
+ * torn last line was never acknowledged and is cut off.
+ */
+public class BookingJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingJournal.class);
+
+    // state is null in lines written before it was recorded; those bookings keep the default
+    private record Entry(String token, String municipality, String address, LocalDateTime timeSlot,
+                         String itemDescription, LocalDateTime date, REQUEST_STATE state) {
+
+        static Entry of(ServiceRequest booking) {
+            return new Entry(booking.getToken(), booking.getMunicipality(), booking.getAddress(),
+                    booking.getTimeSlot(), booking.getItemDescription(), booking.getDate(), booking.getState());
+        }
+
+        ServiceRequest toBooking() {
+            ServiceRequest booking = new ServiceRequest(token, municipality, address, timeSlot, itemDescription);
+            booking.setDate(date);
+            if (state != null) {
+                booking.setState(state);
+            }
+            return booking;
+        }
+    }
+
+    // Independent of the web layer's Jackson settings, so the file format doesn't change with them
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    // Guarded by this
+    private long appended;
+    private long outstanding;
+
+    // Guarded by syncLock
+    private long synced;
+
+    public BookingJournal(Path file) throws IOException {
+        this.file = file;
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+    }
+
+    /**
+     * Bookings left in the journal by a previous run, in the order they were appended. They
+     * all count as outstanding until reported {@link #written}.
+     */
+    public synchronized List<ServiceRequest> recover() throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        List<ServiceRequest> bookings = new ArrayList<>();
+        int start = 0;
+        for (int end = 0; end < content.length; end++) {
+            if (content[end] != '\n') {
+                continue;
+            }
+            String line = new String(content, start, end - start, StandardCharsets.UTF_8);
+            try {
+                bookings.add(MAPPER.readValue(line, Entry.class).toBooking());
+            } catch (JsonProcessingException e) {
+                logger.error("Skipping unreadable booking journal line: {}", line, e);
+            }
+            start = end + 1;
+        }
+        if (start < content.length) {
+            logger.warn("Discarding {} bytes of an incomplete booking journal line", content.length - start);
+            channel.truncate(start);
+            channel.position(start);
+            channel.force(false);
+        }
+        outstanding = bookings.size();
+        return bookings;
+    }
+
+    /** Appends the booking and returns once it is durable. */
+    public void append(ServiceRequest booking) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((MAPPER.writeValueAsString(Entry.of(booking)) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        long sequence;
+        synchronized (this) {
+            long start = channel.position();
+            try {
+                while (line.hasRemaining()) {
+                    channel.write(line);
+                }
+            } catch (IOException e) {
+                // Don't leave half a line for the next one to be glued onto
+                channel.truncate(start);
+                channel.position(start);
+                throw e;
+            }
+            outstanding++;
+            sequence = ++appended;
+        }
+        sync(sequence);
+    }
+
+    /** Reports that {@code count} bookings from the journal are now in the database. */
+    public synchronized void written(int count) throws IOException {
+        outstanding = Math.max(outstanding - count, 0);
+        if (outstanding == 0 && channel.size() > 0) {
+            channel.truncate(0);
+            channel.position(0);
+        }
+    }
+
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Group commit: one force() covers every line appended before it started, so threads that
+    // append while a sync is in progress share the next one instead of each waiting for their own
+    private void sync(long sequence) throws IOException {
+        syncLock.lock();
+        try {
+            if (synced >= sequence) {
+                return;
+            }
+            long target;
+            synchronized (this) {
+                target = appended;
+            }
+            channel.force(false);
+            synced = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Booking counters that timers alone can't tell apart: a conflicting booking is a
+ * normal, fast response, so the conflict rate is counted separately per operation
+ * and reason. Latencies come from the {@code @Timed} service methods.
+ */
+@Component
+public class BookingMetrics {
+
+    public static final String CONFLICTS = "zeromonos.bookings.conflicts";
+    public static final String SLOT_TAKEN = "slot_taken";
+    public static final String MODIFIED = "modified";
+    public static final String ARCHIVED = "zeromonos.bookings.archived";
+
+    private final MeterRegistry registry;
+
+    public BookingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordConflict(String operation, String reason) {
+        recordConflicts(operation, reason, 1);
+    }
+
+    public void recordConflicts(String operation, String reason, long count) {
+        if (count > 0) {
+            registry.counter(CONFLICTS, "operation", operation, "reason", reason).increment(count);
+        }
+    }
+
+    public void recordArchived(long count) {
+        registry.counter(ARCHIVED).increment(count);
+    }
+}
@@ -0,0 +1,19 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of bookings (entities or summaries); {@code nextCursor} is {@code null} on the last page.
+ */
+public record BookingPage<T>(List<T> items, String nextCursor) {
+
+    /** Page of the first {@code pageSize} rows, with a cursor when the query found one more row. */
+    static <T> BookingPage<T> of(List<T> rows, int pageSize, Function<T, BookingCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new BookingPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new BookingPage<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+}
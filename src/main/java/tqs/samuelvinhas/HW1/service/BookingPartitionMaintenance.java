@@ -0,0 +1,78 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+
+/**
+ * Keeps the monthly partitions of service_requests created {@code zeromonos.partitions.months-ahead}
+ * months in advance, at startup and then daily by default ({@code zeromonos.partitions.cron}, "-"
+ * to turn it off), so new bookings land in their month's partition rather than the default one.
+ * Creating a partition that already exists is a no-op and concurrent runs are serialized in the
+ * database, so several instances can run it. A failed run at startup is logged rather than
+ * stopping the application; the next scheduled run tries again.
+ */
+@Service
+public class BookingPartitionMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingPartitionMaintenance.class);
+
+    /** Outcome of one run: partitions up to the month of {@code through} exist. */
+    public record Run(LocalDateTime startedAt, LocalDate through, int created, long unpartitioned) {
+    }
+
+    private final ZeroMonosRepository repository;
+    private final int monthsAhead;
+    private volatile Run lastRun;
+
+    public BookingPartitionMaintenance(ZeroMonosRepository repository,
+                                       @Value("${zeromonos.partitions.months-ahead:12}") int monthsAhead) {
+        if (monthsAhead < 1) {
+            throw new IllegalArgumentException("zeromonos.partitions.months-ahead must be at least 1");
+        }
+        this.repository = repository;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @PostConstruct
+    public void createAtStartup() {
+        try {
+            createPartitions();
+        } catch (RuntimeException e) {
+            logger.error("Could not create the monthly booking partitions at startup, retrying on schedule", e);
+        }
+    }
+
+    @Scheduled(cron = "${zeromonos.partitions.cron:0 0 4 * * *}")
+    public Run createPartitions() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDate month = startedAt.toLocalDate().withDayOfMonth(1);
+        LocalDate through = month.plusMonths(monthsAhead);
+        int created = repository.createPartitions(month, through);
+        long unpartitioned = repository.countUnpartitioned();
+
+        Run run = new Run(startedAt, through, created, unpartitioned);
+        lastRun = run;
+        if (created > 0) {
+            logger.info("Created {} monthly booking partitions through {}", created, through);
+        }
+        if (unpartitioned > 0) {
+            logger.warn("{} bookings are in the default partition, outside the monthly partitions", unpartitioned);
+        }
+        return run;
+    }
+
+    /** The last completed run, or null before the first one. */
+    public Run getLastRun() {
+        return lastRun;
+    }
+}
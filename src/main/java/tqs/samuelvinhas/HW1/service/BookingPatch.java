@@ -0,0 +1,18 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.time.LocalDateTime;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+/**
+ * One item of a batch update: the booking's token plus the fields to change.
+ * Null fields are left as they are. Like PUT, the item description can't be changed.
+ */
+public record BookingPatch(String token, String municipality, String address, LocalDateTime timeSlot,
+                           REQUEST_STATE state) {
+
+    /** This patch with its token in canonical form, see {@link BookingTokens#canonical}. */
+    BookingPatch withCanonicalToken() {
+        return new BookingPatch(BookingTokens.canonical(token), municipality, address, timeSlot, state);
+    }
+}
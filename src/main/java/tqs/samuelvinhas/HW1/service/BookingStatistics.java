@@ -0,0 +1,112 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import tqs.samuelvinhas.HW1.data.ArchivedCount;
+import tqs.samuelvinhas.HW1.data.BookingCount;
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+/**
+ * Running booking counters per state, municipality and collection day.
+ * Rebuilt once from the database and then kept up to date by ZeroMonosService,
+ * so reading them never scans the bookings table.
+ */
+@Component
+public class BookingStatistics {
+
+    private final Map<REQUEST_STATE, LongAdder> byState = new EnumMap<>(REQUEST_STATE.class);
+    private final Map<String, LongAdder> byMunicipality = new ConcurrentHashMap<>();
+    private final Map<LocalDate, LongAdder> byDay = new ConcurrentHashMap<>();
+
+    public BookingStatistics() {
+        for (REQUEST_STATE state : REQUEST_STATE.values()) {
+            byState.put(state, new LongAdder());
+        }
+    }
+
+    public void recordCreated(ServiceRequest request) {
+        add(request.getMunicipality(), request.getTimeSlot(), request.getState(), 1);
+    }
+
+    public void recordDeleted(ServiceRequest request) {
+        add(request.getMunicipality(), request.getTimeSlot(), request.getState(), -1);
+    }
+
+    public void recordUpdated(String previousMunicipality, LocalDateTime previousTimeSlot, REQUEST_STATE previousState,
+                              ServiceRequest updated) {
+        add(previousMunicipality, previousTimeSlot, previousState, -1);
+        add(updated.getMunicipality(), updated.getTimeSlot(), updated.getState(), 1);
+    }
+
+    /** Archived bookings no longer count, as they wouldn't after a {@link #rebuild}. */
+    public void recordArchived(ArchivedCount archived) {
+        add(archived.getState(), archived.getMunicipality(), archived.getDay(), -archived.getCount());
+    }
+
+    public void recordStateChanged(REQUEST_STATE previousState, REQUEST_STATE state) {
+        byState.get(previousState).decrement();
+        byState.get(state).increment();
+    }
+
+    public synchronized void rebuild(Collection<BookingCount> counts) {
+        byState.values().forEach(LongAdder::reset);
+        byMunicipality.clear();
+        byDay.clear();
+        for (BookingCount count : counts) {
+            add(count.state(), count.municipality(), count.day(), count.count());
+        }
+    }
+
+    public long count(REQUEST_STATE state) {
+        return byState.get(state).sum();
+    }
+
+    public BookingStats snapshot() {
+        Map<REQUEST_STATE, Long> states = new EnumMap<>(REQUEST_STATE.class);
+        long total = 0;
+        for (Map.Entry<REQUEST_STATE, LongAdder> entry : byState.entrySet()) {
+            long count = entry.getValue().sum();
+            states.put(entry.getKey(), count);
+            total += count;
+        }
+        return new BookingStats(total, states, nonZero(byMunicipality), nonZero(byDay));
+    }
+
+    private void add(String municipality, LocalDateTime timeSlot, REQUEST_STATE state, long delta) {
+        add(state, municipality, timeSlot != null ? timeSlot.toLocalDate() : null, delta);
+    }
+
+    private void add(REQUEST_STATE state, String municipality, LocalDate day, long delta) {
+        if (state != null) {
+            byState.get(state).add(delta);
+        }
+        if (municipality != null) {
+            byMunicipality.computeIfAbsent(municipality, key -> new LongAdder()).add(delta);
+        }
+        if (day != null) {
+            byDay.computeIfAbsent(day, key -> new LongAdder()).add(delta);
+        }
+    }
+
+    private static <K extends Comparable<? super K>> SortedMap<K, Long> nonZero(Map<K, LongAdder> counters) {
+        SortedMap<K, Long> result = new TreeMap<>();
+        counters.forEach((key, counter) -> {
+            long count = counter.sum();
+            if (count > 0) {
+                result.put(key, count);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,12 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+public record BookingStats(long total,
+                           Map<REQUEST_STATE, Long> byState,
+                           Map<String, Long> byMunicipality,
+                           Map<LocalDate, Long> byDay) {
+}
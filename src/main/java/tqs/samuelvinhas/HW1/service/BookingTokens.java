@@ -0,0 +1,61 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Booking tokens are UUIDv7 (RFC 9562): a 48-bit millisecond timestamp followed by random bits.
+ * New bookings therefore land at the right-hand edge of the primary key index instead of on a
+ * random page of it. The 74 random bits come from a SecureRandom, like UUID.randomUUID(), since
+ * the token is what lets a citizen see and change their booking.
+ */
+public final class BookingTokens {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int LENGTH = 36;
+
+    private BookingTokens() {
+    }
+
+    public static String next() {
+        return next(System.currentTimeMillis()).toString();
+    }
+
+    static UUID next(long epochMillis) {
+        byte[] random = new byte[10];
+        RANDOM.nextBytes(random);
+        long randA = ((random[0] & 0x0FL) << 8) | (random[1] & 0xFFL);
+        long randB = 0;
+        for (int i = 2; i < random.length; i++) {
+            randB = (randB << 8) | (random[i] & 0xFFL);
+        }
+        long mostSigBits = (epochMillis << 16) | 0x7000L | randA;
+        long leastSigBits = 0x8000000000000000L | (randB & 0x3FFFFFFFFFFFFFFFL);
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * The lower-case form the database returns {@code token} in when it is valid, so that one
+     * booking is known by one string; anything else is returned as is.
+     */
+    public static String canonical(String token) {
+        return isValid(token) ? UUID.fromString(token).toString() : token;
+    }
+
+    /**
+     * Whether {@code token} can be a booking token at all: any UUID in its 36-character form,
+     * including the random (v4) tokens issued before. Anything else can't match a booking.
+     */
+    public static boolean isValid(String token) {
+        if (token == null || token.length() != LENGTH || token.charAt(8) != '-' || token.charAt(13) != '-'
+                || token.charAt(18) != '-' || token.charAt(23) != '-') {
+            return false;
+        }
+        try {
+            UUID.fromString(token);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the municipality list, with a content-derived ETag so
+ * unchanged catalogs keep the same tag across refreshes. {@code lastModified} is when
+ * the content last changed, which can be earlier than {@code loadedAt}.
+ */
+public record MunicipalityCatalog(List<String> municipalities, String etag, Source source, Instant loadedAt,
+                                  Instant lastModified) {
+
+    public enum Source {
+        UPSTREAM,
+        SNAPSHOT
+    }
+
+    public static MunicipalityCatalog of(List<String> municipalities, Source source) {
+        List<String> copy = List.copyOf(municipalities);
+        Instant now = Instant.now();
+        return new MunicipalityCatalog(copy, etagOf(copy), source, now, now);
+    }
+
+    /** This catalog, keeping {@code previous}'s last-modified time if the content is the same. */
+    public MunicipalityCatalog since(MunicipalityCatalog previous) {
+        if (previous == null || !previous.etag().equals(etag)) {
+            return this;
+        }
+        return new MunicipalityCatalog(municipalities, etag, source, loadedAt, previous.lastModified());
+    }
+
+    private static String etagOf(List<String> municipalities) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String municipality : municipalities) {
+                digest.update(municipality.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
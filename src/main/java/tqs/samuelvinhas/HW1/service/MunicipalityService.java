@@ -1,32 +1,103 @@
 package tqs.samuelvinhas.HW1.service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.annotation.Timed;
+
+import tqs.samuelvinhas.HW1.service.MunicipalityCatalog.Source;
+
+/**
+ * Serves the municipality list from memory. The catalog starts from a bundled snapshot
+ * and is refreshed from the upstream API in the background; a failed refresh keeps
+ * whatever was loaded last, so requests never wait on the third-party API.
+ */
 @Service
 public class MunicipalityService {
     private static final Logger logger = LoggerFactory.getLogger(MunicipalityService.class);
     private final RestTemplate restTemplate;
-    private static final String MUNICIPALITIES_API = "https://json.geoapi.pt/municipios";
+    private final CircuitBreaker circuitBreaker;
+    private final String municipalitiesApi;
+    private volatile MunicipalityCatalog catalog;
 
-    public MunicipalityService(RestTemplate restTemplate) {
+    public MunicipalityService(RestTemplate restTemplate,
+                               ObjectMapper objectMapper,
+                               CircuitBreaker circuitBreaker,
+                               @Value("${zeromonos.municipalities.url:https://json.geoapi.pt/municipios}") String municipalitiesApi,
+                               @Value("${zeromonos.municipalities.snapshot:classpath:municipalities.json}") Resource snapshot) {
         this.restTemplate = restTemplate;
-        logger.info("MunicipalityService initialized");
+        this.circuitBreaker = circuitBreaker;
+        this.municipalitiesApi = municipalitiesApi;
+        this.catalog = loadSnapshot(objectMapper, snapshot);
+        logger.info("MunicipalityService initialized with {} municipalities from snapshot", catalog.municipalities().size());
     }
 
     public List<String> getAllMunicipalities() {
-        logger.info("Fetching municipalities from external API: {}", MUNICIPALITIES_API);
+        return catalog.municipalities();
+    }
+
+    public MunicipalityCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Reloads the catalog from the upstream API, once at startup and then every
+     * {@code zeromonos.municipalities.ttl}. Calls go through the circuit breaker; rejected
+     * or failed calls are logged and the current catalog is kept.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${zeromonos.municipalities.ttl:PT6H}")
+    @Timed(value = "zeromonos.municipalities.refresh", histogram = true)
+    public void refresh() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            logger.warn("Circuit breaker {} is open, keeping {} catalog", circuitBreaker.getName(), catalog.source());
+            return;
+        }
+        fetchFromUpstream();
+    }
+
+    private void fetchFromUpstream() {
+        logger.info("Refreshing municipalities from external API: {}", municipalitiesApi);
+        String[] municipalities;
+        boolean succeeded = false;
         try {
-            String[] municipalities = restTemplate.getForObject(MUNICIPALITIES_API, String[].class);
-            logger.info("Successfully fetched {} municipalities", municipalities != null ? municipalities.length : 0);
-            return List.of(municipalities);
-        } catch (Exception e) {
-            logger.error("Error fetching municipalities from API", e);
-            throw e;
+            municipalities = restTemplate.getForObject(municipalitiesApi, String[].class);
+            succeeded = true;
+        } catch (RestClientException e) {
+            logger.warn("Error refreshing municipalities from API, keeping {} catalog: {}", catalog.source(), e.getMessage());
+            return;
+        } finally {
+            // Whatever the call threw, so a half-open breaker never waits on a trial that ended
+            if (succeeded) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure();
+            }
+        }
+        if (municipalities == null || municipalities.length == 0) {
+            logger.warn("External API returned no municipalities, keeping {} catalog", catalog.source());
+            return;
+        }
+        catalog = MunicipalityCatalog.of(List.of(municipalities), Source.UPSTREAM).since(catalog);
+        logger.info("Successfully refreshed {} municipalities", municipalities.length);
+    }
+
+    private static MunicipalityCatalog loadSnapshot(ObjectMapper objectMapper, Resource snapshot) {
+        try (InputStream in = snapshot.getInputStream()) {
+            return MunicipalityCatalog.of(List.of(objectMapper.readValue(in, String[].class)), Source.SNAPSHOT);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read municipality snapshot " + snapshot, e);
         }
     }
 }
@@ -0,0 +1,17 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Availability of a municipality's slots on a day. {@code booked} lists the full slots and
+ * {@code slots} the places left in every slot with at least one booking; slots not listed
+ * there have all {@code capacity} places free.
+ */
+public record SlotAvailability(String municipality, LocalDate date, int slotMinutes, int capacity,
+                               List<LocalTime> booked, List<Slot> slots) {
+
+    public record Slot(LocalTime time, int remaining) {
+    }
+}
@@ -0,0 +1,25 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * How many bookings (trucks) a single time slot takes: {@code perSlot} everywhere, unless
+ * {@code municipalities} overrides it for a municipality.
+ */
+@ConfigurationProperties("zeromonos.capacity")
+public record SlotCapacity(@DefaultValue("1") int perSlot, Map<String, Integer> municipalities) {
+
+    public SlotCapacity {
+        municipalities = municipalities == null ? Map.of() : Map.copyOf(municipalities);
+        if (perSlot < 1 || municipalities.values().stream().anyMatch(capacity -> capacity < 1)) {
+            throw new IllegalArgumentException("Slot capacity must be at least 1.");
+        }
+    }
+
+    public int of(String municipality) {
+        return municipalities.getOrDefault(municipality, perSlot);
+    }
+}
@@ -0,0 +1,137 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import tqs.samuelvinhas.HW1.data.BookedSlot;
+
+/**
+ * In-memory occupancy of collection slots, per municipality and per day.
+ * A day is split into fixed-size slots; each slot keeps how many bookings fall
+ * into it, so lookups never touch the database.
+ */
+@Component
+public class SlotOccupancyIndex {
+
+    public static final int SLOT_MINUTES = 30;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    private record DayKey(String municipality, LocalDate day) { }
+
+    private final Map<DayKey, int[]> occupancy = new ConcurrentHashMap<>();
+
+    public void occupy(String municipality, LocalDateTime timeSlot) {
+        if (municipality == null || timeSlot == null) {
+            return;
+        }
+        occupancy.compute(keyOf(municipality, timeSlot), (key, counts) -> {
+            int[] updated = counts == null ? new int[SLOTS_PER_DAY] : counts;
+            updated[slotOf(timeSlot)]++;
+            return updated;
+        });
+    }
+
+    /**
+     * Occupies the slot unless it already has {@code capacity} bookings, atomically with
+     * respect to every other change to the same day. Returns whether it did.
+     */
+    public boolean tryOccupy(String municipality, LocalDateTime timeSlot, int capacity) {
+        boolean[] occupied = {false};
+        occupancy.compute(keyOf(municipality, timeSlot), (key, counts) -> {
+            int[] updated = counts == null ? new int[SLOTS_PER_DAY] : counts;
+            int slot = slotOf(timeSlot);
+            if (updated[slot] < capacity) {
+                updated[slot]++;
+                occupied[0] = true;
+            }
+            return occupied[0] ? updated : counts;
+        });
+        return occupied[0];
+    }
+
+    public void release(String municipality, LocalDateTime timeSlot) {
+        if (municipality == null || timeSlot == null) {
+            return;
+        }
+        occupancy.computeIfPresent(keyOf(municipality, timeSlot), (key, counts) -> {
+            int slot = slotOf(timeSlot);
+            if (counts[slot] > 0) {
+                counts[slot]--;
+            }
+            for (int count : counts) {
+                if (count > 0) {
+                    return counts;
+                }
+            }
+            return null;
+        });
+    }
+
+    public void rebuild(Collection<BookedSlot> slots) {
+        occupancy.clear();
+        slots.forEach(slot -> occupy(slot.municipality(), slot.timeSlot()));
+    }
+
+    /**
+     * Bitmap of the occupied slots of a day: bit {@code i} is set when slot {@code i}
+     * (starting at {@code i * SLOT_MINUTES} minutes past midnight) has at least one booking.
+     */
+    public long occupiedSlots(String municipality, LocalDate day) {
+        int[] counts = occupancy.get(new DayKey(municipality, day));
+        if (counts == null) {
+            return 0L;
+        }
+        long bitmap = 0L;
+        for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+            if (counts[slot] > 0) {
+                bitmap |= 1L << slot;
+            }
+        }
+        return bitmap;
+    }
+
+    public List<LocalTime> bookedTimes(String municipality, LocalDate day) {
+        long bitmap = occupiedSlots(municipality, day);
+        List<LocalTime> booked = new ArrayList<>(Long.bitCount(bitmap));
+        while (bitmap != 0) {
+            int slot = Long.numberOfTrailingZeros(bitmap);
+            booked.add(LocalTime.MIDNIGHT.plusMinutes((long) slot * SLOT_MINUTES));
+            bitmap &= bitmap - 1;
+        }
+        return booked;
+    }
+
+    /** Number of bookings in each slot of a day that has any, by slot start time. */
+    public SortedMap<LocalTime, Integer> bookingCounts(String municipality, LocalDate day) {
+        SortedMap<LocalTime, Integer> bookings = new TreeMap<>();
+        int[] counts = occupancy.get(new DayKey(municipality, day));
+        if (counts == null) {
+            return bookings;
+        }
+        for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+            int count = counts[slot];
+            if (count > 0) {
+                bookings.put(LocalTime.MIDNIGHT.plusMinutes((long) slot * SLOT_MINUTES), count);
+            }
+        }
+        return bookings;
+    }
+
+    private static DayKey keyOf(String municipality, LocalDateTime timeSlot) {
+        return new DayKey(municipality, timeSlot.toLocalDate());
+    }
+
+    private static int slotOf(LocalDateTime timeSlot) {
+        return (timeSlot.getHour() * 60 + timeSlot.getMinute()) / SLOT_MINUTES;
+    }
+}
@@ -0,0 +1,11 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.util.List;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+/**
+ * Moves every booking in {@code tokens} to {@code state}, e.g. assigning a morning's pickups.
+ */
+public record StateTransitionRequest(List<String> tokens, REQUEST_STATE state) {
+}
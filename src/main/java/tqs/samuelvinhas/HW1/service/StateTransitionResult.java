@@ -0,0 +1,12 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.util.List;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+/**
+ * Outcome of a bulk state transition. {@code skipped} holds the tokens that were not moved,
+ * either because no such booking exists or because its current state can't move to {@code state}.
+ */
+public record StateTransitionResult(REQUEST_STATE state, List<String> moved, List<String> skipped) {
+}
@@ -0,0 +1,28 @@
+package tqs.samuelvinhas.HW1.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the write-behind path for new bookings, see {@link BookingIngestionQueue}:
+ * at most {@code capacity} bookings wait to be written, in transactions of up to
+ * {@code batchSize}, and each is first appended to the {@code journal} file.
+ */
+@ConfigurationProperties("zeromonos.write-behind")
+public record WriteBehindProperties(boolean enabled,
+                                    @DefaultValue("10000") int capacity,
+                                    @DefaultValue("500") int batchSize,
+                                    @DefaultValue("data/booking-journal.ndjson") Path journal,
+                                    @DefaultValue("PT1S") Duration retryDelay,
+                                    @DefaultValue("PT5S") Duration readWait,
+                                    @DefaultValue("PT30S") Duration shutdownTimeout) {
+
+    public WriteBehindProperties {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Write-behind capacity and batch size must be at least 1.");
+        }
+    }
+}
@@ -1,99 +1,355 @@
 package tqs.samuelvinhas.HW1.service;
 
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.annotation.Timed;
 
+import tqs.samuelvinhas.HW1.data.BookingSummary;
 import tqs.samuelvinhas.HW1.data.ServiceRequest;
 import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
 
+/**
+ * Booking operations. Queries run in read-only transactions, so Hibernate skips flushing and
+ * dirty checking and, with a replica configured, they are served by the replica; writes and
+ * the reads they depend on go to the primary.
+ * Each slot takes up to {@link SlotCapacity} bookings; a write claims its place with one
+ * atomic statement on the slot's counter row, in the same transaction as the booking itself.
+ * Caches, the occupancy index, statistics and events are only updated after that commits.
+ * With write-behind enabled, a new booking instead claims its place in the occupancy index
+ * and is handed to the {@link BookingIngestionQueue}, which writes it shortly after.
+ */
 @Service
 public class ZeroMonosService {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final String SLOT_TAKEN = "Time slot already booked in this municipality.";
+    public static final String TOO_SOON = "Pick a time slot with at least 1 hour in advance.";
+    public static final String MODIFIED = "Booking was changed by someone else, reload it and try again.";
+    public static final String OPERATIONS_TIMER = "zeromonos.bookings.operations";
+
     private final ZeroMonosRepository repository;
+    private final SlotOccupancyIndex occupancyIndex;
+    private final BookingStatistics statistics;
+    private final SlotCapacity capacity;
+    private final BookingCache bookingCache;
+    private final BookingMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final BookingIngestionQueue ingestionQueue;
 
-    public ZeroMonosService(ZeroMonosRepository repository) {
+    public ZeroMonosService(ZeroMonosRepository repository, SlotOccupancyIndex occupancyIndex,
+                            BookingStatistics statistics, SlotCapacity capacity, BookingCache bookingCache,
+                            BookingMetrics metrics, TransactionTemplate transactionTemplate,
+                            ApplicationEventPublisher events, BookingIngestionQueue ingestionQueue) {
         this.repository = repository;
+        this.occupancyIndex = occupancyIndex;
+        this.statistics = statistics;
+        this.capacity = capacity;
+        this.bookingCache = bookingCache;
+        this.metrics = metrics;
+        this.transactionTemplate = transactionTemplate;
+        this.events = events;
+        this.ingestionQueue = ingestionQueue;
     }
 
-    public String requestService(ServiceRequest request) {
-        Optional<ServiceRequest> existingRequest = repository.findByMunicipalityAndTimeSlot(
-                request.getMunicipality(), 
-                request.getTimeSlot()
-        );
-
-        if (existingRequest.isPresent()) {
-            throw new IllegalStateException("Time slot already booked in this municipality.");
-        }
+    @PostConstruct
+    public void warmUp() {
+        occupancyIndex.rebuild(repository.findBookedSlotsFrom(LocalDate.now().atStartOfDay()));
+        statistics.rebuild(repository.countGroupedByMunicipalityDayAndState());
+    }
 
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "create"}, histogram = true)
+    public String requestService(ServiceRequest request) {
         LocalDateTime now = LocalDateTime.now();
 
         if (request.getTimeSlot().isBefore(now.plusHours(1))) {
-            throw new IllegalStateException("Pick a time slot with at least 1 hour in advance.");
+            throw new IllegalStateException(TOO_SOON);
         }
 
-        String token = UUID.randomUUID().toString();
+        String token = BookingTokens.next();
         request.setToken(token);
 
-        repository.save(request);
+        if (ingestionQueue.isEnabled()) {
+            queue(request);
+        } else {
+            // A failed insert rolls the claimed place back with it
+            transactionTemplate.execute(status -> {
+                reserve("create", request.getMunicipality(), request.getTimeSlot());
+                return repository.save(request);
+            });
+            occupancyIndex.occupy(request.getMunicipality(), request.getTimeSlot());
+        }
+
+        statistics.recordCreated(request);
+        // Citizens check the status right after booking
+        bookingCache.put(request);
+        events.publishEvent(BookingEvent.created(request));
 
         return token;
 
     }
 
+    /**
+     * Current bookings first, then archived ones, which can be read but no longer changed.
+     * Not a read-only transaction: writes invalidate the cached booking, and refilling it from a
+     * lagging replica could cache the row from before the write, with its old ETag, for the
+     * whole TTL. Cache misses read the primary instead.
+     */
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "get"}, histogram = true)
     public Optional<ServiceRequest> getServiceRequest(String token) {
-        return repository.findById(token);
+        // Cached under the canonical token, the one writes invalidate
+        return bookingCache.get(BookingTokens.canonical(token), this::findCurrentOrArchived);
     }
 
+    @Transactional(readOnly = true)
     public List<ServiceRequest> getAllServiceRequests() {
         return repository.findAll();
     }
 
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "page"}, histogram = true)
+    @Transactional(readOnly = true)
+    public BookingPage<ServiceRequest> getServiceRequestsPage(BookingFilter filter, BookingCursor after, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        List<ServiceRequest> rows = repository.findPage(
+                filter.state(),
+                filter.municipality(),
+                filter.from(),
+                filter.to(),
+                after != null ? after.timeSlot() : null,
+                after != null ? after.token() : null,
+                Limit.of(pageSize + 1)
+        );
+        return BookingPage.of(rows, pageSize, BookingCursor::after);
+    }
+
+    /** Same page as {@link #getServiceRequestsPage}, as summary records instead of entities. */
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "summary_page"}, histogram = true)
+    @Transactional(readOnly = true)
+    public BookingPage<BookingSummary> getBookingSummariesPage(BookingFilter filter, BookingCursor after, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        List<BookingSummary> rows = repository.findSummaryPage(
+                filter.state(),
+                filter.municipality(),
+                filter.from(),
+                filter.to(),
+                after != null ? after.timeSlot() : null,
+                after != null ? after.token() : null,
+                Limit.of(pageSize + 1)
+        );
+        return BookingPage.of(rows, pageSize, BookingCursor::after);
+    }
+
+    public BookingStats getStatistics() {
+        return statistics.snapshot();
+    }
+
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "by_municipality"}, histogram = true)
+    @Transactional(readOnly = true)
     public List<ServiceRequest> getServiceRequestsByMunicipality(String municipality) {
         return repository.findByMunicipality(municipality);
     }
 
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "summaries_by_municipality"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<BookingSummary> getBookingSummariesByMunicipality(String municipality) {
+        return repository.findSummariesByMunicipality(municipality);
+    }
+
+    public SlotAvailability getAvailability(String municipality, LocalDate date) {
+        int slotCapacity = capacity.of(municipality);
+        List<SlotAvailability.Slot> slots = new ArrayList<>();
+        List<LocalTime> full = new ArrayList<>();
+        occupancyIndex.bookingCounts(municipality, date).forEach((time, bookings) -> {
+            int remaining = Math.max(slotCapacity - bookings, 0);
+            slots.add(new SlotAvailability.Slot(time, remaining));
+            if (remaining == 0) {
+                full.add(time);
+            }
+        });
+        return new SlotAvailability(municipality, date, SlotOccupancyIndex.SLOT_MINUTES, slotCapacity, full, slots);
+    }
+
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "update"}, histogram = true)
     public String updateServiceRequest(String token, ServiceRequest updatedRequest) {
-        Optional<ServiceRequest> existingRequestOpt = repository.findById(token);
-        if (existingRequestOpt.isEmpty()) {
-            throw new NoSuchElementException("Service request with token " + token + " not found.");
+        return updateServiceRequest(token, updatedRequest, null);
+    }
+
+    /**
+     * Updates the booking if its version is still one of {@code expectedVersions} (any version
+     * when null). A booking changed by someone else, before or during the update, is never overwritten:
+     * the save is a versioned UPDATE and an OptimisticLockingFailureException is thrown instead.
+     */
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "update"}, histogram = true)
+    public String updateServiceRequest(String token, ServiceRequest updatedRequest, Set<Long> expectedVersions) {
+        record Change(ServiceRequest saved, String previousMunicipality, LocalDateTime previousTimeSlot,
+                      ServiceRequest.REQUEST_STATE previousState) {
         }
 
-        ServiceRequest existingRequest = existingRequestOpt.get();
+        // Whether this update holds a place in the occupancy index for its new slot, see holdPlace
+        boolean[] held = {false};
+        Change change;
+        try {
+            change = transactionTemplate.execute(status -> {
+                ServiceRequest existingRequest = findBooking(token).orElseThrow(() ->
+                        new NoSuchElementException("Service request with token " + token + " not found."));
+                if (expectedVersions != null && !expectedVersions.contains(existingRequest.getVersion())) {
+                    throw new OptimisticLockingFailureException(MODIFIED);
+                }
 
-        Optional<ServiceRequest> conflictingRequestOpt = repository.findByMunicipalityAndTimeSlot(
-                updatedRequest.getMunicipality(),
-                updatedRequest.getTimeSlot()
-        );
+                boolean rescheduled = !updatedRequest.getTimeSlot().isEqual(existingRequest.getTimeSlot());
+                if (rescheduled && updatedRequest.getTimeSlot().isBefore(LocalDateTime.now().plusHours(1))) {
+                    throw new IllegalStateException(TOO_SOON);
+                }
+                // The place in the old slot is given back by a database trigger when the row moves
+                if (rescheduled || !Objects.equals(updatedRequest.getMunicipality(), existingRequest.getMunicipality())) {
+                    held[0] = holdPlace("update", updatedRequest.getMunicipality(), updatedRequest.getTimeSlot());
+                    reserve("update", updatedRequest.getMunicipality(), updatedRequest.getTimeSlot());
+                }
 
-        if (conflictingRequestOpt.isPresent()) {
-            ServiceRequest conflictingRequest = conflictingRequestOpt.get();
+                String previousMunicipality = existingRequest.getMunicipality();
+                LocalDateTime previousTimeSlot = existingRequest.getTimeSlot();
+                ServiceRequest.REQUEST_STATE previousState = existingRequest.getState();
 
-            if (!conflictingRequest.getToken().equals(token)) {
-                throw new IllegalStateException("Time slot already booked in this municipality.");
+                existingRequest.setMunicipality(updatedRequest.getMunicipality());
+                existingRequest.setAddress(updatedRequest.getAddress());
+                existingRequest.setTimeSlot(updatedRequest.getTimeSlot());
+                existingRequest.setState(updatedRequest.getState());
+
+                // Written as a versioned UPDATE on commit, which also bumps the version of saved
+                ServiceRequest saved = repository.save(existingRequest);
+                return new Change(saved, previousMunicipality, previousTimeSlot, previousState);
+            });
+        } catch (RuntimeException e) {
+            if (held[0]) {
+                occupancyIndex.release(updatedRequest.getMunicipality(), updatedRequest.getTimeSlot());
+            }
+            if (e instanceof OptimisticLockingFailureException) {
+                metrics.recordConflict("update", BookingMetrics.MODIFIED);
             }
+            throw e;
         }
 
-        if (!updatedRequest.getTimeSlot().isEqual(existingRequest.getTimeSlot()) && updatedRequest.getTimeSlot().isBefore(LocalDateTime.now().plusHours(1))) {
-            throw new IllegalStateException("Pick a time slot with at least 1 hour in advance.");
+        ServiceRequest saved = change.saved();
+        bookingCache.invalidate(BookingTokens.canonical(token));
+        occupancyIndex.release(change.previousMunicipality(), change.previousTimeSlot());
+        if (!held[0]) {
+            occupancyIndex.occupy(saved.getMunicipality(), saved.getTimeSlot());
         }
-
-        existingRequest.setMunicipality(updatedRequest.getMunicipality());
-        existingRequest.setAddress(updatedRequest.getAddress());
-        existingRequest.setTimeSlot(updatedRequest.getTimeSlot());
-        existingRequest.setState(updatedRequest.getState());
-
-        repository.save(existingRequest);
+        statistics.recordUpdated(change.previousMunicipality(), change.previousTimeSlot(), change.previousState(), saved);
+        events.publishEvent(BookingEvent.updated(saved));
 
         return token;
     }
 
+    /**
+     * Deletes the booking as it was read. Of concurrent deletes only the one that removed the row
+     * gives its place back and updates the statistics; the others get a NoSuchElementException,
+     * and a delete racing with an update an OptimisticLockingFailureException.
+     */
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "delete"}, histogram = true)
     public void deleteServiceRequest(String token) {
-        Optional<ServiceRequest> existingRequestOpt = repository.findById(token);
-        if (existingRequestOpt.isEmpty()) {
-            throw new NoSuchElementException("Service request with token " + token + " not found.");
+        ServiceRequest existingRequest;
+        try {
+            existingRequest = transactionTemplate.execute(status -> {
+                ServiceRequest existing = findBooking(token).orElseThrow(() ->
+                        new NoSuchElementException("Service request with token " + token + " not found."));
+                if (repository.deleteIfUnchanged(token, existing.getTimeSlot(), existing.getVersion()) == 0) {
+                    if (repository.existsById(token)) {
+                        throw new OptimisticLockingFailureException(MODIFIED);
+                    }
+                    throw new NoSuchElementException("Service request with token " + token + " not found.");
+                }
+                return existing;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            metrics.recordConflict("delete", BookingMetrics.MODIFIED);
+            throw e;
         }
 
-        repository.deleteById(token);
+        String canonicalToken = BookingTokens.canonical(token);
+        bookingCache.invalidate(canonicalToken);
+        occupancyIndex.release(existingRequest.getMunicipality(), existingRequest.getTimeSlot());
+        statistics.recordDeleted(existingRequest);
+        events.publishEvent(BookingEvent.deleted(canonicalToken));
+    }
+
+    /**
+     * Reads the booking once it has left the write-behind queue, from the primary unless the
+     * caller is in a read-only transaction (see {@link ZeroMonosRepository#findById}). Strings that
+     * aren't UUIDs can't be tokens, so they're answered here instead of failing to bind to the
+     * uuid column. Tokens are looked up in canonical form, the one queued bookings are known by.
+     */
+    public Optional<ServiceRequest> findBooking(String token) {
+        if (!BookingTokens.isValid(token)) {
+            return Optional.empty();
+        }
+        String canonicalToken = BookingTokens.canonical(token);
+        ingestionQueue.awaitWritten(canonicalToken);
+        return repository.findById(canonicalToken);
+    }
+
+    private Optional<ServiceRequest> findCurrentOrArchived(String token) {
+        Optional<ServiceRequest> booking = findBooking(token);
+        if (booking.isPresent() || !BookingTokens.isValid(token)) {
+            return booking;
+        }
+        return repository.findArchivedById(UUID.fromString(token));
+    }
+
+    /** Claims a place in the occupancy index and queues the booking, or throws when either is full. */
+    private void queue(ServiceRequest request) {
+        String municipality = request.getMunicipality();
+        if (!occupancyIndex.tryOccupy(municipality, request.getTimeSlot(), capacity.of(municipality))) {
+            metrics.recordConflict("create", BookingMetrics.SLOT_TAKEN);
+            throw new IllegalStateException(SLOT_TAKEN);
+        }
+        try {
+            ingestionQueue.submit(request);
+        } catch (RuntimeException e) {
+            occupancyIndex.release(municipality, request.getTimeSlot());
+            throw e;
+        }
+    }
+
+    /**
+     * With write-behind on, queued bookings were admitted against the occupancy index alone, so
+     * every other write claiming a place takes it there first: claiming it only in the database
+     * could take the place a queued booking was promised. Returns whether it took one, which the
+     * caller gives back if its write fails; throws when the slot is full.
+     */
+    private boolean holdPlace(String operation, String municipality, LocalDateTime timeSlot) {
+        if (!isWriteBehind()) {
+            return false;
+        }
+        if (!occupancyIndex.tryOccupy(municipality, timeSlot, capacity.of(municipality))) {
+            metrics.recordConflict(operation, BookingMetrics.SLOT_TAKEN);
+            throw new IllegalStateException(SLOT_TAKEN);
+        }
+        return true;
+    }
+
+    /** Whether new bookings go through the write-behind queue; see {@link #holdPlace}. */
+    public boolean isWriteBehind() {
+        return ingestionQueue.isEnabled();
+    }
+
+    /** Claims a place in the slot, in the caller's transaction, or throws when it's full. */
+    private void reserve(String operation, String municipality, LocalDateTime timeSlot) {
+        if (repository.reserveSlot(municipality, timeSlot, capacity.of(municipality)).isEmpty()) {
+            metrics.recordConflict(operation, BookingMetrics.SLOT_TAKEN);
+            throw new IllegalStateException(SLOT_TAKEN);
+        }
     }
 }
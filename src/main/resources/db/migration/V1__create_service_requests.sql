@@ -0,0 +1,22 @@
+-- Baseline schema, as previously generated by ddl-auto=update.
+-- Written to be a no-op on databases that already have the table.
+
+CREATE TABLE IF NOT EXISTS service_requests (
+    token            VARCHAR(255) NOT NULL,
+    municipality     VARCHAR(255) NOT NULL,
+    address          VARCHAR(255) NOT NULL,
+    time_slot        TIMESTAMP(6) NOT NULL,
+    item_description VARCHAR(255) NOT NULL,
+    state            VARCHAR(255) NOT NULL
+        CHECK (state IN ('RECEIVED', 'ASSIGNED', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED')),
+    date             TIMESTAMP(6) NOT NULL,
+    CONSTRAINT service_requests_pkey PRIMARY KEY (token)
+);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_service_requests_municipality_time_slot') THEN
+        ALTER TABLE service_requests
+            ADD CONSTRAINT uk_service_requests_municipality_time_slot UNIQUE (municipality, time_slot);
+    END IF;
+END $$;
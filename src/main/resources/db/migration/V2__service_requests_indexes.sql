@@ -0,0 +1,14 @@
+-- (municipality, time_slot) lookups, including findByMunicipality on the leading column,
+-- are served by the index behind uk_service_requests_municipality_time_slot.
+
+-- Staff listings filtered by state over a time range
+CREATE INDEX IF NOT EXISTS idx_service_requests_state_time_slot
+    ON service_requests (state, time_slot);
+
+-- Per-municipality listings filtered by state
+CREATE INDEX IF NOT EXISTS idx_service_requests_municipality_state
+    ON service_requests (municipality, state);
+
+-- Keyset pagination order of GET /api/bookings
+CREATE INDEX IF NOT EXISTS idx_service_requests_time_slot_token
+    ON service_requests (time_slot, token);
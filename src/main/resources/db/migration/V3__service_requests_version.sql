@@ -0,0 +1,7 @@
+-- Optimistic locking and conditional requests: version is the booking's ETag,
+-- last_modified its Last-Modified. Existing rows start at version 0.
+ALTER TABLE service_requests
+    ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+ALTER TABLE service_requests
+    ADD COLUMN IF NOT EXISTS last_modified timestamp(6) NOT NULL DEFAULT localtimestamp;
@@ -0,0 +1,44 @@
+-- Time slots hold several bookings, up to a configured capacity per municipality
+-- (zeromonos.capacity.*), so (municipality, time_slot) is no longer unique.
+-- slot_reservations keeps how many places of each slot are taken: the application
+-- claims a place with a single conditional upsert before inserting or moving a booking,
+-- and the triggers below give it back whenever a booking leaves the slot, whatever
+-- removed or moved it.
+CREATE TABLE IF NOT EXISTS slot_reservations (
+    municipality VARCHAR(255) NOT NULL,
+    time_slot    TIMESTAMP(6) NOT NULL,
+    booked       INTEGER      NOT NULL DEFAULT 0 CHECK (booked >= 0),
+    CONSTRAINT slot_reservations_pkey PRIMARY KEY (municipality, time_slot)
+);
+
+INSERT INTO slot_reservations (municipality, time_slot, booked)
+SELECT municipality, time_slot, count(*)
+FROM service_requests
+GROUP BY municipality, time_slot
+ON CONFLICT (municipality, time_slot) DO UPDATE SET booked = excluded.booked;
+
+CREATE OR REPLACE FUNCTION release_slot_reservation() RETURNS trigger AS $$
+BEGIN
+    UPDATE slot_reservations SET booked = booked - 1
+    WHERE municipality = OLD.municipality AND time_slot = OLD.time_slot AND booked > 0;
+    RETURN NULL;
+END $$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS service_requests_release_slot_on_delete ON service_requests;
+CREATE TRIGGER service_requests_release_slot_on_delete
+    AFTER DELETE ON service_requests
+    FOR EACH ROW EXECUTE FUNCTION release_slot_reservation();
+
+DROP TRIGGER IF EXISTS service_requests_release_slot_on_move ON service_requests;
+CREATE TRIGGER service_requests_release_slot_on_move
+    AFTER UPDATE OF municipality, time_slot ON service_requests
+    FOR EACH ROW
+    WHEN (OLD.municipality IS DISTINCT FROM NEW.municipality OR OLD.time_slot IS DISTINCT FROM NEW.time_slot)
+    EXECUTE FUNCTION release_slot_reservation();
+
+ALTER TABLE service_requests
+    DROP CONSTRAINT IF EXISTS uk_service_requests_municipality_time_slot;
+
+-- Keeps serving (municipality, time_slot) lookups and findByMunicipality on the leading column
+CREATE INDEX IF NOT EXISTS idx_service_requests_municipality_time_slot
+    ON service_requests (municipality, time_slot);
@@ -0,0 +1,5 @@
+-- Booking tokens become native uuid: 16 bytes instead of a 37-byte varchar, in the table
+-- and in every index carrying the key. Tokens issued so far are UUID strings, so they
+-- convert as they are and stay valid. Rewrites the table and rebuilds its indexes.
+ALTER TABLE service_requests
+    ALTER COLUMN token TYPE uuid USING token::uuid;
@@ -0,0 +1,16 @@
+-- Completed and cancelled bookings are moved here by BookingArchiveService once their
+-- time slot is older than zeromonos.archive.age, so service_requests only holds what
+-- staff still work with. Archived bookings are read by token only (GET /api/bookings/{token}).
+CREATE TABLE IF NOT EXISTS service_requests_archive (
+    token            uuid         NOT NULL,
+    municipality     VARCHAR(255) NOT NULL,
+    address          VARCHAR(255) NOT NULL,
+    time_slot        TIMESTAMP(6) NOT NULL,
+    item_description VARCHAR(255) NOT NULL,
+    state            VARCHAR(255) NOT NULL CHECK (state IN ('COMPLETED', 'CANCELLED')),
+    date             TIMESTAMP(6) NOT NULL,
+    version          bigint       NOT NULL,
+    last_modified    TIMESTAMP(6) NOT NULL,
+    archived_at      TIMESTAMP(6) NOT NULL,
+    CONSTRAINT service_requests_archive_pkey PRIMARY KEY (token)
+);
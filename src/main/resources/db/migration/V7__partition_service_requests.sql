@@ -0,0 +1,158 @@
+-- service_requests becomes range-partitioned by time_slot month: queries over a time range only
+-- touch the months they cover, and each month is vacuumed and indexed on its own. Partitions
+-- are named service_requests_YYYY_MM; bookings outside every partition land in
+-- service_requests_default until their month is created (BookingPartitionMaintenance keeps
+-- zeromonos.partitions.months-ahead months created in advance).
+--
+-- A primary key on a partitioned table must include the partition key, so it becomes
+-- (token, time_slot), and service_request_tokens keeps tokens unique across partitions.
+-- Lookups by token alone still check the primary key index of every partition
+-- (ZeroMonosRepositoryPagingBenchmarkIT measures it).
+
+ALTER TABLE service_requests RENAME TO service_requests_unpartitioned;
+ALTER TABLE service_requests_unpartitioned RENAME CONSTRAINT service_requests_pkey TO service_requests_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_service_requests_state_time_slot;
+DROP INDEX IF EXISTS idx_service_requests_municipality_state;
+DROP INDEX IF EXISTS idx_service_requests_time_slot_token;
+DROP INDEX IF EXISTS idx_service_requests_municipality_time_slot;
+
+CREATE TABLE service_requests (
+    token            uuid         NOT NULL,
+    municipality     VARCHAR(255) NOT NULL,
+    address          VARCHAR(255) NOT NULL,
+    time_slot        TIMESTAMP(6) NOT NULL,
+    item_description VARCHAR(255) NOT NULL,
+    state            VARCHAR(255) NOT NULL
+        CHECK (state IN ('RECEIVED', 'ASSIGNED', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED')),
+    date             TIMESTAMP(6) NOT NULL,
+    version          bigint       NOT NULL DEFAULT 0,
+    last_modified    TIMESTAMP(6) NOT NULL DEFAULT localtimestamp,
+    CONSTRAINT service_requests_pkey PRIMARY KEY (token, time_slot)
+) PARTITION BY RANGE (time_slot);
+
+CREATE TABLE service_requests_default PARTITION OF service_requests DEFAULT;
+
+CREATE TABLE service_request_tokens (
+    token uuid PRIMARY KEY
+);
+
+-- Bookings moved out of the default partition into a new one keep their slot place and token
+CREATE OR REPLACE FUNCTION release_slot_reservation() RETURNS trigger AS $$
+BEGIN
+    IF current_setting('zeromonos.moving_partitions', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    UPDATE slot_reservations SET booked = booked - 1
+    WHERE municipality = OLD.municipality AND time_slot = OLD.time_slot AND booked > 0;
+    RETURN NULL;
+END $$ LANGUAGE plpgsql;
+
+-- A token already in use, in any partition, fails the insert with a unique violation
+CREATE FUNCTION claim_service_request_token() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO service_request_tokens (token) VALUES (NEW.token);
+    RETURN NULL;
+END $$ LANGUAGE plpgsql;
+
+CREATE FUNCTION release_service_request_token() RETURNS trigger AS $$
+BEGIN
+    IF current_setting('zeromonos.moving_partitions', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    DELETE FROM service_request_tokens WHERE token = OLD.token;
+    RETURN NULL;
+END $$ LANGUAGE plpgsql;
+
+-- Creates the partition of the month containing the given day unless it exists, first moving
+-- that month's bookings out of the default partition (which may not overlap a new partition).
+-- Returns whether it created one. Callers are serialized on an advisory lock held until their
+-- transaction ends, so instances starting together don't both find a month missing and both
+-- create it.
+CREATE OR REPLACE FUNCTION create_service_requests_partition(for_month date) RETURNS boolean AS $$
+DECLARE
+    first_day date := date_trunc('month', for_month)::date;
+    next_month date := (date_trunc('month', for_month) + interval '1 month')::date;
+    partition_name text := 'service_requests_' || to_char(first_day, 'YYYY_MM');
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('service_requests_partitions'));
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE service_requests INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    -- Holds off inserts into the default partition until the transaction ends: a booking for
+    -- this month inserted after the move would make the ATTACH below fail
+    LOCK TABLE service_requests_default IN SHARE ROW EXCLUSIVE MODE;
+    PERFORM set_config('zeromonos.moving_partitions', 'on', true);
+    EXECUTE format('WITH moved AS (DELETE FROM service_requests_default '
+                   'WHERE time_slot >= %L AND time_slot < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', first_day, next_month, partition_name);
+    PERFORM set_config('zeromonos.moving_partitions', 'off', true);
+    -- Creates the parent's indexes and triggers on the new partition
+    EXECUTE format('ALTER TABLE service_requests ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, first_day, next_month);
+    RETURN true;
+END $$ LANGUAGE plpgsql;
+
+-- Creates every missing monthly partition from from_month to to_month, both included.
+-- Returns how many it created.
+CREATE OR REPLACE FUNCTION create_service_requests_partitions(from_month date, to_month date) RETURNS integer AS $$
+DECLARE
+    next_partition date := date_trunc('month', from_month)::date;
+    created integer := 0;
+BEGIN
+    WHILE next_partition <= to_month LOOP
+        IF create_service_requests_partition(next_partition) THEN
+            created := created + 1;
+        END IF;
+        next_partition := (next_partition + interval '1 month')::date;
+    END LOOP;
+    RETURN created;
+END $$ LANGUAGE plpgsql;
+
+-- Months with bookings, up to two years back (older ones stay in the default partition until
+-- archived), through a year ahead
+SELECT create_service_requests_partitions(
+    greatest(coalesce(min(time_slot), localtimestamp), localtimestamp - interval '24 months')::date,
+    (localtimestamp + interval '12 months')::date)
+FROM service_requests_unpartitioned;
+
+INSERT INTO service_requests (token, municipality, address, time_slot, item_description, state, date,
+                              version, last_modified)
+SELECT token, municipality, address, time_slot, item_description, state, date, version, last_modified
+FROM service_requests_unpartitioned;
+
+DROP TABLE service_requests_unpartitioned;
+
+INSERT INTO service_request_tokens (token) SELECT token FROM service_requests;
+
+-- Same indexes as before, now one per partition
+CREATE INDEX idx_service_requests_state_time_slot
+    ON service_requests (state, time_slot);
+CREATE INDEX idx_service_requests_municipality_state
+    ON service_requests (municipality, state);
+CREATE INDEX idx_service_requests_time_slot_token
+    ON service_requests (time_slot, token);
+CREATE INDEX idx_service_requests_municipality_time_slot
+    ON service_requests (municipality, time_slot);
+
+-- Row triggers on the parent apply to every partition, present and future. An update moving a
+-- booking to another month runs as a delete plus an insert and fires the delete and insert
+-- triggers rather than the update one: its place is still given back exactly once, and its
+-- token is released and claimed again.
+CREATE TRIGGER service_requests_release_slot_on_delete
+    AFTER DELETE ON service_requests
+    FOR EACH ROW EXECUTE FUNCTION release_slot_reservation();
+
+CREATE TRIGGER service_requests_release_slot_on_move
+    AFTER UPDATE OF municipality, time_slot ON service_requests
+    FOR EACH ROW
+    WHEN (OLD.municipality IS DISTINCT FROM NEW.municipality OR OLD.time_slot IS DISTINCT FROM NEW.time_slot)
+    EXECUTE FUNCTION release_slot_reservation();
+
+CREATE TRIGGER service_requests_claim_token_on_insert
+    AFTER INSERT ON service_requests
+    FOR EACH ROW EXECUTE FUNCTION claim_service_request_token();
+
+CREATE TRIGGER service_requests_release_token_on_delete
+    AFTER DELETE ON service_requests
+    FOR EACH ROW EXECUTE FUNCTION release_service_request_token();
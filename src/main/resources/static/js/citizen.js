@@ -111,23 +111,9 @@ async function loadAvailableTimeSlots(date) {
     slotsList.innerHTML = '<div class="col-span-3 text-center text-gray-500">Loading slots...</div>';
     
     try {
-        // Fetch all bookings for this municipality
-        const response = await fetch(`${API_BASE_URL}/bookings/municipality/${currentMunicipality}`);
-        
-        if (!response.ok) {
-            throw new Error(`HTTP error! status: ${response.status}`);
-        }
-        
-        const bookings = await response.json();
-        
-        // Filter bookings for the selected date
-        const selectedDate = new Date(date);
-        bookedSlots = bookings
-            .filter(booking => {
-                const bookingDate = new Date(booking.timeSlot);
-                return bookingDate.toDateString() === selectedDate.toDateString();
-            })
-            .map(booking => new Date(booking.timeSlot).getHours());
+        // Fetch the booked slots of this municipality for the selected date
+        const availability = await fetchAvailability(currentMunicipality, date);
+        bookedSlots = availability.booked.map(time => parseInt(time.substring(0, 2)));
         
         logger.success('Booked slots loaded', { bookedSlots });
         
@@ -140,6 +126,17 @@ async function loadAvailableTimeSlots(date) {
     }
 }
 
+// Fetch the booked time slots of a municipality for a given date (YYYY-MM-DD)
+async function fetchAvailability(municipality, date) {
+    const response = await fetch(`${API_BASE_URL}/municipalities/${encodeURIComponent(municipality)}/availability?date=${date}`);
+    
+    if (!response.ok) {
+        throw new Error(`HTTP error! status: ${response.status}`);
+    }
+    
+    return response.json();
+}
+
 // Display time slots
 function displayTimeSlots(date) {
     const slotsList = document.getElementById('timeSlotsList');
@@ -349,7 +346,8 @@ async function lookupToken() {
     showLoading();
     
     try {
-        const response = await fetch(`${API_BASE_URL}/bookings/${token}`);
+        // Revalidate with the booking's ETag: an unchanged booking comes back as a bodiless 304
+        const response = await fetch(`${API_BASE_URL}/bookings/${token}`, { cache: 'no-cache' });
         
         if (response.status === 404) {
             logger.error('Token not found', { token });
@@ -502,49 +500,36 @@ async function loadEditTimeSlots(selectedDate) {
     logger.info('Loading time slots for edit', { date: selectedDate, municipality: currentMunicipality });
     
     try {
-        // Fetch bookings for selected municipality
-        const response = await fetch(`${API_BASE_URL}/bookings/municipality/${encodeURIComponent(currentMunicipality)}`);
-        
-        if (!response.ok) {
-            throw new Error(`HTTP error! status: ${response.status}`);
-        }
-        
-        const bookings = await response.json();
-        
-        // Filter bookings for selected date
-        bookedSlots = bookings
-            .filter(booking => {
-                const bookingDate = new Date(booking.timeSlot).toISOString().split('T')[0];
-                return bookingDate === selectedDate && booking.token !== currentBooking.token; // Exclude current booking
-            })
-            .map(booking => {
-                const time = new Date(booking.timeSlot);
-                return `${String(time.getHours()).padStart(2, '0')}:${String(time.getMinutes()).padStart(2, '0')}`;
-            });
+        // Fetch booked slots of the selected municipality for the selected date
+        // (the current booking's own slot is kept selectable by generateEditTimeSlots)
+        const availability = await fetchAvailability(currentMunicipality, selectedDate);
+        bookedSlots = availability.booked.map(time => time.substring(0, 5));
         
         logger.info('Booked slots loaded', { count: bookedSlots.length, slots: bookedSlots });
         
         // Generate time slots
-        generateEditTimeSlots();
+        generateEditTimeSlots(selectedDate);
         
     } catch (error) {
         logger.error('Failed to load booked slots', error);
-        generateEditTimeSlots(); // Generate slots anyway
+        generateEditTimeSlots(selectedDate); // Generate slots anyway
     }
 }
 
-// Generate time slots for edit
-function generateEditTimeSlots() {
+// Generate time slots for edit on the given date (YYYY-MM-DD)
+function generateEditTimeSlots(selectedDate) {
     const timeSlotsList = document.getElementById('editTimeSlotsList');
     timeSlotsList.innerHTML = '';
+    const currentSlotTime = currentBooking ? new Date(currentBooking.timeSlot).getTime() : null;
     
     // Generate slots from 8:00 to 18:00
     for (let hour = 8; hour <= 18; hour++) {
         for (let minute = 0; minute < 60; minute += 30) {
             const timeString = `${String(hour).padStart(2, '0')}:${String(minute).padStart(2, '0')}`;
             const isBooked = bookedSlots.includes(timeString);
-            const isCurrentSlot = currentBooking && 
-                new Date(currentBooking.timeSlot).toTimeString().substring(0, 5) === timeString;
+            // Only the booking's own slot on its own day, not the same time on other days
+            const isCurrentSlot = currentSlotTime !== null &&
+                new Date(`${selectedDate}T${timeString}`).getTime() === currentSlotTime;
             
             const button = document.createElement('button');
             button.type = 'button';
@@ -631,12 +616,23 @@ async function handleEditSubmit(e) {
             method: 'PUT',
             headers: {
                 'Content-Type': 'application/json',
+                // Only apply the edit to the version of the booking being shown
+                'If-Match': `"${currentBooking.version}"`
             },
             body: JSON.stringify(updatedRequest)
         });
         
         const responseText = await response.text();
         
+        if (response.status === 412) {
+            logger.error('Booking changed since it was loaded', { token: currentBooking.token });
+            hideLoading();
+            closeEditModal();
+            showError('This booking was changed in the meantime. Please review it and try again.');
+            lookupByToken(currentBooking.token);
+            return;
+        }
+        
         if (!response.ok) {
             logger.error('Update failed', { status: response.status, message: responseText });
             throw new Error(responseText || 'Failed to update request');
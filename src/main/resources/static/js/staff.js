@@ -15,15 +15,24 @@ const logger = {
 };
 
 // Global state
+const PAGE_SIZE = 100;
+// Columns the table needs; the server selects just these instead of whole bookings
+const LIST_FIELDS = 'token,municipality,address,timeSlot,state,version';
 let allRequests = [];
+let nextCursor = null; // Continuation cursor of the last loaded page
 let currentRequest = null;
 let deleteToken = null; // For staff delete functionality
+const selectedTokens = new Set(); // Requests ticked for a bulk state change
+let eventSource = null; // Live booking change stream
+let streamConnectedBefore = false;
+let statisticsTimer = null;
 
 // Initialize the page
 document.addEventListener('DOMContentLoaded', () => {
     logger.info('Staff portal page loaded');
     loadMunicipalities();
     loadAllRequests();
+    connectEventStream();
 });
 
 // Load municipalities for filter
@@ -54,23 +63,56 @@ async function loadMunicipalities() {
     }
 }
 
-// Load all requests
+// Build the query string for the current server-side filters
+function buildFilterQuery() {
+    const params = new URLSearchParams({ limit: PAGE_SIZE, fields: LIST_FIELDS });
+    const municipalityFilter = document.getElementById('filterMunicipality').value;
+    const statusFilter = document.getElementById('filterStatus').value;
+    
+    if (municipalityFilter) {
+        params.set('municipality', municipalityFilter);
+    }
+    
+    if (statusFilter) {
+        params.set('state', statusFilter);
+    }
+    
+    return params;
+}
+
+// Fetch one page of requests, continuing after the given cursor
+async function fetchRequestsPage(cursor) {
+    const params = buildFilterQuery();
+    if (cursor) {
+        params.set('cursor', cursor);
+    }
+    
+    const response = await fetch(`${API_BASE_URL}/bookings?${params}`);
+    
+    if (!response.ok) {
+        throw new Error(`HTTP error! status: ${response.status}`);
+    }
+    
+    return {
+        items: await response.json(),
+        nextCursor: response.headers.get('X-Next-Cursor')
+    };
+}
+
+// Load the first page of requests
 async function loadAllRequests() {
-    logger.info('Loading all requests');
+    logger.info('Loading requests');
     showLoading();
     
     try {
-        const response = await fetch(`${API_BASE_URL}/bookings`);
-        
-        if (!response.ok) {
-            throw new Error(`HTTP error! status: ${response.status}`);
-        }
-        
-        allRequests = await response.json();
-        logger.success('All requests loaded', { count: allRequests.length });
+        const page = await fetchRequestsPage(null);
+        allRequests = page.items;
+        nextCursor = page.nextCursor;
+        selectedTokens.clear();
+        logger.success('Requests loaded', { count: allRequests.length, hasMore: nextCursor !== null });
         
         displayRequests(allRequests);
-        updateStatistics(allRequests);
+        updateStatistics();
         
     } catch (error) {
         logger.error('Failed to load requests', error);
@@ -78,6 +120,124 @@ async function loadAllRequests() {
     }
 }
 
+// Load the next page of requests and append it to the table
+async function loadMoreRequests() {
+    if (!nextCursor) {
+        return;
+    }
+    
+    logger.info('Loading more requests');
+    
+    try {
+        const page = await fetchRequestsPage(nextCursor);
+        allRequests = allRequests.concat(page.items);
+        nextCursor = page.nextCursor;
+        logger.success('More requests loaded', { count: page.items.length, hasMore: nextCursor !== null });
+        
+        displayRequests(allRequests);
+        
+    } catch (error) {
+        logger.error('Failed to load more requests', error);
+    }
+}
+
+// Subscribe to live booking changes instead of reloading the whole table
+function connectEventStream() {
+    if (!window.EventSource) {
+        logger.info('EventSource not supported, live updates disabled');
+        return;
+    }
+    
+    eventSource = new EventSource(`${API_BASE_URL}/bookings/events`);
+    
+    eventSource.addEventListener('open', () => {
+        // Changes made while disconnected were missed, so start over from the server
+        if (streamConnectedBefore) {
+            logger.info('Event stream reconnected, reloading requests');
+            loadAllRequests();
+        }
+        streamConnectedBefore = true;
+    });
+    
+    eventSource.addEventListener('booking', (message) => {
+        applyBookingEvent(JSON.parse(message.data));
+    });
+    
+    eventSource.addEventListener('resync', () => {
+        logger.info('Event stream fell behind, reloading requests');
+        loadAllRequests();
+    });
+    
+    eventSource.addEventListener('error', () => {
+        logger.error('Event stream interrupted, the browser will reconnect');
+    });
+}
+
+// Whether a request belongs in the table under the current filters
+function matchesFilters(request) {
+    const municipalityFilter = document.getElementById('filterMunicipality').value;
+    const statusFilter = document.getElementById('filterStatus').value;
+    return (!municipalityFilter || request.municipality === municipalityFilter)
+        && (!statusFilter || request.state === statusFilter);
+}
+
+// Apply one booking change to the loaded rows
+function applyBookingEvent(event) {
+    logger.info('Booking event received', { type: event.type, token: event.token });
+    
+    const index = allRequests.findIndex(r => r.token === event.token);
+    let updated = index >= 0 ? { ...allRequests[index] } : null;
+    
+    if (event.type === 'CREATED' || event.type === 'UPDATED') {
+        updated = event.booking;
+    } else if (event.type === 'STATE_CHANGED' && updated) {
+        updated.state = event.state;
+        updated.version = event.version;
+    } else if (event.type === 'DELETED') {
+        updated = null;
+    }
+    
+    if (index >= 0) {
+        allRequests.splice(index, 1);
+    }
+    if (updated && matchesFilters(updated) && isWithinLoadedPages(updated)) {
+        allRequests.push(updated);
+        allRequests.sort(compareRequests);
+    } else {
+        selectedTokens.delete(event.token);
+    }
+    
+    displayRequests(allRequests);
+    scheduleStatisticsUpdate();
+}
+
+// Rows past the last loaded page arrive with "Load more" instead
+function isWithinLoadedPages(request) {
+    if (!nextCursor || allRequests.length === 0) {
+        return true;
+    }
+    return compareRequests(request, allRequests[allRequests.length - 1]) <= 0;
+}
+
+// Same (timeSlot, token) order as the server's pages
+function compareRequests(a, b) {
+    if (a.timeSlot !== b.timeSlot) {
+        return a.timeSlot < b.timeSlot ? -1 : 1;
+    }
+    return a.token < b.token ? -1 : a.token > b.token ? 1 : 0;
+}
+
+// Coalesce bursts of events into one statistics refresh
+function scheduleStatisticsUpdate() {
+    if (statisticsTimer) {
+        return;
+    }
+    statisticsTimer = setTimeout(() => {
+        statisticsTimer = null;
+        updateStatistics();
+    }, 1000);
+}
+
 // Display requests in table
 function displayRequests(requests) {
     logger.info('Displaying requests', { count: requests.length });
@@ -106,6 +266,9 @@ function displayRequests(requests) {
         const row = createRequestRow(request);
         tableBody.appendChild(row);
     });
+    
+    document.getElementById('loadMoreContainer').classList.toggle('hidden', !nextCursor);
+    updateSelectionBar();
 }
 
 // Create a table row for a request
@@ -117,6 +280,10 @@ function createRequestRow(request) {
     const formattedDate = formatDateTime(request.timeSlot);
     
     row.innerHTML = `
+        <td class="pl-6 py-4">
+            <input type="checkbox" onchange="toggleSelection('${request.token}', this.checked)"
+                ${selectedTokens.has(request.token) ? 'checked' : ''}>
+        </td>
         <td class="px-6 py-4 whitespace-nowrap">
             <span class="text-xs font-mono text-gray-600">${request.token.substring(0, 8)}...</span>
         </td>
@@ -154,6 +321,76 @@ function createRequestRow(request) {
     return row;
 }
 
+// Tick or untick one request for a bulk state change
+function toggleSelection(token, selected) {
+    if (selected) {
+        selectedTokens.add(token);
+    } else {
+        selectedTokens.delete(token);
+    }
+    updateSelectionBar();
+}
+
+// Tick or untick every loaded request
+function toggleSelectAll(selected) {
+    selectedTokens.clear();
+    if (selected) {
+        allRequests.forEach(request => selectedTokens.add(request.token));
+    }
+    displayRequests(allRequests);
+}
+
+// Untick everything
+function clearSelection() {
+    toggleSelectAll(false);
+}
+
+// Show the bulk action bar while something is selected
+function updateSelectionBar() {
+    document.getElementById('selectedCount').textContent = selectedTokens.size;
+    document.getElementById('bulkActionBar').classList.toggle('hidden', selectedTokens.size === 0);
+    document.getElementById('selectAllRequests').checked =
+        allRequests.length > 0 && selectedTokens.size === allRequests.length;
+}
+
+// Move every selected request to the chosen status in one request
+async function applyBulkTransition() {
+    if (selectedTokens.size === 0) {
+        return;
+    }
+    
+    const state = document.getElementById('bulkStatus').value;
+    logger.info('Moving selected requests', { count: selectedTokens.size, state });
+    
+    try {
+        const response = await fetch(`${API_BASE_URL}/bookings/batch/state`, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json',
+            },
+            body: JSON.stringify({ tokens: [...selectedTokens], state })
+        });
+        
+        if (!response.ok) {
+            throw new Error(`HTTP error! status: ${response.status}`);
+        }
+        
+        const result = await response.json();
+        logger.success('Selected requests moved', { moved: result.moved.length, skipped: result.skipped.length });
+        
+        if (result.skipped.length > 0) {
+            alert(`${result.moved.length} request(s) moved. ${result.skipped.length} request(s) could not move to ${state} from their current status.`);
+        }
+        
+        loadAllRequests();
+        updateStatistics();
+        
+    } catch (error) {
+        logger.error('Failed to move selected requests', error);
+        alert('Failed to update requests: ' + error.message);
+    }
+}
+
 // Get status badge HTML
 function getStatusBadge(status) {
     const badges = {
@@ -178,40 +415,36 @@ function formatDateTime(dateTimeString) {
     });
 }
 
-// Update statistics
-function updateStatistics(requests) {
-    logger.info('Updating statistics', { count: requests.length });
-    
-    const total = requests.length;
-    const assigned = requests.filter(r => r.state === 'ASSIGNED').length;
-    const inProgress = requests.filter(r => r.state === 'IN_PROGRESS').length;
-    const completed = requests.filter(r => r.state === 'COMPLETED').length;
+// Update statistics from the server-side counters
+async function updateStatistics() {
+    logger.info('Updating statistics');
     
-    document.getElementById('totalRequests').textContent = total;
-    document.getElementById('pendingRequests').textContent = assigned;
-    document.getElementById('inProgressRequests').textContent = inProgress;
-    document.getElementById('completedRequests').textContent = completed;
+    try {
+        const response = await fetch(`${API_BASE_URL}/bookings/stats`);
+        
+        if (!response.ok) {
+            throw new Error(`HTTP error! status: ${response.status}`);
+        }
+        
+        const stats = await response.json();
+        
+        document.getElementById('totalRequests').textContent = stats.total;
+        document.getElementById('pendingRequests').textContent = stats.byState.ASSIGNED || 0;
+        document.getElementById('inProgressRequests').textContent = stats.byState.IN_PROGRESS || 0;
+        document.getElementById('completedRequests').textContent = stats.byState.COMPLETED || 0;
+        
+    } catch (error) {
+        logger.error('Failed to load statistics', error);
+    }
 }
 
-// Apply filters
+// Apply filters (server-side, restarting from the first page)
 function applyFilters() {
-    const municipalityFilter = document.getElementById('filterMunicipality').value;
-    const statusFilter = document.getElementById('filterStatus').value;
-    
-    logger.info('Applying filters', { municipality: municipalityFilter, status: statusFilter });
-    
-    let filteredRequests = allRequests;
-    
-    if (municipalityFilter) {
-        filteredRequests = filteredRequests.filter(r => r.municipality === municipalityFilter);
-    }
-    
-    if (statusFilter) {
-        filteredRequests = filteredRequests.filter(r => r.state === statusFilter);
-    }
-    
-    logger.info('Filters applied', { resultCount: filteredRequests.length });
-    displayRequests(filteredRequests);
+    logger.info('Applying filters', {
+        municipality: document.getElementById('filterMunicipality').value,
+        status: document.getElementById('filterStatus').value
+    });
+    loadAllRequests();
 }
 
 // Open update status modal
@@ -269,10 +502,20 @@ async function updateStatus() {
             method: 'PUT',
             headers: {
                 'Content-Type': 'application/json',
+                // Don't overwrite another dispatcher's change made since this row was loaded
+                'If-Match': `"${currentRequest.version}"`
             },
             body: JSON.stringify(updatedRequest)
         });
         
+        if (response.status === 412) {
+            logger.error('Request changed by someone else', { token: currentRequest.token });
+            alert('This request was changed by someone else. The list has been refreshed, please try again.');
+            closeModal();
+            loadAllRequests();
+            return;
+        }
+        
         if (!response.ok) {
             const errorText = await response.text();
             throw new Error(errorText || 'Failed to update status');
@@ -289,14 +532,19 @@ async function updateStatus() {
     }
 }
 
-// Open details modal
-function openDetailsModal(token) {
+// Open details modal; rows only hold the listed columns, so fetch the full booking
+async function openDetailsModal(token) {
     logger.info('Opening details modal', { token });
     
-    const request = allRequests.find(r => r.token === token);
-    
-    if (!request) {
-        logger.error('Request not found', { token });
+    let request;
+    try {
+        const response = await fetch(`${API_BASE_URL}/bookings/${encodeURIComponent(token)}`, { cache: 'no-cache' });
+        if (!response.ok) {
+            throw new Error(`HTTP error! status: ${response.status}`);
+        }
+        request = await response.json();
+    } catch (error) {
+        logger.error('Request not found', { token, error });
         return;
     }
     
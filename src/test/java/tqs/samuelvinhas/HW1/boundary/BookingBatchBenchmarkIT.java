@@ -0,0 +1,129 @@
+package tqs.samuelvinhas.HW1.boundary;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tqs.samuelvinhas.HW1.Hw1Application;
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+import tqs.samuelvinhas.HW1.service.BookingPatch;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Import throughput of {@code BOOKINGS} bookings sent one POST at a time versus a single
+ * POST /api/bookings/batch, and of updating them all through PATCH /api/bookings/batch.
+ * Run with {@code mvn verify -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Batch Booking Import Benchmark")
+class BookingBatchBenchmarkIT {
+
+    private static final int BOOKINGS = 10_000;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    @DisplayName("10k bookings: single POSTs vs one batch POST vs one batch PATCH")
+    void compareSingleAndBatchWrites() throws Exception {
+        try (ConfigurableApplicationContext app = start()) {
+            int port = app.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            ZeroMonosRepository repository = app.getBean(ZeroMonosRepository.class);
+            ObjectMapper mapper = app.getBean(ObjectMapper.class);
+            LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+
+            // Warm up both paths before measuring
+            repository.deleteAll();
+            sendSingle(port, mapper, bookings(start, 500));
+            repository.deleteAll();
+            send(port, "POST", mapper.writeValueAsString(bookings(start, 500)));
+
+            repository.deleteAll();
+            long singleNanos = sendSingle(port, mapper, bookings(start, BOOKINGS));
+            assertThat(repository.count()).isEqualTo(BOOKINGS);
+
+            repository.deleteAll();
+            long batchStart = System.nanoTime();
+            JsonNode created = mapper.readTree(send(port, "POST", mapper.writeValueAsString(bookings(start, BOOKINGS))));
+            long batchNanos = System.nanoTime() - batchStart;
+            assertThat(repository.count()).isEqualTo(BOOKINGS);
+
+            List<BookingPatch> patches = new ArrayList<>(BOOKINGS);
+            created.forEach(result -> patches.add(
+                new BookingPatch(result.get("token").asText(), null, null, null, REQUEST_STATE.ASSIGNED)));
+            long patchStart = System.nanoTime();
+            JsonNode updated = mapper.readTree(send(port, "PATCH", mapper.writeValueAsString(patches)));
+            long patchNanos = System.nanoTime() - patchStart;
+            assertThat(updated.findValuesAsText("status")).containsOnly("UPDATED");
+
+            System.out.println(BOOKINGS + " bookings:");
+            System.out.println(report("  single POSTs ", singleNanos));
+            System.out.println(report("  batch POST   ", batchNanos));
+            System.out.println(report("  batch PATCH  ", patchNanos));
+        }
+    }
+
+    private long sendSingle(int port, ObjectMapper mapper, List<ServiceRequest> requests) throws Exception {
+        long start = System.nanoTime();
+        for (ServiceRequest request : requests) {
+            HttpRequest post = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/bookings"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(request)))
+                .build();
+            HttpResponse<String> response = client.send(post, HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).isEqualTo(201);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private String send(int port, String method, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/bookings/batch"))
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofMinutes(5))
+            .method(method, HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response.body();
+    }
+
+    private static List<ServiceRequest> bookings(LocalDateTime start, int count) {
+        List<ServiceRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(new ServiceRequest(null, "Estremoz", "Rua " + i, start.plusMinutes(30L * i), "Item " + i));
+        }
+        return requests;
+    }
+
+    private static String report(String label, long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        return String.format("%s%8.0f ms, %,9.0f bookings/s", label, nanos / 1_000_000.0, BOOKINGS / seconds);
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(Hw1Application.class)
+            .profiles("test")
+            .properties(
+                "server.port=0",
+                "spring.jpa.show-sql=false",
+                "logging.level.tqs.samuelvinhas=WARN")
+            .run();
+    }
+}
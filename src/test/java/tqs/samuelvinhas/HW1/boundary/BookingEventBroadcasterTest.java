@@ -0,0 +1,156 @@
+package tqs.samuelvinhas.HW1.boundary;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+import tqs.samuelvinhas.HW1.service.BookingEvent;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingEventBroadcasterTest {
+
+    private static final int BUFFER_SIZE = 4;
+
+    private BookingEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new BookingEventBroadcaster(BUFFER_SIZE, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("When bookings change, then every subscriber receives the events in order")
+    void whenEventsPublished_thenEverySubscriberReceivesThemInOrder() throws Exception {
+        RecordingEmitter first = new RecordingEmitter(2);
+        RecordingEmitter second = new RecordingEmitter(2);
+        broadcaster.subscribe(first);
+        broadcaster.subscribe(second);
+
+        broadcaster.onBookingEvent(BookingEvent.deleted("token-1"));
+        broadcaster.onBookingEvent(BookingEvent.stateChanged("token-2", REQUEST_STATE.ASSIGNED, 1));
+
+        assertTrue(first.received.await(2, TimeUnit.SECONDS));
+        assertTrue(second.received.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("booking:DELETED:token-1", "booking:STATE_CHANGED:token-2"), first.events);
+        assertEquals(first.events, second.events);
+        assertEquals(2, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    @DisplayName("When a subscriber falls behind its buffer, then its backlog is dropped for a single resync")
+    void whenSubscriberOverflows_thenBacklogReplacedByResync() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter(2);
+        slow.blockFirstSend();
+        broadcaster.subscribe(slow);
+
+        broadcaster.onBookingEvent(BookingEvent.deleted("token-0"));
+        assertTrue(slow.sending.await(2, TimeUnit.SECONDS));
+        for (int i = 1; i <= BUFFER_SIZE + 1; i++) {
+            broadcaster.onBookingEvent(BookingEvent.deleted("token-" + i));
+        }
+        slow.unblock.countDown();
+
+        assertTrue(slow.received.await(2, TimeUnit.SECONDS));
+        assertEquals("booking:DELETED:token-0", slow.events.get(0));
+        assertTrue(slow.events.get(1).startsWith(BookingEventBroadcaster.RESYNC), slow.events.get(1));
+        assertEquals(2, slow.events.size());
+        assertEquals(BUFFER_SIZE + 1, broadcaster.getDroppedEvents());
+    }
+
+    @Test
+    @DisplayName("When bookings are archived, then every subscriber is told to resync")
+    void whenBookingsArchived_thenEverySubscriberResyncs() throws Exception {
+        RecordingEmitter first = new RecordingEmitter(1);
+        RecordingEmitter second = new RecordingEmitter(1);
+        broadcaster.subscribe(first);
+        broadcaster.subscribe(second);
+
+        broadcaster.onBookingEvent(BookingEvent.archived());
+
+        assertTrue(first.received.await(2, TimeUnit.SECONDS));
+        assertTrue(second.received.await(2, TimeUnit.SECONDS));
+        assertTrue(first.events.get(0).startsWith(BookingEventBroadcaster.RESYNC), first.events.get(0));
+        assertEquals(first.events, second.events);
+        assertEquals(0, broadcaster.getDroppedEvents());
+    }
+
+    @Test
+    @DisplayName("When a subscriber disconnects, then it is removed")
+    void whenSendFails_thenSubscriberRemoved() throws Exception {
+        RecordingEmitter gone = new RecordingEmitter(1);
+        gone.failSends();
+        broadcaster.subscribe(gone);
+
+        broadcaster.onBookingEvent(BookingEvent.deleted("token-1"));
+
+        assertTrue(gone.received.await(2, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (broadcaster.getSubscriberCount() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    /** Records each event as "name:type:token" (or "name:data") instead of writing to a response. */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch received;
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        private boolean blockFirst;
+        private boolean fail;
+
+        RecordingEmitter(int expectedEvents) {
+            this.received = new CountDownLatch(expectedEvents);
+        }
+
+        void blockFirstSend() {
+            blockFirst = true;
+        }
+
+        void failSends() {
+            fail = true;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            if (blockFirst) {
+                blockFirst = false;
+                try {
+                    unblock.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String text = builder.build().stream()
+                .map(part -> part.getData() instanceof BookingEvent event
+                    ? event.type() + ":" + event.token()
+                    : String.valueOf(part.getData()))
+                .collect(Collectors.joining());
+            String name = text.lines().filter(line -> line.startsWith("event:")).findFirst()
+                .map(line -> line.substring("event:".length())).orElse("");
+            if (name.isEmpty()) {
+                return; // heartbeat comment
+            }
+            String data = text.replaceAll("(?s).*data:", "").strip();
+            events.add(name + ":" + data);
+            received.countDown();
+            if (fail) {
+                throw new IOException("Broken pipe");
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package tqs.samuelvinhas.HW1.boundary;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Closed-loop HTTP load generator for benchmarks: each simulated client runs on its own
+ * virtual thread and sends its requests back to back, all clients starting together.
+ */
+final class LoadGenerator {
+
+    record Result(int clients, int requests, long errors, Duration elapsed, Duration p50, Duration p99) {
+
+        double throughput() {
+            return requests / (elapsed.toNanos() / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,6d clients: %,8.0f req/s, p50 %6.1f ms, p99 %7.1f ms, %d errors",
+                clients, throughput(), p50.toNanos() / 1_000_000.0, p99.toNanos() / 1_000_000.0, errors);
+        }
+    }
+
+    private final HttpClient client;
+
+    LoadGenerator(Duration requestTimeout) {
+        this.client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(requestTimeout)
+            .build();
+    }
+
+    /**
+     * Runs {@code clients} concurrent clients, each sending {@code requestsPerClient} requests
+     * built by {@code requests} (called with a global request index). Non-2xx responses and
+     * I/O failures count as errors; their latency is still recorded.
+     */
+    Result run(int clients, int requestsPerClient, IntFunction<HttpRequest> requests) throws Exception {
+        int total = clients * requestsPerClient;
+        long[] latencies = new long[total];
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(clients);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int first = c * requestsPerClient;
+                futures.add(executor.submit(() -> {
+                    startSignal.await();
+                    for (int i = first; i < first + requestsPerClient; i++) {
+                        long begin = System.nanoTime();
+                        try {
+                            int status = client.send(requests.apply(i), HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status >= 300) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (java.io.IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            startSignal.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - begin);
+
+            Arrays.sort(latencies);
+            return new Result(clients, total, errors.get(), elapsed,
+                Duration.ofNanos(percentile(latencies, 0.50)), Duration.ofNanos(percentile(latencies, 0.99)));
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.clamp(index, 0, sorted.length - 1)];
+    }
+}
@@ -0,0 +1,101 @@
+package tqs.samuelvinhas.HW1.boundary;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import tqs.samuelvinhas.HW1.Hw1Application;
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and p99 latency of GET /api/bookings/{token} with Tomcat on platform threads
+ * versus the {@code virtual} profile. Each mode gets a fresh application context.
+ * Run with {@code mvn verify -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Platform vs Virtual Thread Benchmark")
+class ThreadModelBenchmarkIT {
+
+    private static final int[] CLIENTS = {1_000, 5_000, 10_000};
+    private static final int REQUESTS_PER_CLIENT = 5;
+    private static final int BOOKINGS = 500;
+
+    @Test
+    @DisplayName("Booking lookups under 1k/5k/10k concurrent clients, platform vs virtual threads")
+    void compareThreadModels() throws Exception {
+        Map<String, List<LoadGenerator.Result>> results = new LinkedHashMap<>();
+        results.put("platform", runAll("test"));
+        results.put("virtual", runAll("test", "virtual"));
+
+        System.out.println("GET /api/bookings/{token}, " + REQUESTS_PER_CLIENT + " requests per client:");
+        results.forEach((mode, modeResults) -> {
+            System.out.println("  " + mode + " threads");
+            modeResults.forEach(result -> System.out.println("    " + result));
+        });
+
+        results.values().forEach(modeResults -> assertThat(modeResults).hasSize(CLIENTS.length));
+    }
+
+    private List<LoadGenerator.Result> runAll(String... profiles) throws Exception {
+        try (ConfigurableApplicationContext app = start(profiles)) {
+            int port = app.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            List<String> tokens = seed(app.getBean(ZeroMonosRepository.class));
+            LoadGenerator load = new LoadGenerator(Duration.ofSeconds(30));
+
+            // Warm up JIT, connection pools and caches before measuring
+            load.run(200, REQUESTS_PER_CLIENT, i -> lookup(port, tokens.get(i % tokens.size())));
+
+            List<LoadGenerator.Result> results = new ArrayList<>();
+            for (int clients : CLIENTS) {
+                results.add(load.run(clients, REQUESTS_PER_CLIENT, i -> lookup(port, tokens.get(i % tokens.size()))));
+            }
+            return results;
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String... profiles) {
+        return new SpringApplicationBuilder(Hw1Application.class)
+            .profiles(profiles)
+            .properties(
+                "server.port=0",
+                "spring.jpa.show-sql=false",
+                "logging.level.tqs.samuelvinhas=WARN",
+                "server.tomcat.max-connections=12000",
+                "server.tomcat.accept-count=2000")
+            .run();
+    }
+
+    private static List<String> seed(ZeroMonosRepository repository) {
+        repository.deleteAll();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        List<ServiceRequest> requests = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            requests.add(new ServiceRequest(UUID.randomUUID().toString(), "Estremoz", "Rua " + i,
+                start.plusMinutes(30L * i), "Item " + i));
+        }
+        return repository.saveAll(requests).stream().map(ServiceRequest::getToken).toList();
+    }
+
+    private static HttpRequest lookup(int port, String token) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/bookings/" + token))
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+    }
+}
@@ -11,19 +11,34 @@ import org.springframework.test.context.TestPropertySource;
 import tqs.samuelvinhas.HW1.data.ServiceRequest;
 import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
 import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+import tqs.samuelvinhas.HW1.service.BookingArchiveService;
+import tqs.samuelvinhas.HW1.service.BookingPatch;
+import tqs.samuelvinhas.HW1.service.BookingTokens;
+import tqs.samuelvinhas.HW1.service.StateTransitionRequest;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Full-stack integration test using REST-Assured
  * Tests the complete API with real HTTP calls and database
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
-@TestPropertySource(locations = "classpath:application-test.properties")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "zeromonos.capacity.municipalities.Sousel=2")
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 @DisplayName("ZeroMonos API Full-Stack Integration Tests")
 class ZeroMonosApiIT {
@@ -34,6 +49,9 @@ class ZeroMonosApiIT {
     @Autowired
     private ZeroMonosRepository repository;
 
+    @Autowired
+    private BookingArchiveService archiveService;
+
     @BeforeEach
     void setUp() {
         RestAssured.port = port;
@@ -152,6 +170,37 @@ class ZeroMonosApiIT {
             .statusCode(404);
     }
 
+    @Test
+    @Order(5)
+    @DisplayName("GET /api/bookings/{token} with the current ETag returns 304 without a body")
+    void whenGetBookingWithCurrentEtag_thenStatus304() {
+        String token = given()
+            .contentType(ContentType.JSON)
+            .body(createValidRequest())
+            .post("/api/bookings")
+            .then().statusCode(201)
+            .extract().asString();
+
+        String etag = given()
+            .pathParam("token", token)
+        .when()
+            .get("/api/bookings/{token}")
+        .then()
+            .statusCode(200)
+            .header("ETag", equalTo("\"0\""))
+            .header("Last-Modified", notNullValue())
+            .extract().header("ETag");
+
+        given()
+            .pathParam("token", token)
+            .header("If-None-Match", etag)
+        .when()
+            .get("/api/bookings/{token}")
+        .then()
+            .statusCode(304)
+            .body(emptyString());
+    }
+
     // ============ GET /api/bookings ============
 
     @Test
@@ -191,6 +240,146 @@ class ZeroMonosApiIT {
             .body("$", hasSize(0));
     }
 
+    @Test
+    @Order(7)
+    @DisplayName("GET /api/bookings pages through bookings with a continuation cursor")
+    void whenGetBookingsWithLimit_thenPageWithCursor() {
+        for (int day = 1; day <= 3; day++) {
+            ServiceRequest request = createValidRequest();
+            request.setTimeSlot(LocalDateTime.now().plusDays(day));
+            given().contentType(ContentType.JSON).body(request).post("/api/bookings").then().statusCode(201);
+        }
+
+        String cursor = given()
+            .queryParam("limit", 2)
+        .when()
+            .get("/api/bookings")
+        .then()
+            .statusCode(200)
+            .body("$", hasSize(2))
+            .header("X-Next-Cursor", not(emptyOrNullString()))
+            .extract()
+            .header("X-Next-Cursor");
+
+        given()
+            .queryParam("limit", 2)
+            .queryParam("cursor", cursor)
+        .when()
+            .get("/api/bookings")
+        .then()
+            .statusCode(200)
+            .body("$", hasSize(1))
+            .header("X-Next-Cursor", nullValue());
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("GET /api/bookings filters by state and municipality on the server")
+    void whenGetBookingsWithFilters_thenOnlyMatchingReturned() {
+        ServiceRequest estremozRequest = createValidRequest();
+        String token = given().contentType(ContentType.JSON).body(estremozRequest).post("/api/bookings")
+            .then().statusCode(201).extract().asString();
+        estremozRequest.setState(REQUEST_STATE.ASSIGNED);
+        given().pathParam("token", token).contentType(ContentType.JSON).body(estremozRequest)
+            .put("/api/bookings/{token}").then().statusCode(200);
+
+        ServiceRequest aveiroRequest = createValidRequest();
+        aveiroRequest.setMunicipality("Aveiro");
+        given().contentType(ContentType.JSON).body(aveiroRequest).post("/api/bookings").then().statusCode(201);
+
+        given()
+            .queryParam("state", "ASSIGNED")
+            .queryParam("municipality", "Estremoz")
+        .when()
+            .get("/api/bookings")
+        .then()
+            .statusCode(200)
+            .body("$", hasSize(1))
+            .body("[0].token", equalTo(token));
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("GET /api/bookings with fields returns only those fields and keeps paging")
+    void whenGetBookingsWithFields_thenOnlySelectedFieldsReturned() {
+        for (int day = 1; day <= 3; day++) {
+            ServiceRequest request = createValidRequest();
+            request.setTimeSlot(LocalDateTime.now().plusDays(day));
+            given().contentType(ContentType.JSON).body(request).post("/api/bookings").then().statusCode(201);
+        }
+
+        given()
+            .queryParam("limit", 2)
+            .queryParam("fields", "token,state,timeSlot")
+        .when()
+            .get("/api/bookings")
+        .then()
+            .statusCode(200)
+            .body("$", hasSize(2))
+            .body("[0].keySet()", containsInAnyOrder("token", "state", "timeSlot"))
+            .header("X-Next-Cursor", not(emptyOrNullString()));
+
+        given()
+            .queryParam("fields", "token,itemDescription")
+        .when()
+            .get("/api/bookings")
+        .then()
+            .statusCode(400);
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("GET /api/bookings with a malformed cursor returns 400")
+    void whenGetBookingsWithMalformedCursor_thenStatus400() {
+        given()
+            .queryParam("cursor", "not a cursor")
+        .when()
+            .get("/api/bookings")
+        .then()
+            .statusCode(400);
+    }
+
+    // ============ GET /api/bookings/stats ============
+
+    @Test
+    @Order(7)
+    @DisplayName("GET /api/bookings/stats follows creates, updates and deletes")
+    void whenBookingsChange_thenStatsFollow() {
+        int receivedBefore = given().get("/api/bookings/stats").then().statusCode(200)
+            .extract().path("byState.RECEIVED");
+        int completedBefore = given().get("/api/bookings/stats").then().statusCode(200)
+            .extract().path("byState.COMPLETED");
+
+        ServiceRequest request = createValidRequest();
+        request.setMunicipality("Alandroal");
+        String token = given().contentType(ContentType.JSON).body(request).post("/api/bookings")
+            .then().statusCode(201).extract().asString();
+
+        given()
+            .get("/api/bookings/stats")
+        .then()
+            .statusCode(200)
+            .body("byState.RECEIVED", equalTo(receivedBefore + 1))
+            .body("byMunicipality.Alandroal", greaterThanOrEqualTo(1));
+
+        request.setState(REQUEST_STATE.COMPLETED);
+        given().pathParam("token", token).contentType(ContentType.JSON).body(request)
+            .put("/api/bookings/{token}").then().statusCode(200);
+
+        given()
+            .get("/api/bookings/stats")
+        .then()
+            .body("byState.RECEIVED", equalTo(receivedBefore))
+            .body("byState.COMPLETED", equalTo(completedBefore + 1));
+
+        given().pathParam("token", token).delete("/api/bookings/{token}").then().statusCode(204);
+
+        given()
+            .get("/api/bookings/stats")
+        .then()
+            .body("byState.COMPLETED", equalTo(completedBefore));
+    }
+
     // ============ GET /api/bookings/municipality/{municipality} ============
 
     @Test
@@ -310,6 +499,62 @@ class ZeroMonosApiIT {
             .body(containsString("Time slot already booked"));
     }
 
+    @Test
+    @Order(11)
+    @DisplayName("PUT /api/bookings/{token} with a stale If-Match returns 412 and keeps the booking, one listing the current version succeeds")
+    void whenUpdateBookingWithStaleIfMatch_thenStatus412() {
+        ServiceRequest request = createValidRequest();
+        String token = given()
+            .contentType(ContentType.JSON)
+            .body(request)
+            .post("/api/bookings")
+            .then().statusCode(201)
+            .extract().asString();
+
+        request.setState(REQUEST_STATE.ASSIGNED);
+        given()
+            .pathParam("token", token)
+            .header("If-Match", "\"0\"")
+            .contentType(ContentType.JSON)
+            .body(request)
+        .when()
+            .put("/api/bookings/{token}")
+        .then()
+            .statusCode(200);
+
+        // A second editor still holding version 0 must not overwrite the first edit
+        request.setState(REQUEST_STATE.CANCELLED);
+        given()
+            .pathParam("token", token)
+            .header("If-Match", "\"0\"")
+            .contentType(ContentType.JSON)
+            .body(request)
+        .when()
+            .put("/api/bookings/{token}")
+        .then()
+            .statusCode(412);
+
+        given()
+            .pathParam("token", token)
+        .when()
+            .get("/api/bookings/{token}")
+        .then()
+            .statusCode(200)
+            .header("ETag", equalTo("\"1\""))
+            .body("state", equalTo("ASSIGNED"));
+
+        // A list of tags matches when any of them is the current version
+        given()
+            .pathParam("token", token)
+            .header("If-Match", "\"0\", \"1\"")
+            .contentType(ContentType.JSON)
+            .body(request)
+        .when()
+            .put("/api/bookings/{token}")
+        .then()
+            .statusCode(200);
+    }
+
     @Test
     @Order(12)
     @DisplayName("PUT /api/bookings/{token} with invalid token returns 400")
@@ -371,6 +616,187 @@ class ZeroMonosApiIT {
             .statusCode(404);
     }
 
+    @Test
+    @Order(14)
+    @DisplayName("GET /api/bookings/export streams one NDJSON line per booking")
+    void whenExportNdjson_thenOneLinePerBooking() {
+        ServiceRequest request1 = createValidRequest();
+        ServiceRequest request2 = createValidRequest();
+        request2.setTimeSlot(LocalDateTime.now().plusDays(2));
+        given().contentType(ContentType.JSON).body(request1).post("/api/bookings").then().statusCode(201);
+        given().contentType(ContentType.JSON).body(request2).post("/api/bookings").then().statusCode(201);
+
+        String body = given()
+        .when()
+            .get("/api/bookings/export")
+        .then()
+            .statusCode(200)
+            .contentType(containsString("application/x-ndjson"))
+            .header("Content-Disposition", containsString("attachment"))
+            .extract().asString();
+
+        assertEquals(2, body.lines().count());
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("GET /api/bookings/export?format=csv streams a header and one row per booking")
+    void whenExportCsv_thenHeaderAndOneRowPerBooking() {
+        given().contentType(ContentType.JSON).body(createValidRequest()).post("/api/bookings").then().statusCode(201);
+
+        String body = given()
+            .queryParam("format", "csv")
+        .when()
+            .get("/api/bookings/export")
+        .then()
+            .statusCode(200)
+            .contentType(containsString("text/csv"))
+            .extract().asString();
+
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("token,municipality"));
+        assertTrue(lines.get(1).contains("Estremoz"));
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("GET /api/bookings/export with an unknown format returns 400")
+    void whenExportUnknownFormat_thenStatus400() {
+        given()
+            .queryParam("format", "xml")
+        .when()
+            .get("/api/bookings/export")
+        .then()
+            .statusCode(400);
+    }
+
+    // ============ POST/PATCH /api/bookings/batch ============
+
+    @Test
+    @Order(14)
+    @DisplayName("POST /api/bookings/batch creates valid bookings and reports each item")
+    void whenCreateBatch_thenStatus200AndResultPerItem() {
+        ServiceRequest first = createValidRequest();
+        ServiceRequest sameSlot = createValidRequest();
+        sameSlot.setTimeSlot(first.getTimeSlot());
+        ServiceRequest tooSoon = createValidRequest();
+        tooSoon.setTimeSlot(LocalDateTime.now().plusMinutes(10));
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(List.of(first, sameSlot, tooSoon))
+        .when()
+            .post("/api/bookings/batch")
+        .then()
+            .statusCode(200)
+            .body("status", contains("CREATED", "CONFLICT", "INVALID"))
+            .body("[0].token", notNullValue());
+
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("PATCH /api/bookings/batch updates existing bookings and reports unknown tokens")
+    void whenUpdateBatch_thenStatus200AndChangesApplied() {
+        String token = given()
+            .contentType(ContentType.JSON)
+            .body(createValidRequest())
+            .post("/api/bookings")
+            .then().statusCode(201)
+            .extract().asString();
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(List.of(
+                new BookingPatch(token, null, null, null, REQUEST_STATE.ASSIGNED),
+                new BookingPatch("invalid-token", null, null, null, REQUEST_STATE.ASSIGNED)))
+        .when()
+            .patch("/api/bookings/batch")
+        .then()
+            .statusCode(200)
+            .body("status", contains("UPDATED", "NOT_FOUND"));
+
+        given()
+            .pathParam("token", token)
+        .when()
+            .get("/api/bookings/{token}")
+        .then()
+            .statusCode(200)
+            .body("state", equalTo("ASSIGNED"));
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("POST /api/bookings/batch/state moves eligible bookings and lists the rest as skipped")
+    void whenTransitionBatch_thenEligibleBookingsMoved() {
+        String token = given()
+            .contentType(ContentType.JSON)
+            .body(createValidRequest())
+            .post("/api/bookings")
+            .then().statusCode(201)
+            .extract().asString();
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(new StateTransitionRequest(List.of(token, "invalid-token"), REQUEST_STATE.ASSIGNED))
+        .when()
+            .post("/api/bookings/batch/state")
+        .then()
+            .statusCode(200)
+            .body("moved", contains(token))
+            .body("skipped", contains("invalid-token"));
+
+        // ASSIGNED -> COMPLETED skips IN_PROGRESS, so nothing moves
+        given()
+            .contentType(ContentType.JSON)
+            .body(new StateTransitionRequest(List.of(token), REQUEST_STATE.COMPLETED))
+        .when()
+            .post("/api/bookings/batch/state")
+        .then()
+            .statusCode(200)
+            .body("moved", empty())
+            .body("skipped", contains(token));
+
+        given()
+            .pathParam("token", token)
+        .when()
+            .get("/api/bookings/{token}")
+        .then()
+            .statusCode(200)
+            .body("state", equalTo("ASSIGNED"));
+    }
+
+    // ============ GET /api/bookings/events ============
+
+    @Test
+    @Order(14)
+    @DisplayName("GET /api/bookings/events streams a booking event when a booking is created")
+    void whenBookingCreated_thenEventStreamed() throws Exception {
+        HttpRequest subscribe = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/bookings/events"))
+            .header("Accept", "text/event-stream")
+            .build();
+        HttpResponse<Stream<String>> stream = HttpClient.newHttpClient().send(subscribe, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, stream.statusCode());
+
+        try (Stream<String> lines = stream.body()) {
+            CompletableFuture<String> firstEvent = CompletableFuture.supplyAsync(() ->
+                lines.filter(line -> line.startsWith("data:")).findFirst().orElse(""));
+
+            String token = given()
+                .contentType(ContentType.JSON)
+                .body(createValidRequest())
+                .post("/api/bookings")
+                .then().statusCode(201)
+                .extract().asString();
+
+            String data = firstEvent.get(5, TimeUnit.SECONDS);
+            assertTrue(data.contains("\"type\":\"CREATED\""), data);
+            assertTrue(data.contains(token), data);
+        }
+    }
+
     // ============ GET /api/municipalities ============
 
     @Test
@@ -386,10 +812,160 @@ class ZeroMonosApiIT {
             .body("$", hasSize(greaterThan(0)));
     }
 
-    // ============ WORKFLOW TESTS ============
+    @Test
+    @Order(15)
+    @DisplayName("GET /api/municipalities with a matching If-None-Match returns 304")
+    void whenGetMunicipalitiesWithCurrentEtag_thenStatus304() {
+        String etag = given()
+        .when()
+            .get("/api/municipalities")
+        .then()
+            .statusCode(200)
+            .header("ETag", notNullValue())
+            .extract().header("ETag");
+
+        given()
+            .header("If-None-Match", etag)
+        .when()
+            .get("/api/municipalities")
+        .then()
+            .statusCode(304);
+    }
+
+    // ============ GET /api/municipalities/{municipality}/availability ============
+
+    @Test
+    @Order(16)
+    @DisplayName("GET /api/municipalities/{municipality}/availability returns the booked slots of the day")
+    void whenGetAvailability_thenReturnBookedSlotsOfThatDay() {
+        LocalDateTime timeSlot = LocalDateTime.now().plusDays(4).withHour(11).withMinute(0).withSecond(0).withNano(0);
+        ServiceRequest request = createValidRequest();
+        request.setMunicipality("Mora");
+        request.setTimeSlot(timeSlot);
+
+        given().contentType(ContentType.JSON).body(request).post("/api/bookings").then().statusCode(201);
+
+        given()
+            .pathParam("municipality", "Mora")
+            .queryParam("date", timeSlot.toLocalDate().toString())
+        .when()
+            .get("/api/municipalities/{municipality}/availability")
+        .then()
+            .statusCode(200)
+            .body("municipality", equalTo("Mora"))
+            .body("slotMinutes", equalTo(30))
+            .body("booked", hasItem("11:00:00"));
+
+        given()
+            .pathParam("municipality", "Mora")
+            .queryParam("date", timeSlot.toLocalDate().plusDays(1).toString())
+        .when()
+            .get("/api/municipalities/{municipality}/availability")
+        .then()
+            .statusCode(200)
+            .body("booked", not(hasItem("11:00:00")));
+    }
+
+    @Test
+    @Order(16)
+    @DisplayName("GET /api/municipalities/{municipality}/availability counts down the places of a multi-truck slot")
+    void whenSlotTakesSeveralBookings_thenAvailabilityShowsRemainingCapacity() {
+        LocalDateTime timeSlot = LocalDateTime.now().plusDays(4).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        ServiceRequest request = createValidRequest();
+        request.setMunicipality("Sousel");
+        request.setTimeSlot(timeSlot);
+
+        given().contentType(ContentType.JSON).body(request).post("/api/bookings").then().statusCode(201);
+
+        given()
+            .pathParam("municipality", "Sousel")
+            .queryParam("date", timeSlot.toLocalDate().toString())
+        .when()
+            .get("/api/municipalities/{municipality}/availability")
+        .then()
+            .statusCode(200)
+            .body("capacity", equalTo(2))
+            .body("booked", not(hasItem("10:00:00")))
+            .body("slots.find { it.time == '10:00:00' }.remaining", equalTo(1));
+
+        given().contentType(ContentType.JSON).body(request).post("/api/bookings").then().statusCode(201);
+        given().contentType(ContentType.JSON).body(request).post("/api/bookings").then()
+            .statusCode(400)
+            .body(containsString("Time slot already booked"));
+
+        given()
+            .pathParam("municipality", "Sousel")
+            .queryParam("date", timeSlot.toLocalDate().toString())
+        .when()
+            .get("/api/municipalities/{municipality}/availability")
+        .then()
+            .statusCode(200)
+            .body("booked", hasItem("10:00:00"))
+            .body("slots.find { it.time == '10:00:00' }.remaining", equalTo(0));
+    }
+
+    // ============ GET /api/diagnostics ============
 
     @Test
     @Order(16)
+    @DisplayName("GET /api/diagnostics/http-pool returns the outbound connection pool state")
+    void whenGetHttpPoolDiagnostics_thenStatus200AndPoolStats() {
+        given()
+        .when()
+            .get("/api/diagnostics/http-pool")
+        .then()
+            .statusCode(200)
+            .body("max", greaterThan(0))
+            .body("leased", greaterThanOrEqualTo(0))
+            .body("circuitState", notNullValue());
+    }
+
+    @Test
+    @Order(16)
+    @DisplayName("GET /api/diagnostics/db-pool returns the connection pool state and acquisition times")
+    void whenGetDbPoolDiagnostics_thenStatus200AndPoolStats() {
+        given().get("/api/bookings").then().statusCode(200);
+
+        given()
+        .when()
+            .get("/api/diagnostics/db-pool")
+        .then()
+            .statusCode(200)
+            .body("$", hasSize(1))
+            .body("[0].pool", equalTo("primary"))
+            .body("[0].max", greaterThan(0))
+            .body("[0].total", greaterThan(0))
+            .body("[0].waiting", equalTo(0))
+            .body("[0].acquisitions", greaterThan(0))
+            .body("[0].acquireP99Millis", greaterThanOrEqualTo(0f));
+    }
+
+    // ============ GET /actuator/prometheus ============
+
+    @Test
+    @Order(16)
+    @DisplayName("GET /actuator/prometheus exposes endpoint, service, repository and pool metrics")
+    void whenScrapePrometheus_thenLatencyHistogramsAndPoolMetricsExposed() {
+        given().contentType(ContentType.JSON).body(createValidRequest()).post("/api/bookings").then().statusCode(201);
+        given().contentType(ContentType.JSON).body(createValidRequest()).post("/api/bookings").then().statusCode(400);
+
+        given()
+        .when()
+            .get("/actuator/prometheus")
+        .then()
+            .statusCode(200)
+            .body(containsString("http_server_requests_seconds_bucket{"))
+            .body(containsString("zeromonos_bookings_operations_seconds_bucket{"))
+            .body(containsString("spring_data_repository_invocations_seconds_bucket{"))
+            .body(containsString("zeromonos_bookings_conflicts_total{"))
+            .body(containsString("hikaricp_connections_active{"))
+            .body(containsString("zeromonos_http_pool_leased{"));
+    }
+
+    // ============ WORKFLOW TESTS ============
+
+    @Test
+    @Order(17)
     @DisplayName("Complete workflow: Create -> Get -> Update -> Delete")
     void completeWorkflow() {
         // 1. Create
@@ -445,7 +1021,7 @@ class ZeroMonosApiIT {
     }
 
     @Test
-    @Order(17)
+    @Order(18)
     @DisplayName("Multiple bookings for same municipality different time slots")
     void whenMultipleBookingsSameMunicipalityDifferentTimes_thenAllAccepted() {
         ServiceRequest request1 = createValidRequest();
@@ -470,6 +1046,33 @@ class ZeroMonosApiIT {
             .body("$", hasSize(3));
     }
 
+    @Test
+    @Order(19)
+    @DisplayName("GET /api/bookings/{token} still returns a booking after it was archived")
+    void whenBookingArchived_thenStillReturnedByToken() {
+        ServiceRequest old = createValidRequest();
+        old.setToken(BookingTokens.next());
+        old.setTimeSlot(LocalDateTime.now().minusYears(1));
+        old.setState(REQUEST_STATE.COMPLETED);
+        repository.save(old);
+
+        assertEquals(1, archiveService.archive().rows());
+
+        given()
+            .pathParam("token", old.getToken())
+        .when()
+            .get("/api/bookings/{token}")
+        .then()
+            .statusCode(200)
+            .body("token", equalTo(old.getToken()))
+            .body("state", equalTo("COMPLETED"));
+        given()
+            .get("/api/bookings/municipality/Estremoz")
+            .then()
+            .statusCode(200)
+            .body("$", empty());
+    }
+
     // ============ HELPER METHODS ============
 
     private ServiceRequest createValidRequest() {
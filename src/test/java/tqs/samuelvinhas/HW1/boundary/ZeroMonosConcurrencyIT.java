@@ -0,0 +1,139 @@
+package tqs.samuelvinhas.HW1.boundary;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stress test for slot reservation: many citizens racing for the same slot,
+ * exactly one of them must get it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = "spring.jpa.show-sql=false")
+@DisplayName("ZeroMonos Concurrent Booking Integration Tests")
+class ZeroMonosConcurrencyIT {
+
+    private static final int REQUESTS = 2_000;
+    private static final int CLIENT_THREADS = 64;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ZeroMonosRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Thousands of concurrent bookings of the same slot: exactly one wins")
+    void whenConcurrentBookingsOfSameSlot_thenExactlyOneWins() throws Exception {
+        LocalDateTime timeSlot = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.HOURS);
+        String body = bookingJson("Estremoz", timeSlot);
+
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        long elapsedNanos = fire(REQUESTS, i -> body, statuses);
+
+        printThroughput("same slot", REQUESTS, elapsedNanos, statuses);
+        assertThat(statuses.get(201)).hasValue(1);
+        assertThat(statuses.get(400)).hasValue(REQUESTS - 1);
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Concurrent bookings of distinct slots: all of them win")
+    void whenConcurrentBookingsOfDistinctSlots_thenAllWin() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.HOURS);
+        List<String> bodies = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            bodies.add(bookingJson("Estremoz", start.plusMinutes(i)));
+        }
+
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        long elapsedNanos = fire(REQUESTS, bodies::get, statuses);
+
+        printThroughput("distinct slots", REQUESTS, elapsedNanos, statuses);
+        assertThat(statuses.get(201)).hasValue(REQUESTS);
+        assertThat(repository.count()).isEqualTo(REQUESTS);
+    }
+
+    private long fire(int requests, IntFunction<String> bodies,
+                      Map<Integer, AtomicInteger> statuses) throws Exception {
+        URI uri = URI.create("http://localhost:" + port + "/api/bookings");
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENT_THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(bodies.apply(i)))
+                    .build();
+                futures.add(executor.submit(() -> {
+                    startSignal.await();
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    statuses.computeIfAbsent(status, key -> new AtomicInteger()).incrementAndGet();
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            startSignal.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String bookingJson(String municipality, LocalDateTime timeSlot) throws Exception {
+        ServiceRequest request = new ServiceRequest();
+        request.setMunicipality(municipality);
+        request.setAddress("Rua Principal, n12");
+        request.setTimeSlot(timeSlot);
+        request.setItemDescription("Old mattress");
+        return objectMapper.writeValueAsString(request);
+    }
+
+    private static void printThroughput(String scenario, int requests, long elapsedNanos,
+                                        Map<Integer, AtomicInteger> statuses) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("POST /api/bookings, %s: %d requests from %d threads in %.2f s (%.0f req/s), statuses %s%n",
+            scenario, requests, CLIENT_THREADS, seconds, requests / seconds, statuses);
+    }
+}
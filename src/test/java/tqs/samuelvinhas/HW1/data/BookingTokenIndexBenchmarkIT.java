@@ -0,0 +1,81 @@
+package tqs.samuelvinhas.HW1.data;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import tqs.samuelvinhas.HW1.service.BookingTokens;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark for the booking token key: insert throughput and primary key index size of
+ * random UUID strings in a varchar column (the old tokens) against time-ordered UUIDs in
+ * a native uuid column. The tables are scratch copies of the key only, created and
+ * dropped with the test transaction. Run with {@code mvn verify -Pbenchmark}; the row
+ * count defaults to two million and can be changed with {@code -Dbenchmark.token-rows}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = "spring.jpa.show-sql=false")
+@DisplayName("Booking Token Index Benchmark")
+class BookingTokenIndexBenchmarkIT {
+
+    private static final int ROWS = Integer.getInteger("benchmark.token-rows", 2_000_000);
+    private static final int BATCH_SIZE = 10_000;
+
+    private record Result(double rowsPerSecond, long indexBytes) {}
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Time-ordered uuid keys insert faster and index smaller than random string keys")
+    void timeOrderedUuidKeysBeatRandomStringKeys() {
+        Map<String, Result> results = new LinkedHashMap<>();
+        results.put("varchar, random v4", run("token_bench_text", "varchar(255)", () -> UUID.randomUUID().toString()));
+        results.put("uuid, random v4", run("token_bench_uuid_v4", "uuid", () -> UUID.randomUUID().toString()));
+        results.put("uuid, time-ordered v7", run("token_bench_uuid_v7", "uuid", BookingTokens::next));
+
+        System.out.printf("Inserting %,d booking tokens in batches of %,d:%n", ROWS, BATCH_SIZE);
+        results.forEach((key, result) -> System.out.printf("  %-22s %,12.0f rows/s %,8d KiB pkey%n",
+            key, result.rowsPerSecond(), result.indexBytes() / 1024));
+
+        Result before = results.get("varchar, random v4");
+        Result after = results.get("uuid, time-ordered v7");
+        assertThat(after.indexBytes()).isLessThan(before.indexBytes());
+        assertThat(after.rowsPerSecond()).isGreaterThan(before.rowsPerSecond() * 0.8);
+    }
+
+    private Result run(String table, String type, Supplier<String> tokens) {
+        jdbcTemplate.execute("create table " + table + " (token " + type + " primary key)");
+        String insert = "insert into " + table + " (token) values (cast(? as " + type + "))";
+
+        long begin = System.nanoTime();
+        for (int inserted = 0; inserted < ROWS; inserted += BATCH_SIZE) {
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < Math.min(BATCH_SIZE, ROWS - inserted); i++) {
+                batch.add(new Object[] {tokens.get()});
+            }
+            jdbcTemplate.batchUpdate(insert, batch);
+        }
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+        Long indexBytes = jdbcTemplate.queryForObject("select pg_relation_size(?::regclass)", Long.class, table + "_pkey");
+        jdbcTemplate.execute("drop table " + table);
+        return new Result(ROWS / seconds, indexBytes);
+    }
+}
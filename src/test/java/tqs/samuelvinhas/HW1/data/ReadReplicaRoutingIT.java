@@ -0,0 +1,106 @@
+package tqs.samuelvinhas.HW1.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+import tqs.samuelvinhas.HW1.service.ZeroMonosService;
+
+import java.time.LocalDateTime;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against the two docker-compose databases: zeromonos_test (port 5433) as the
+ * primary and zeromonos (port 5432) standing in for a read replica. They are not
+ * replicated, so each query shows by its result which one served it.
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "zeromonos.datasource.replica.url=jdbc:postgresql://localhost:5432/zeromonos")
+@DisplayName("Read replica routing Integration Tests")
+class ReadReplicaRoutingIT {
+
+    private static final String PRIMARY = "zeromonos_test";
+    private static final String REPLICA = "zeromonos";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ZeroMonosRepository repository;
+
+    @Autowired
+    private ZeroMonosService service;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("When a transaction is read-only, then its statements run on the replica")
+    void whenReadOnlyTransaction_thenReplicaServesIt() {
+        assertThat(databaseUsedBy(true)).isEqualTo(REPLICA);
+    }
+
+    @Test
+    @DisplayName("When a transaction is read-write, then its statements run on the primary")
+    void whenReadWriteTransaction_thenPrimaryServesIt() {
+        assertThat(databaseUsedBy(false)).isEqualTo(PRIMARY);
+    }
+
+    @Test
+    @DisplayName("When a booking is updated right after being created, then the update reads it from the primary")
+    void whenUpdateRightAfterCreate_thenBookingFoundOnPrimary() {
+        ServiceRequest request = new ServiceRequest(null, "Estremoz", "Rua Principal, n12",
+                LocalDateTime.now().plusDays(1), "Old mattress");
+        String token = service.requestService(request);
+
+        ServiceRequest changes = new ServiceRequest(token, "Estremoz", "Rua Principal, n12",
+                request.getTimeSlot(), "Old mattress");
+        changes.setState(REQUEST_STATE.ASSIGNED);
+        service.updateServiceRequest(token, changes);
+
+        assertThat(repository.findById(token)).get()
+                .extracting(ServiceRequest::getState).isEqualTo(REQUEST_STATE.ASSIGNED);
+    }
+
+    @Test
+    @DisplayName("When a booking is read after an update, then the cache is refilled from the primary")
+    void whenGetAfterUpdate_thenCachedBookingComesFromPrimary() {
+        ServiceRequest request = new ServiceRequest(null, "Estremoz", "Rua Principal, n12",
+                LocalDateTime.now().plusDays(1), "Old mattress");
+        String token = service.requestService(request);
+        ServiceRequest changes = new ServiceRequest(token, "Estremoz", "Rua Principal, n12",
+                request.getTimeSlot(), "Old mattress");
+        changes.setState(REQUEST_STATE.ASSIGNED);
+        service.updateServiceRequest(token, changes);
+
+        // The "replica" never has the booking, so anything it served would be missing here
+        assertThat(service.getServiceRequest(token)).get()
+                .satisfies(booking -> {
+                    assertThat(booking.getState()).isEqualTo(REQUEST_STATE.ASSIGNED);
+                    assertThat(booking.getVersion()).isEqualTo(1);
+                });
+    }
+
+    private String databaseUsedBy(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select current_database()", String.class));
+    }
+}
@@ -0,0 +1,160 @@
+package tqs.samuelvinhas.HW1.data;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for the service_requests indexes created by the Flyway migrations.
+ * Checks the PostgreSQL query plans of the repository's lookups, with sequential scans
+ * disabled so the planner's choice doesn't depend on how small the test table is. The
+ * bookings fall in the January and February 2030 partitions; plans name the partitions'
+ * own copies of each index.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("ServiceRequest Index Integration Tests")
+class ServiceRequestIndexIT {
+
+    private static final String[] MUNICIPALITIES = {"Estremoz", "Aveiro", "Lisboa", "Porto", "Braga"};
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 7, 8, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.getEntityManager()
+            .createNativeQuery("SELECT create_service_requests_partitions(DATE '2030-01-01', DATE '2030-02-01')")
+            .getSingleResult();
+        REQUEST_STATE[] states = REQUEST_STATE.values();
+        for (int i = 0; i < 2000; i++) {
+            ServiceRequest request = new ServiceRequest(
+                String.format("00000000-0000-7000-8000-%012d", i),
+                MUNICIPALITIES[i % MUNICIPALITIES.length],
+                "Rua " + i,
+                START.plusMinutes(30L * i),
+                "Item " + i
+            );
+            request.setState(states[i % states.length]);
+            entityManager.persist(request);
+        }
+        entityManager.flush();
+        execute("ANALYZE service_requests");
+        execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    @DisplayName("When looking up bookings by municipality and time slot, then the (municipality, time_slot) index is used")
+    void whenFindByMunicipalityAndTimeSlot_thenUsesMunicipalityTimeSlotIndex() {
+        String plan = explain("SELECT * FROM service_requests WHERE municipality = 'Estremoz' AND time_slot = '2030-01-07 08:00'");
+
+        assertThat(plan).containsAnyOf(onPartitions("idx_service_requests_municipality_time_slot"));
+    }
+
+    @Test
+    @DisplayName("When listing by municipality, then an index led by municipality is used")
+    void whenFindByMunicipality_thenUsesMunicipalityIndex() {
+        String plan = explain("SELECT * FROM service_requests WHERE municipality = 'Estremoz'");
+
+        assertThat(plan).containsAnyOf(onPartitions(
+            "idx_service_requests_municipality_time_slot",
+            "idx_service_requests_municipality_state"));
+    }
+
+    @Test
+    @DisplayName("When filtering by state over a time range, then the (state, time_slot) index is used")
+    void whenFilterByStateAndTimeRange_thenUsesStateTimeSlotIndex() {
+        String plan = explain("SELECT * FROM service_requests WHERE state = 'ASSIGNED' "
+            + "AND time_slot >= '2030-01-10' AND time_slot < '2030-01-20'");
+
+        assertThat(plan).containsAnyOf(onPartitions("idx_service_requests_state_time_slot"));
+    }
+
+    @Test
+    @DisplayName("When filtering by a time range, then only the partitions of the months it covers are scanned")
+    void whenFilterByTimeRange_thenOtherPartitionsArePruned() {
+        String plan = explain("SELECT * FROM service_requests WHERE state = 'ASSIGNED' "
+            + "AND time_slot >= '2030-01-10' AND time_slot < '2030-01-20'");
+
+        assertThat(plan)
+            .contains("service_requests_2030_01")
+            .doesNotContain("service_requests_2030_02")
+            .doesNotContain("service_requests_default");
+    }
+
+    @Test
+    @DisplayName("When filtering by municipality and state, then the (municipality, state) index is used")
+    void whenFilterByMunicipalityAndState_thenUsesMunicipalityStateIndex() {
+        String plan = explain("SELECT * FROM service_requests WHERE municipality = 'Aveiro' AND state = 'RECEIVED'");
+
+        assertThat(plan).containsAnyOf(onPartitions("idx_service_requests_municipality_state"));
+    }
+
+    @Test
+    @DisplayName("When reading a keyset page, then the (time_slot, token) index serves the ordering")
+    void whenKeysetPage_thenUsesTimeSlotTokenIndex() {
+        String plan = explain("SELECT * FROM service_requests WHERE time_slot >= '2030-01-10' "
+            + "AND (time_slot > '2030-01-10' OR token > '00000000-0000-7000-8000-000000000100') "
+            + "ORDER BY time_slot, token LIMIT 101");
+
+        // Partitions are merged in index order (Merge Append) rather than sorted
+        assertThat(plan)
+            .containsAnyOf(onPartitions("idx_service_requests_time_slot_token"))
+            .doesNotContainPattern("(?m)^\\s*(->\\s*)?Sort\\s");
+    }
+
+    @Test
+    @DisplayName("When looking up a booking by token alone, then the primary key of every partition is probed")
+    void whenFindByToken_thenEveryPartitionProbed() {
+        String plan = explain("SELECT * FROM service_requests WHERE token = '00000000-0000-7000-8000-000000000100'");
+
+        // The cost of a primary key that has to include time_slot: nothing prunes by token
+        assertThat(plan).contains(onPartitions("service_requests_pkey"));
+    }
+
+    @Test
+    @DisplayName("When looking up a booking by token and time slot, then only its month's primary key is probed")
+    void whenFindByTokenAndTimeSlot_thenOnePartitionProbed() {
+        String plan = explain("SELECT * FROM service_requests WHERE token = '00000000-0000-7000-8000-000000000100' "
+            + "AND time_slot = '2030-01-09 10:00'");
+
+        assertThat(plan)
+            .contains("service_requests_2030_01_pkey")
+            .doesNotContain("service_requests_2030_02")
+            .doesNotContain("service_requests_default");
+    }
+
+    private String explain(String sql) {
+        List<?> rows = entityManager.getEntityManager().createNativeQuery("EXPLAIN " + sql).getResultList();
+        return rows.stream().map(String::valueOf).collect(Collectors.joining("\n"));
+    }
+
+    /** Names of the given parent indexes' copies on each partition. */
+    private String[] onPartitions(String... parentIndexes) {
+        List<?> rows = entityManager.getEntityManager().createNativeQuery(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                + "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname IN (:parents)")
+            .setParameter("parents", List.of(parentIndexes))
+            .getResultList();
+        return rows.stream().map(String::valueOf).toArray(String[]::new);
+    }
+
+    private void execute(String sql) {
+        entityManager.getEntityManager().createNativeQuery(sql).executeUpdate();
+    }
+}
@@ -1,5 +1,7 @@
 package tqs.samuelvinhas.HW1.data;
 
+import jakarta.persistence.PersistenceException;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -7,16 +9,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.TestPropertySource;
 
 import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 /**
  * Integration test for ZeroMonosRepository
@@ -28,6 +36,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 @DisplayName("ZeroMonos Repository Integration Tests")
 class ZeroMonosRepositoryIT {
 
+    private static final String TOKEN_1 = "00000000-0000-7000-8000-000000000001";
+    private static final String TOKEN_2 = "00000000-0000-7000-8000-000000000002";
+    private static final String TOKEN_3 = "00000000-0000-7000-8000-000000000003";
+    private static final String MISSING = "00000000-0000-7000-8000-0000000000ff";
+
     @Autowired
     private TestEntityManager entityManager;
 
@@ -44,7 +57,7 @@ class ZeroMonosRepositoryIT {
         now = LocalDateTime.now();
         
         request1 = new ServiceRequest(
-            "token-1", 
+            TOKEN_1, 
             "Estremoz", 
             "Rua 1, n3",
             now.plusDays(1).truncatedTo(ChronoUnit.MICROS), // value truncated to micros to avoid precision issues with H2
@@ -52,7 +65,7 @@ class ZeroMonosRepositoryIT {
         );
         
         request2 = new ServiceRequest(
-            "token-2", 
+            TOKEN_2, 
             "Estremoz", 
             "Rua B, n6",
             now.plusDays(2).truncatedTo(ChronoUnit.MICROS),
@@ -61,7 +74,7 @@ class ZeroMonosRepositoryIT {
         request2.setState(REQUEST_STATE.ASSIGNED);
         
         request3 = new ServiceRequest(
-            "token-3", 
+            TOKEN_3, 
             "Aveiro", 
             "Avenida C, n7",
             now.plusDays(1).truncatedTo(ChronoUnit.MICROS),
@@ -78,16 +91,16 @@ class ZeroMonosRepositoryIT {
         entityManager.persistAndFlush(request2);
 
         // Act
-        Optional<ServiceRequest> found = repository.findByMunicipalityAndTimeSlot(
+        List<ServiceRequest> found = repository.findByMunicipalityAndTimeSlot(
             "Estremoz", 
             request1.getTimeSlot()
         );
 
         // Assert
-        assertThat(found).isPresent();
-        assertThat(found.get().getToken()).isEqualTo("token-1");
-        assertThat(found.get().getMunicipality()).isEqualTo("Estremoz");
-        assertThat(found.get().getItemDescription()).isEqualTo("Old sofa");
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).getToken()).isEqualTo(TOKEN_1);
+        assertThat(found.get(0).getMunicipality()).isEqualTo("Estremoz");
+        assertThat(found.get(0).getItemDescription()).isEqualTo("Old sofa");
     }
 
     @Test
@@ -97,7 +110,7 @@ class ZeroMonosRepositoryIT {
         entityManager.persistAndFlush(request1);
 
         // Act
-        Optional<ServiceRequest> found = repository.findByMunicipalityAndTimeSlot(
+        List<ServiceRequest> found = repository.findByMunicipalityAndTimeSlot(
             "Estremoz", 
             now.plusDays(10) // non-existent time slot
         );
@@ -124,7 +137,7 @@ class ZeroMonosRepositoryIT {
             .containsOnly("Estremoz");
         assertThat(estremozRequests)
             .extracting(ServiceRequest::getToken)
-            .containsExactlyInAnyOrder("token-1", "token-2");
+            .containsExactlyInAnyOrder(TOKEN_1, TOKEN_2);
     }
 
     @Test
@@ -150,7 +163,7 @@ class ZeroMonosRepositoryIT {
         // Assert
         Optional<ServiceRequest> found = repository.findById(saved.getToken());
         assertThat(found).isPresent();
-        assertThat(found.get().getToken()).isEqualTo("token-1");
+        assertThat(found.get().getToken()).isEqualTo(TOKEN_1);
         assertThat(found.get().getItemDescription()).isEqualTo("Old sofa");
         assertThat(found.get().getState()).isEqualTo(REQUEST_STATE.RECEIVED);
     }
@@ -186,7 +199,7 @@ class ZeroMonosRepositoryIT {
         assertThat(allRequests).hasSize(3);
         assertThat(allRequests)
             .extracting(ServiceRequest::getToken)
-            .containsExactlyInAnyOrder("token-1", "token-2", "token-3");
+            .containsExactlyInAnyOrder(TOKEN_1, TOKEN_2, TOKEN_3);
     }
 
     @Test
@@ -196,7 +209,7 @@ class ZeroMonosRepositoryIT {
         entityManager.persistAndFlush(request1);
         
         // Act
-        ServiceRequest toUpdate = repository.findById("token-1").get();
+        ServiceRequest toUpdate = repository.findById(TOKEN_1).get();
         toUpdate.setState(REQUEST_STATE.ASSIGNED);
         toUpdate.setItemDescription("Small old sofa");
         repository.save(toUpdate);
@@ -204,7 +217,7 @@ class ZeroMonosRepositoryIT {
         entityManager.clear(); // Clear persistence context to force fresh read
 
         // Assert
-        ServiceRequest updated = repository.findById("token-1").get();
+        ServiceRequest updated = repository.findById(TOKEN_1).get();
         assertThat(updated.getState()).isEqualTo(REQUEST_STATE.ASSIGNED);
         assertThat(updated.getItemDescription()).isEqualTo("Small old sofa");
     }
@@ -224,7 +237,7 @@ class ZeroMonosRepositoryIT {
         // Assert
         assertThat(estremozRequests).hasSize(2);
         assertThat(aveiroRequests).hasSize(1);
-        assertThat(aveiroRequests.get(0).getToken()).isEqualTo("token-3");
+        assertThat(aveiroRequests.get(0).getToken()).isEqualTo(TOKEN_3);
     }
 
     @Test
@@ -237,7 +250,7 @@ class ZeroMonosRepositoryIT {
 
         // Assert
         ServiceRequest found = repository.findById(saved.getToken()).get();
-        assertThat(found.getToken()).isEqualTo("token-1");
+        assertThat(found.getToken()).isEqualTo(TOKEN_1);
         assertThat(found.getMunicipality()).isEqualTo("Estremoz");
         assertThat(found.getAddress()).isEqualTo("Rua 1, n3");
         assertThat(found.getItemDescription()).isEqualTo("Old sofa");
@@ -245,4 +258,280 @@ class ZeroMonosRepositoryIT {
         assertThat(found.getTimeSlot()).isNotNull();
         assertThat(found.getDate()).isNotNull();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("When find page, then rows are ordered by time slot and token and limited")
+    void whenFindPage_thenOrderedByTimeSlotAndTokenAndLimited() {
+        // Arrange
+        entityManager.persistAndFlush(request1);
+        entityManager.persistAndFlush(request2);
+        entityManager.persistAndFlush(request3);
+
+        // Act
+        List<ServiceRequest> page = repository.findPage(null, null, null, null, null, null, Limit.of(2));
+
+        // Assert (request1 and request3 share the same time slot, so token breaks the tie)
+        assertThat(page)
+            .extracting(ServiceRequest::getToken)
+            .containsExactly(TOKEN_1, TOKEN_3);
+    }
+
+    @Test
+    @DisplayName("When find page after a keyset, then continue strictly after it")
+    void whenFindPageAfterKeyset_thenContinueAfterIt() {
+        // Arrange
+        entityManager.persistAndFlush(request1);
+        entityManager.persistAndFlush(request2);
+        entityManager.persistAndFlush(request3);
+
+        // Act
+        List<ServiceRequest> page = repository.findPage(null, null, null, null,
+            request1.getTimeSlot(), TOKEN_1, Limit.of(10));
+
+        // Assert
+        assertThat(page)
+            .extracting(ServiceRequest::getToken)
+            .containsExactly(TOKEN_3, TOKEN_2);
+    }
+
+    @Test
+    @DisplayName("When find page with filters, then only matching rows are returned")
+    void whenFindPageWithFilters_thenOnlyMatchingRows() {
+        // Arrange
+        entityManager.persistAndFlush(request1);
+        entityManager.persistAndFlush(request2);
+        entityManager.persistAndFlush(request3);
+
+        // Act
+        List<ServiceRequest> assignedInEstremoz = repository.findPage(REQUEST_STATE.ASSIGNED, "Estremoz",
+            null, null, null, null, Limit.of(10));
+        List<ServiceRequest> firstDay = repository.findPage(null, null,
+            now.plusHours(12), now.plusHours(36), null, null, Limit.of(10));
+
+        // Assert
+        assertThat(assignedInEstremoz).extracting(ServiceRequest::getToken).containsExactly(TOKEN_2);
+        assertThat(firstDay).extracting(ServiceRequest::getToken).containsExactly(TOKEN_1, TOKEN_3);
+    }
+
+    @Test
+    @DisplayName("When streaming all bookings, then they come in time slot then token order")
+    void whenStreamAll_thenOrderedByTimeSlotAndToken() {
+        // Arrange
+        entityManager.persistAndFlush(request2);
+        entityManager.persistAndFlush(request3);
+        entityManager.persistAndFlush(request1);
+        entityManager.clear();
+
+        // Act
+        List<String> tokens;
+        try (Stream<ServiceRequest> stream = repository.streamAllOrderByTimeSlot()) {
+            tokens = stream.map(ServiceRequest::getToken).toList();
+        }
+
+        // Assert
+        assertThat(tokens).containsExactly(TOKEN_1, TOKEN_3, TOKEN_2);
+    }
+
+    @Test
+    @DisplayName("When transitioning states in bulk, then only bookings in an allowed source state move")
+    void whenTransitionStates_thenOnlyAllowedSourcesMove() {
+        // Arrange
+        entityManager.persistAndFlush(request1);
+        entityManager.persistAndFlush(request2);
+        entityManager.clear();
+
+        // Act
+        List<StateTransition> moved = repository.transitionStates(
+            Stream.of(TOKEN_1, TOKEN_2, MISSING).map(UUID::fromString).toList(), List.of(REQUEST_STATE.RECEIVED.name()), REQUEST_STATE.ASSIGNED.name(), now);
+
+        // Assert
+        assertThat(moved).hasSize(1);
+        assertThat(moved.get(0).getToken()).isEqualTo(TOKEN_1);
+        assertThat(moved.get(0).getPreviousState()).isEqualTo(REQUEST_STATE.RECEIVED);
+        assertThat(moved.get(0).getVersion()).isEqualTo(1);
+        assertThat(repository.findById(TOKEN_1)).get().extracting(ServiceRequest::getState).isEqualTo(REQUEST_STATE.ASSIGNED);
+        assertThat(repository.findById(TOKEN_2)).get().extracting(ServiceRequest::getState).isEqualTo(REQUEST_STATE.ASSIGNED);
+    }
+
+    @Test
+    @DisplayName("When reserving a slot, then places are taken up to its capacity")
+    void whenReserveSlot_thenTakenUpToCapacity() {
+        // Arrange
+        LocalDateTime timeSlot = now.plusDays(5).truncatedTo(ChronoUnit.HOURS);
+
+        // Act & Assert
+        assertThat(repository.reserveSlot("Estremoz", timeSlot, 2)).contains(1);
+        assertThat(repository.reserveSlot("Estremoz", timeSlot, 2)).contains(2);
+        assertThat(repository.reserveSlot("Estremoz", timeSlot, 2)).isEmpty();
+        assertThat(repository.reserveSlot("Aveiro", timeSlot, 2)).contains(1);
+    }
+
+    @Test
+    @DisplayName("When claiming places for many slots at once, then each slot gives what it has left up to the wanted count")
+    void whenClaimSlots_thenEachSlotFilledUpToCapacity() {
+        // Arrange
+        LocalDateTime timeSlot = now.plusDays(5).truncatedTo(ChronoUnit.HOURS);
+        repository.reserveSlot("Estremoz", timeSlot, 3);
+        repository.reserveSlot("Porto", timeSlot, 1);
+        String[] municipalities = {"Aveiro", "Estremoz", "Porto"};
+        LocalDateTime[] timeSlots = {timeSlot, timeSlot, timeSlot};
+
+        // Act
+        repository.createSlots(municipalities, timeSlots);
+        List<SlotClaim> claims = repository.claimSlots(municipalities, timeSlots,
+            new Integer[] {2, 5, 1}, new Integer[] {2, 3, 1});
+
+        // Assert (Porto was already full)
+        assertThat(claims)
+            .extracting(SlotClaim::getSlot, SlotClaim::getClaimed)
+            .containsExactlyInAnyOrder(tuple(1, 2), tuple(2, 2));
+        assertThat(repository.reserveSlot("Aveiro", timeSlot, 2)).isEmpty();
+        assertThat(repository.reserveSlot("Estremoz", timeSlot, 3)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("When a booking is deleted or moved, then its place in the slot is given back")
+    void whenBookingDeletedOrMoved_thenSlotPlaceReleased() {
+        // Arrange
+        repository.reserveSlot("Estremoz", request1.getTimeSlot(), 1);
+        entityManager.persistAndFlush(request1);
+        repository.reserveSlot("Estremoz", request2.getTimeSlot(), 1);
+        entityManager.persistAndFlush(request2);
+
+        // Act
+        entityManager.remove(request1);
+        request2.setTimeSlot(request2.getTimeSlot().plusHours(1));
+        entityManager.flush();
+
+        // Assert
+        assertThat(repository.reserveSlot("Estremoz", request1.getTimeSlot(), 1)).contains(1);
+        assertThat(repository.reserveSlot("Estremoz", request2.getTimeSlot().minusHours(1), 1)).contains(1);
+    }
+
+    @Test
+    @DisplayName("When archiving, then only old completed and cancelled bookings move and stay readable by token")
+    void whenArchive_thenOldTerminalBookingsMoved() {
+        // Arrange
+        request1.setTimeSlot(now.minusDays(100).truncatedTo(ChronoUnit.MICROS));
+        request1.setState(REQUEST_STATE.COMPLETED);
+        request2.setTimeSlot(now.minusDays(100).truncatedTo(ChronoUnit.MICROS));
+        request3.setTimeSlot(now.minusDays(1).truncatedTo(ChronoUnit.MICROS));
+        request3.setState(REQUEST_STATE.CANCELLED);
+        repository.reserveSlot("Estremoz", request1.getTimeSlot(), 2);
+        entityManager.persistAndFlush(request1);
+        entityManager.persistAndFlush(request2);
+        entityManager.persistAndFlush(request3);
+        entityManager.clear();
+
+        // Act
+        List<ArchivedCount> archived = repository.archive(List.of(REQUEST_STATE.COMPLETED.name(), REQUEST_STATE.CANCELLED.name()),
+            now.minusDays(90), 100, now);
+        entityManager.clear();
+
+        // Assert
+        assertThat(archived).hasSize(1);
+        assertThat(archived.get(0).getMunicipality()).isEqualTo("Estremoz");
+        assertThat(archived.get(0).getDay()).isEqualTo(request1.getTimeSlot().toLocalDate());
+        assertThat(archived.get(0).getState()).isEqualTo(REQUEST_STATE.COMPLETED);
+        assertThat(archived.get(0).getCount()).isEqualTo(1);
+        assertThat(repository.findById(TOKEN_1)).isEmpty();
+        assertThat(repository.findById(TOKEN_2)).isPresent();
+        assertThat(repository.findById(TOKEN_3)).isPresent();
+        assertThat(repository.findArchivedById(UUID.fromString(TOKEN_1))).get()
+            .satisfies(booking -> {
+                assertThat(booking.getMunicipality()).isEqualTo("Estremoz");
+                assertThat(booking.getTimeSlot()).isEqualTo(request1.getTimeSlot());
+                assertThat(booking.getState()).isEqualTo(REQUEST_STATE.COMPLETED);
+                assertThat(booking.getLastModified()).isNotNull();
+            });
+        assertThat(repository.findArchivedById(UUID.fromString(TOKEN_2))).isEmpty();
+        // The delete trigger gave the archived booking's place back
+        assertThat(repository.reserveSlot("Estremoz", request1.getTimeSlot(), 2)).contains(1);
+    }
+
+    @Test
+    @DisplayName("When creating a month's partition, then its bookings move out of the default partition and keep their place")
+    void whenCreatePartitions_thenBookingsLeaveDefaultPartition() {
+        // Arrange (beyond the months created in advance, so in the default partition)
+        LocalDateTime farSlot = now.plusYears(5).truncatedTo(ChronoUnit.MICROS);
+        request1.setTimeSlot(farSlot);
+        repository.reserveSlot("Estremoz", farSlot, 2);
+        entityManager.persistAndFlush(request1);
+        entityManager.clear();
+        assertThat(repository.countUnpartitioned()).isEqualTo(1);
+
+        // Act
+        LocalDate month = farSlot.toLocalDate().withDayOfMonth(1);
+        int created = repository.createPartitions(month, month);
+        int createdAgain = repository.createPartitions(month, month);
+
+        // Assert
+        assertThat(created).isEqualTo(1);
+        assertThat(createdAgain).isZero();
+        assertThat(repository.countUnpartitioned()).isZero();
+        assertThat(repository.findById(TOKEN_1)).get()
+            .extracting(ServiceRequest::getTimeSlot).isEqualTo(farSlot);
+        assertThat(repository.findPage(null, null, farSlot, farSlot.plusMinutes(1), null, null, Limit.of(10)))
+            .extracting(ServiceRequest::getToken).containsExactly(TOKEN_1);
+        // Moving the row did not give its place back nor free its token
+        assertThat(repository.reserveSlot("Estremoz", farSlot, 2)).contains(2);
+        assertThat(countTokens(TOKEN_1)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("When a token is already used by a booking in another month, then the insert is rejected")
+    void whenTokenUsedInAnotherPartition_thenRejected() {
+        // Arrange (the primary key is (token, time_slot), so only the token table catches this)
+        entityManager.persistAndFlush(request1);
+        entityManager.clear();
+
+        // Act & Assert
+        assertThatThrownBy(() -> entityManager.getEntityManager().createNativeQuery(
+                "insert into service_requests (token, municipality, address, time_slot, item_description, state, date) "
+                + "values (cast(:token as uuid), 'Aveiro', 'Rua Nova', :timeSlot, 'Old fridge', 'RECEIVED', localtimestamp)")
+            .setParameter("token", TOKEN_1)
+            .setParameter("timeSlot", request1.getTimeSlot().plusMonths(2))
+            .executeUpdate())
+            .isInstanceOf(PersistenceException.class)
+            .rootCause().hasMessageContaining("service_request_tokens_pkey");
+    }
+
+    @Test
+    @DisplayName("When a booking is deleted, then its token is released")
+    void whenDeleteBooking_thenTokenReleased() {
+        entityManager.persistAndFlush(request1);
+        assertThat(countTokens(TOKEN_1)).isEqualTo(1);
+
+        repository.deleteById(TOKEN_1);
+        repository.flush();
+
+        assertThat(countTokens(TOKEN_1)).isZero();
+    }
+
+    @Test
+    @DisplayName("When deleting a booking as it was read, then only an unchanged booking is deleted, once")
+    void whenDeleteIfUnchanged_thenOnlyCurrentVersionDeleted() {
+        // Arrange
+        entityManager.persistAndFlush(request1);
+        entityManager.clear();
+        LocalDateTime timeSlot = request1.getTimeSlot();
+
+        // Act
+        int stale = repository.deleteIfUnchanged(TOKEN_1, timeSlot, request1.getVersion() + 1);
+        int deleted = repository.deleteIfUnchanged(TOKEN_1, timeSlot, request1.getVersion());
+        int again = repository.deleteIfUnchanged(TOKEN_1, timeSlot, request1.getVersion());
+
+        // Assert
+        assertThat(stale).isZero();
+        assertThat(deleted).isEqualTo(1);
+        assertThat(again).isZero();
+        assertThat(repository.existsById(TOKEN_1)).isFalse();
+    }
+
+    private long countTokens(String token) {
+        return ((Number) entityManager.getEntityManager()
+            .createNativeQuery("select count(*) from service_request_tokens where token = cast(:token as uuid)")
+            .setParameter("token", token)
+            .getSingleResult()).longValue();
+    }
+}
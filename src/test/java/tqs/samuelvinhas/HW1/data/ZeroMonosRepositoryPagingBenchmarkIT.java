@@ -0,0 +1,165 @@
+package tqs.samuelvinhas.HW1.data;
+
+import jakarta.persistence.Query;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.TestPropertySource;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark for keyset pagination: page latency should stay flat while the table grows.
+ * Also reports what looking a booking up by token alone costs on the partitioned table.
+ * Run with {@code mvn verify -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = "spring.jpa.show-sql=false")
+@DisplayName("ZeroMonos Repository Paging Benchmark")
+class ZeroMonosRepositoryPagingBenchmarkIT {
+
+    private static final int[] TABLE_SIZES = {1_000, 10_000, 100_000};
+    private static final int PAGE_SIZE = 100;
+    private static final int SAMPLES = 50;
+    private static final String[] MUNICIPALITIES = {"Lisboa", "Porto", "Estremoz", "Aveiro", "Faro"};
+    /** Sorts before every token, so the page starts right at the middle time slot. */
+    private static final String FIRST_TOKEN = "00000000-0000-0000-0000-000000000000";
+    private static final int LOOKUP_ROWS = 20_000;
+    /** Spreads the lookup bookings over a year of monthly partitions. */
+    private static final long LOOKUP_MINUTES_APART = 26;
+    /** Plan nodes reading a partition; a bitmap scan is counted by its index node only. */
+    private static final Pattern SCAN = Pattern.compile("(Index Scan using|Index Only Scan using|Bitmap Index Scan on|Seq Scan on) ");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ZeroMonosRepository repository;
+
+    @Test
+    @DisplayName("Keyset page latency is flat as the table grows")
+    void keysetPageLatencyIsFlatAsTableGrows() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        Map<Integer, Double> medianMillis = new LinkedHashMap<>();
+        int rows = 0;
+
+        for (int size : TABLE_SIZES) {
+            rows = seed(rows, size, start, 1);
+
+            // A page deep in the table: continue after a row in the middle of the ordering
+            LocalDateTime middle = start.plusMinutes(size / 2L);
+            List<ServiceRequest> page = repository.findPage(REQUEST_STATE.RECEIVED, "Lisboa", null, null,
+                middle, FIRST_TOKEN, Limit.of(PAGE_SIZE));
+            assertThat(page).hasSize(PAGE_SIZE);
+
+            medianMillis.put(size, medianMillis(() -> repository.findPage(REQUEST_STATE.RECEIVED, "Lisboa",
+                null, null, middle, FIRST_TOKEN, Limit.of(PAGE_SIZE))));
+        }
+
+        System.out.println("Keyset page of " + PAGE_SIZE + " rows, median over " + SAMPLES + " runs:");
+        medianMillis.forEach((size, millis) -> System.out.printf("  %,9d rows: %8.3f ms%n", size, millis));
+
+        double smallest = medianMillis.get(TABLE_SIZES[0]);
+        double largest = medianMillis.get(TABLE_SIZES[TABLE_SIZES.length - 1]);
+        assertThat(largest).isLessThan(smallest * 5 + 5);
+    }
+
+    @Test
+    @DisplayName("A lookup by token alone probes every partition, by token and time slot only one")
+    void tokenLookupProbesEveryPartition() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        seed(0, LOOKUP_ROWS, start, LOOKUP_MINUTES_APART);
+        entityManager.getEntityManager().createNativeQuery("ANALYZE service_requests").executeUpdate();
+
+        // A booking in the middle of the year
+        LocalDateTime timeSlot = start.plusMinutes(LOOKUP_ROWS / 2 * LOOKUP_MINUTES_APART);
+        String token = (String) entityManager.getEntityManager()
+            .createNativeQuery("select cast(token as varchar) from service_requests where time_slot = :timeSlot")
+            .setParameter("timeSlot", timeSlot)
+            .getSingleResult();
+        String byToken = "select * from service_requests where token = cast(:token as uuid)";
+        String byTokenAndSlot = byToken + " and time_slot = :timeSlot";
+
+        Map<String, Double> medianMillis = new LinkedHashMap<>();
+        Map<String, Long> probed = new LinkedHashMap<>();
+        medianMillis.put("token", medianMillis(() -> lookup(byToken, token, null)));
+        probed.put("token", partitionsProbed(byToken, token, null));
+        medianMillis.put("token and time slot", medianMillis(() -> lookup(byTokenAndSlot, token, timeSlot)));
+        probed.put("token and time slot", partitionsProbed(byTokenAndSlot, token, timeSlot));
+
+        System.out.printf("Lookup among %,d bookings, median over %d runs:%n", LOOKUP_ROWS, SAMPLES);
+        medianMillis.forEach((key, millis) -> System.out.printf("  by %-20s %8.3f ms %4d partitions probed%n",
+            key, millis, probed.get(key)));
+
+        assertThat(probed.get("token")).isGreaterThan(12);
+        assertThat(probed.get("token and time slot")).isEqualTo(1);
+    }
+
+    private void lookup(String sql, String token, LocalDateTime timeSlot) {
+        assertThat(query(sql, token, timeSlot).getResultList()).hasSize(1);
+    }
+
+    /** Partitions the plan of the lookup reads, one scan node each. */
+    private long partitionsProbed(String sql, String token, LocalDateTime timeSlot) {
+        List<?> plan = query("explain " + sql, token, timeSlot).getResultList();
+        return plan.stream().map(String::valueOf).filter(line -> SCAN.matcher(line).find()).count();
+    }
+
+    private Query query(String sql, String token, LocalDateTime timeSlot) {
+        Query query = entityManager.getEntityManager().createNativeQuery(sql).setParameter("token", token);
+        if (timeSlot != null) {
+            query.setParameter("timeSlot", timeSlot);
+        }
+        return query;
+    }
+
+    private int seed(int existingRows, int targetRows, LocalDateTime start, long minutesApart) {
+        for (int i = existingRows; i < targetRows; i++) {
+            ServiceRequest request = new ServiceRequest(
+                UUID.randomUUID().toString(),
+                MUNICIPALITIES[i % MUNICIPALITIES.length],
+                "Rua " + i,
+                start.plusMinutes(i * minutesApart),
+                "Item " + i
+            );
+            entityManager.persist(request);
+            if (i % 1_000 == 999) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return targetRows;
+    }
+
+    private static double medianMillis(Runnable query) {
+        double[] samples = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long begin = System.nanoTime();
+            query.run();
+            samples[i] = (System.nanoTime() - begin) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
@@ -0,0 +1,107 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import tqs.samuelvinhas.HW1.data.ArchivedCount;
+import tqs.samuelvinhas.HW1.data.BookingCount;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingArchiveServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 10);
+
+    private record Count(String getMunicipality, LocalDate getDay, REQUEST_STATE getState, long getCount)
+            implements ArchivedCount {
+    }
+
+    @Mock
+    private ZeroMonosRepository repository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Spy
+    private BookingMetrics metrics = new BookingMetrics(new SimpleMeterRegistry());
+
+    private final BookingStatistics statistics = new BookingStatistics();
+
+    private BookingArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        archiveService = new BookingArchiveService(repository, statistics, metrics, transactionTemplate, events,
+            Duration.ofDays(90), 3);
+    }
+
+    @Test
+    @DisplayName("When a batch comes back full, then archiving continues until a partial batch")
+    void whenFullBatch_thenArchivesUntilPartialBatch() {
+        // Arrange
+        statistics.rebuild(List.of(
+            new BookingCount("Estremoz", DAY, REQUEST_STATE.COMPLETED, 3),
+            new BookingCount("Aveiro", DAY, REQUEST_STATE.CANCELLED, 1),
+            new BookingCount("Aveiro", DAY.plusYears(1), REQUEST_STATE.RECEIVED, 2)));
+        when(repository.archive(eq(BookingArchiveService.ARCHIVED_STATES), any(), eq(3), any()))
+            .thenReturn(List.of(new Count("Estremoz", DAY, REQUEST_STATE.COMPLETED, 2), new Count("Aveiro", DAY, REQUEST_STATE.CANCELLED, 1)))
+            .thenReturn(List.of(new Count("Estremoz", DAY, REQUEST_STATE.COMPLETED, 1)));
+
+        // Act
+        BookingArchiveService.Run run = archiveService.archive();
+
+        // Assert
+        assertEquals(4, run.rows());
+        verify(repository, times(2)).archive(any(), any(), anyInt(), any());
+        assertEquals(2, statistics.snapshot().total());
+        assertEquals(0, statistics.count(REQUEST_STATE.COMPLETED));
+        assertEquals(2, statistics.count(REQUEST_STATE.RECEIVED));
+        verify(metrics).recordArchived(4);
+        verify(events).publishEvent(BookingEvent.archived());
+        assertSame(run, archiveService.getLastRun());
+    }
+
+    @Test
+    @DisplayName("When archiving, then only slots older than the configured age are eligible")
+    void whenArchive_thenCutoffIsAgeBeforeNow() {
+        // Arrange
+        when(repository.archive(any(), any(), anyInt(), any())).thenReturn(List.of());
+        LocalDateTime before = LocalDateTime.now().minusDays(90);
+
+        // Act
+        BookingArchiveService.Run run = archiveService.archive();
+
+        // Assert
+        assertEquals(0, run.rows());
+        assertEquals(run.startedAt().minusDays(90), run.before());
+        assertFalse(run.before().isBefore(before));
+        verify(repository).archive(BookingArchiveService.ARCHIVED_STATES, run.before(), 3, run.startedAt());
+        verifyNoInteractions(events);
+    }
+}
@@ -0,0 +1,463 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+import tqs.samuelvinhas.HW1.data.SlotClaim;
+import tqs.samuelvinhas.HW1.data.StateTransition;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+import tqs.samuelvinhas.HW1.service.BatchItemResult.Status;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingBatchServiceTest {
+
+    private static final String TOKEN_1 = "0190a1b2-c3d4-7e5f-8a9b-000000000001";
+    private static final String TOKEN_2 = "0190a1b2-c3d4-7e5f-8a9b-000000000002";
+    private static final String TOKEN_3 = "0190a1b2-c3d4-7e5f-8a9b-000000000003";
+
+    private record Claim(int getSlot, int getClaimed) implements SlotClaim {
+    }
+
+    @Mock
+    private ZeroMonosRepository repository;
+
+    @Mock
+    private ZeroMonosService service;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    private final SlotOccupancyIndex occupancyIndex = new SlotOccupancyIndex();
+    private final BookingStatistics statistics = new BookingStatistics();
+    private final BookingCache bookingCache = new BookingCache(100, Duration.ofMinutes(1));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SlotCapacity capacity = new SlotCapacity(1, Map.of("Lisboa", 2));
+    /** Places taken per slot, standing in for the slot_reservations table. */
+    private final Map<List<Object>, Integer> reserved = new HashMap<>();
+
+    private BookingBatchService batchService;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        batchService = new BookingBatchService(repository, service, occupancyIndex, statistics, bookingCache, capacity,
+                transactionTemplate, new BookingMetrics(meterRegistry), events);
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(repository.claimSlots(any(), any(), any(), any())).thenAnswer(invocation -> {
+            String[] municipalities = invocation.getArgument(0);
+            LocalDateTime[] timeSlots = invocation.getArgument(1);
+            Integer[] wanted = invocation.getArgument(2);
+            Integer[] capacities = invocation.getArgument(3);
+            List<SlotClaim> claims = new ArrayList<>();
+            for (int i = 0; i < municipalities.length; i++) {
+                List<Object> slot = List.of(municipalities[i], timeSlots[i]);
+                int taken = reserved.getOrDefault(slot, 0);
+                int claimed = Math.min(wanted[i], capacities[i] - taken);
+                if (claimed > 0) {
+                    reserved.put(slot, taken + claimed);
+                    claims.add(new Claim(i + 1, claimed));
+                }
+            }
+            return claims;
+        });
+        day = LocalDate.now().plusDays(3);
+    }
+
+    @Test
+    @DisplayName("When creating a batch, then valid items are saved together and each item gets a result")
+    void whenCreateAll_thenValidItemsSavedAndResultsPerItem() {
+        // Arrange
+        ServiceRequest valid = booking("Estremoz", day.atTime(9, 0));
+        ServiceRequest tooSoon = booking("Estremoz", LocalDateTime.now().plusMinutes(10));
+        ServiceRequest missingAddress = booking("Estremoz", day.atTime(10, 0));
+        missingAddress.setAddress(null);
+        ServiceRequest taken = booking("Aveiro", day.atTime(9, 0));
+        ServiceRequest duplicate = booking("Estremoz", day.atTime(9, 0));
+        hold("Aveiro", day.atTime(9, 0));
+
+        // Act
+        List<BatchItemResult> results = batchService.createAll(List.of(valid, tooSoon, missingAddress, taken, duplicate));
+
+        // Assert
+        assertEquals(List.of(Status.CREATED, Status.INVALID, Status.INVALID, Status.CONFLICT, Status.CONFLICT),
+            results.stream().map(BatchItemResult::status).toList());
+        assertNotNull(results.get(0).token());
+        assertEquals(ZeroMonosService.TOO_SOON, results.get(1).message());
+        verify(repository).saveAll(List.of(valid));
+        verify(repository).flush();
+        assertEquals(List.of(LocalTime.of(9, 0)), occupancyIndex.bookedTimes("Estremoz", day));
+        assertEquals(1, statistics.snapshot().total());
+        assertEquals(2, conflicts("batch_create"));
+    }
+
+    @Test
+    @DisplayName("When a municipality's slots take several bookings, then the batch fills them up to capacity")
+    void whenCreateAllInSlotWithCapacity_thenFilledUpToCapacity() {
+        // Arrange
+        List<ServiceRequest> requests = List.of(booking("Lisboa", day.atTime(9, 0)), booking("Lisboa", day.atTime(9, 0)),
+            booking("Lisboa", day.atTime(9, 0)), booking("Estremoz", day.atTime(9, 0)));
+
+        // Act
+        List<BatchItemResult> results = batchService.createAll(requests);
+
+        // Assert
+        assertEquals(List.of(Status.CREATED, Status.CREATED, Status.CONFLICT, Status.CREATED),
+            results.stream().map(BatchItemResult::status).toList());
+        // One statement for the whole batch, not one per item
+        LocalDateTime[] slots = {day.atTime(9, 0), day.atTime(9, 0)};
+        verify(repository).createSlots(new String[] {"Estremoz", "Lisboa"}, slots);
+        verify(repository).claimSlots(new String[] {"Estremoz", "Lisboa"}, slots, new Integer[] {1, 3}, new Integer[] {1, 2});
+        verify(repository, never()).reserveSlot(anyString(), any(), anyInt());
+        assertEquals(1, conflicts("batch_create"));
+    }
+
+    @Test
+    @DisplayName("When the batch insert races with another booking, then items are retried one by one")
+    void whenBatchInsertRaces_thenRetriedIndividually() {
+        // Arrange
+        ServiceRequest first = booking("Estremoz", day.atTime(9, 0));
+        ServiceRequest second = booking("Estremoz", day.atTime(9, 30));
+        when(repository.saveAll(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(service.requestService(any(ServiceRequest.class)))
+            .thenReturn(TOKEN_1)
+            .thenThrow(new IllegalStateException(ZeroMonosService.SLOT_TAKEN));
+
+        // Act
+        List<BatchItemResult> results = batchService.createAll(List.of(first, second));
+
+        // Assert
+        assertEquals(new BatchItemResult(0, TOKEN_1, Status.CREATED, null), results.get(0));
+        assertEquals(Status.CONFLICT, results.get(1).status());
+        verify(service, times(2)).requestService(any(ServiceRequest.class));
+    }
+
+    @Test
+    @DisplayName("When a batch is larger than the limit, then it is rejected as a whole")
+    void whenBatchTooLarge_thenRejected() {
+        List<ServiceRequest> requests = Collections.nCopies(BookingBatchService.MAX_BATCH_SIZE + 1, booking("Estremoz", day.atTime(9, 0)));
+
+        assertThrows(IllegalArgumentException.class, () -> batchService.createAll(requests));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("When updating a batch, then changes are applied to loaded bookings and the slots move")
+    void whenUpdateAll_thenChangesAppliedAndOccupancyMoves() {
+        // Arrange
+        ServiceRequest moving = existing(TOKEN_1, "Estremoz", day.atTime(9, 0));
+        ServiceRequest stateOnly = existing(TOKEN_2, "Estremoz", day.atTime(10, 0));
+        occupancyIndex.occupy("Estremoz", day.atTime(9, 0));
+        occupancyIndex.occupy("Estremoz", day.atTime(10, 0));
+        when(repository.findAllById(any())).thenReturn(List.of(moving, stateOnly));
+        hold("Estremoz", day.atTime(9, 0));
+        hold("Estremoz", day.atTime(10, 0));
+
+        // Act
+        List<BatchItemResult> results = batchService.updateAll(List.of(
+            new BookingPatch(TOKEN_1, null, "Rua Nova", day.atTime(11, 0), null),
+            new BookingPatch(TOKEN_2, null, null, null, REQUEST_STATE.ASSIGNED),
+            new BookingPatch("missing", null, null, null, REQUEST_STATE.ASSIGNED)));
+
+        // Assert
+        assertEquals(List.of(Status.UPDATED, Status.UPDATED, Status.NOT_FOUND),
+            results.stream().map(BatchItemResult::status).toList());
+        assertEquals("Rua Nova", moving.getAddress());
+        assertEquals(day.atTime(11, 0), moving.getTimeSlot());
+        assertEquals(REQUEST_STATE.ASSIGNED, stateOnly.getState());
+        assertEquals(day.atTime(10, 0), stateOnly.getTimeSlot());
+        assertEquals(List.of(LocalTime.of(10, 0), LocalTime.of(11, 0)), occupancyIndex.bookedTimes("Estremoz", day));
+        verify(repository).flush();
+    }
+
+    @Test
+    @DisplayName("When an update targets a slot held by another booking or claimed earlier in the batch, then it conflicts")
+    void whenUpdateTargetsTakenSlot_thenConflict() {
+        // Arrange
+        ServiceRequest first = existing(TOKEN_1, "Estremoz", day.atTime(9, 0));
+        ServiceRequest second = existing(TOKEN_2, "Estremoz", day.atTime(10, 0));
+        ServiceRequest third = existing(TOKEN_3, "Estremoz", day.atTime(11, 0));
+        when(repository.findAllById(any())).thenReturn(List.of(first, second, third));
+        hold("Estremoz", day.atTime(10, 0));
+
+        // Act
+        List<BatchItemResult> results = batchService.updateAll(List.of(
+            new BookingPatch(TOKEN_1, null, null, day.atTime(10, 0), null),
+            new BookingPatch(TOKEN_3, null, null, day.atTime(12, 0), null),
+            new BookingPatch(TOKEN_2, null, null, day.atTime(12, 0), null)));
+
+        // Assert
+        assertEquals(List.of(Status.CONFLICT, Status.UPDATED, Status.CONFLICT),
+            results.stream().map(BatchItemResult::status).toList());
+        assertEquals(day.atTime(9, 0), first.getTimeSlot());
+        assertEquals(day.atTime(10, 0), second.getTimeSlot());
+        assertEquals(2, conflicts("batch_update"));
+    }
+
+    @Test
+    @DisplayName("When a patch names a booking by its upper-case token, then it is found and a repeat in lower case is a duplicate")
+    void whenUpdateAllWithUpperCaseToken_thenMatchedByCanonicalToken() {
+        // Arrange
+        ServiceRequest booking = existing(TOKEN_1, "Estremoz", day.atTime(9, 0));
+        when(repository.findAllById(any())).thenReturn(List.of(booking));
+
+        // Act
+        List<BatchItemResult> results = batchService.updateAll(List.of(
+            new BookingPatch(TOKEN_1.toUpperCase(), null, "Rua Nova", null, null),
+            new BookingPatch(TOKEN_1, null, "Rua Velha", null, null)));
+
+        // Assert
+        assertEquals(List.of(Status.UPDATED, Status.INVALID), results.stream().map(BatchItemResult::status).toList());
+        assertEquals(TOKEN_1, results.get(0).token());
+        assertEquals("Rua Nova", booking.getAddress());
+        verify(repository).findAllById(Set.of(TOKEN_1));
+    }
+
+    @Test
+    @DisplayName("When an update moves a booking to less than an hour from now, then it is invalid")
+    void whenUpdateTooSoon_thenInvalid() {
+        ServiceRequest booking = existing(TOKEN_1, "Estremoz", day.atTime(9, 0));
+        when(repository.findAllById(any())).thenReturn(List.of(booking));
+
+        List<BatchItemResult> results = batchService.updateAll(List.of(
+            new BookingPatch(TOKEN_1, null, null, LocalDateTime.now().plusMinutes(5), null)));
+
+        assertEquals(Status.INVALID, results.get(0).status());
+        assertEquals(day.atTime(9, 0), booking.getTimeSlot());
+    }
+
+    @Test
+    @DisplayName("When the batch update races with another booking, then items are retried one by one")
+    void whenBatchUpdateRaces_thenRetriedIndividually() {
+        // Arrange
+        ServiceRequest booking = existing(TOKEN_1, "Estremoz", day.atTime(9, 0));
+        when(repository.findAllById(any())).thenReturn(new ArrayList<>(List.of(booking)));
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(repository).flush();
+        when(service.findBooking(TOKEN_1)).thenReturn(Optional.of(existing(TOKEN_1, "Estremoz", day.atTime(9, 0))));
+        when(service.updateServiceRequest(eq(TOKEN_1), any(ServiceRequest.class)))
+            .thenThrow(new IllegalStateException(ZeroMonosService.SLOT_TAKEN));
+
+        // Act
+        List<BatchItemResult> results = batchService.updateAll(List.of(
+            new BookingPatch(TOKEN_1, null, null, day.atTime(10, 0), null)));
+
+        // Assert
+        assertEquals(Status.CONFLICT, results.get(0).status());
+        verify(service).updateServiceRequest(eq(TOKEN_1), argThat(request ->
+            request.getTimeSlot().equals(day.atTime(10, 0)) && request.getAddress().equals("Rua Principal, n12")));
+    }
+
+    @Test
+    @DisplayName("When write-behind is enabled, then batch items first claim their place in memory, where queued bookings hold theirs")
+    void whenWriteBehindCreateAll_thenPlacesClaimedInMemoryFirst() {
+        // Arrange
+        when(service.isWriteBehind()).thenReturn(true);
+        // A queued booking, not yet in the database, holds Estremoz at 9:00
+        occupancyIndex.occupy("Estremoz", day.atTime(9, 0));
+        // Aveiro at 10:00 is full in the database only
+        hold("Aveiro", day.atTime(10, 0));
+        ServiceRequest queuedSlot = booking("Estremoz", day.atTime(9, 0));
+        ServiceRequest full = booking("Aveiro", day.atTime(10, 0));
+        ServiceRequest free = booking("Estremoz", day.atTime(11, 0));
+
+        // Act
+        List<BatchItemResult> results = batchService.createAll(List.of(queuedSlot, full, free));
+
+        // Assert
+        assertEquals(List.of(Status.CONFLICT, Status.CONFLICT, Status.CREATED),
+            results.stream().map(BatchItemResult::status).toList());
+        verify(repository).saveAll(List.of(free));
+        assertNull(reserved.get(List.of("Estremoz", day.atTime(9, 0))));
+        assertEquals(List.of(LocalTime.of(9, 0), LocalTime.of(11, 0)), occupancyIndex.bookedTimes("Estremoz", day));
+        assertEquals(Map.of(LocalTime.of(11, 0), 1), occupancyIndex.bookingCounts("Estremoz", day).tailMap(LocalTime.of(11, 0)));
+        assertTrue(occupancyIndex.bookedTimes("Aveiro", day).isEmpty());
+        assertEquals(2, conflicts("batch_create"));
+    }
+
+    @Test
+    @DisplayName("When write-behind is enabled and the batch insert rolls back, then the places it held in memory are given back")
+    void whenWriteBehindCreateAllRollsBack_thenHeldPlacesReleased() {
+        // Arrange
+        when(service.isWriteBehind()).thenReturn(true);
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(repository).flush();
+        when(service.requestService(any(ServiceRequest.class))).thenThrow(new IllegalStateException(ZeroMonosService.SLOT_TAKEN));
+
+        // Act
+        List<BatchItemResult> results = batchService.createAll(List.of(booking("Estremoz", day.atTime(9, 0))));
+
+        // Assert
+        assertEquals(Status.CONFLICT, results.get(0).status());
+        assertTrue(occupancyIndex.bookedTimes("Estremoz", day).isEmpty());
+    }
+
+    @Test
+    @DisplayName("When write-behind is enabled, then batch reschedules claim their new place in memory first and keep it once")
+    void whenWriteBehindUpdateAll_thenPlacesClaimedInMemoryFirst() {
+        // Arrange
+        when(service.isWriteBehind()).thenReturn(true);
+        ServiceRequest blocked = existing(TOKEN_1, "Estremoz", day.atTime(9, 0));
+        ServiceRequest moving = existing(TOKEN_2, "Estremoz", day.atTime(10, 0));
+        occupancyIndex.occupy("Estremoz", day.atTime(9, 0));
+        occupancyIndex.occupy("Estremoz", day.atTime(10, 0));
+        // A queued booking holds Estremoz at 12:00
+        occupancyIndex.occupy("Estremoz", day.atTime(12, 0));
+        when(repository.findAllById(any())).thenReturn(List.of(blocked, moving));
+
+        // Act
+        List<BatchItemResult> results = batchService.updateAll(List.of(
+            new BookingPatch(TOKEN_1, null, null, day.atTime(12, 0), null),
+            new BookingPatch(TOKEN_2, null, null, day.atTime(11, 0), null)));
+
+        // Assert
+        assertEquals(List.of(Status.CONFLICT, Status.UPDATED), results.stream().map(BatchItemResult::status).toList());
+        assertEquals(day.atTime(9, 0), blocked.getTimeSlot());
+        assertNull(reserved.get(List.of("Estremoz", day.atTime(12, 0))));
+        assertEquals(Map.of(LocalTime.of(9, 0), 1, LocalTime.of(11, 0), 1, LocalTime.of(12, 0), 1),
+            occupancyIndex.bookingCounts("Estremoz", day));
+        assertEquals(1, conflicts("batch_update"));
+    }
+
+    @Test
+    @DisplayName("When write-behind is enabled and the batch update rolls back, then the places it held in memory are given back")
+    void whenWriteBehindUpdateAllRollsBack_thenHeldPlacesReleased() {
+        // Arrange
+        when(service.isWriteBehind()).thenReturn(true);
+        ServiceRequest booking = existing(TOKEN_1, "Estremoz", day.atTime(9, 0));
+        occupancyIndex.occupy("Estremoz", day.atTime(9, 0));
+        when(repository.findAllById(any())).thenReturn(List.of(booking));
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(repository).flush();
+        when(service.findBooking(TOKEN_1)).thenReturn(Optional.of(existing(TOKEN_1, "Estremoz", day.atTime(9, 0))));
+        when(service.updateServiceRequest(eq(TOKEN_1), any(ServiceRequest.class)))
+            .thenThrow(new IllegalStateException(ZeroMonosService.SLOT_TAKEN));
+
+        // Act
+        batchService.updateAll(List.of(new BookingPatch(TOKEN_1, null, null, day.atTime(10, 0), null)));
+
+        // Assert
+        assertEquals(List.of(LocalTime.of(9, 0)), occupancyIndex.bookedTimes("Estremoz", day));
+    }
+
+    @Test
+    @DisplayName("When transitioning bookings in bulk, then moved and skipped tokens are reported and caches follow")
+    void whenTransitionAll_thenMovedAndSkippedReported() {
+        // Arrange
+        statistics.recordCreated(existing(TOKEN_1, "Estremoz", day.atTime(9, 0)));
+        statistics.recordCreated(existing(TOKEN_2, "Estremoz", day.atTime(10, 0)));
+        bookingCache.put(existing(TOKEN_1, "Estremoz", day.atTime(9, 0)));
+        when(repository.transitionStates(anyCollection(), eq(List.of("RECEIVED")), eq("ASSIGNED"), any(LocalDateTime.class)))
+            .thenReturn(List.of(transition(TOKEN_1, REQUEST_STATE.RECEIVED)));
+
+        // Act
+        StateTransitionResult result = batchService.transitionAll(List.of(TOKEN_1, TOKEN_2, TOKEN_1, "not-a-token"), REQUEST_STATE.ASSIGNED);
+
+        // Assert
+        assertEquals(new StateTransitionResult(REQUEST_STATE.ASSIGNED, List.of(TOKEN_1), List.of(TOKEN_2, "not-a-token")), result);
+        verify(repository).transitionStates(eq(List.of(UUID.fromString(TOKEN_1), UUID.fromString(TOKEN_2))), any(), any(), any());
+        assertEquals(1, statistics.snapshot().byState().get(REQUEST_STATE.ASSIGNED));
+        assertEquals(1, statistics.snapshot().byState().get(REQUEST_STATE.RECEIVED));
+        assertEquals(0, bookingCache.stats().size());
+    }
+
+    @Test
+    @DisplayName("When a token is given in upper case, then it is reported once, in canonical form, as moved")
+    void whenTransitionAllWithUpperCaseToken_thenReportedOnceAsMoved() {
+        // Arrange
+        when(repository.transitionStates(anyCollection(), any(), any(), any(LocalDateTime.class)))
+            .thenReturn(List.of(transition(TOKEN_1, REQUEST_STATE.RECEIVED)));
+
+        // Act
+        StateTransitionResult result = batchService.transitionAll(List.of(TOKEN_1.toUpperCase(), TOKEN_1), REQUEST_STATE.ASSIGNED);
+
+        // Assert
+        assertEquals(new StateTransitionResult(REQUEST_STATE.ASSIGNED, List.of(TOKEN_1), List.of()), result);
+        verify(repository).transitionStates(eq(List.of(UUID.fromString(TOKEN_1))), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("When cancelling in bulk, then both received and assigned bookings are eligible")
+    void whenTransitionToCancelled_thenReceivedAndAssignedAreSources() {
+        batchService.transitionAll(List.of(TOKEN_1), REQUEST_STATE.CANCELLED);
+
+        verify(repository).transitionStates(eq(List.of(UUID.fromString(TOKEN_1))), eq(List.of("RECEIVED", "ASSIGNED")), eq("CANCELLED"), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("When the target state can't be reached from any state, then the transition is rejected")
+    void whenTransitionToReceived_thenRejected() {
+        assertThrows(IllegalArgumentException.class, () -> batchService.transitionAll(List.of(TOKEN_1), REQUEST_STATE.RECEIVED));
+        assertThrows(IllegalArgumentException.class, () -> batchService.transitionAll(List.of(TOKEN_1), null));
+        verifyNoInteractions(repository);
+    }
+
+    private static StateTransition transition(String token, REQUEST_STATE previousState) {
+        return new StateTransition() {
+            @Override
+            public String getToken() {
+                return token;
+            }
+
+            @Override
+            public REQUEST_STATE getPreviousState() {
+                return previousState;
+            }
+
+            @Override
+            public long getVersion() {
+                return 1;
+            }
+        };
+    }
+
+    private void hold(String municipality, LocalDateTime timeSlot) {
+        reserved.merge(List.of(municipality, timeSlot), 1, Integer::sum);
+    }
+
+    private ServiceRequest booking(String municipality, LocalDateTime timeSlot) {
+        return new ServiceRequest(null, municipality, "Rua Principal, n12", timeSlot, "Old mattress");
+    }
+
+    private ServiceRequest existing(String token, String municipality, LocalDateTime timeSlot) {
+        return new ServiceRequest(token, municipality, "Rua Principal, n12", timeSlot, "Old mattress");
+    }
+
+    private double conflicts(String operation) {
+        return meterRegistry.counter(BookingMetrics.CONFLICTS, "operation", operation, "reason", BookingMetrics.SLOT_TAKEN).count();
+    }
+}
@@ -0,0 +1,107 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingCacheTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private BookingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BookingCache(2, TTL, now::get);
+    }
+
+    @Test
+    @DisplayName("When a token is read twice, then it is loaded once and served from cache afterwards")
+    void whenReadTwice_thenLoadedOnce() {
+        cache.get("a", this::load);
+        Optional<ServiceRequest> second = cache.get("a", this::load);
+
+        assertEquals("a", second.orElseThrow().getToken());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    @DisplayName("When an entry outlives its TTL, then it is reloaded and counted as expired")
+    void whenTtlElapsed_thenReloaded() {
+        cache.get("a", this::load);
+        now.addAndGet(TTL.toNanos());
+
+        cache.get("a", this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().expirations());
+    }
+
+    @Test
+    @DisplayName("When the cache is full, then the least recently used entry is evicted")
+    void whenFull_thenLeastRecentlyUsedEvicted() {
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+        cache.get("a", this::load);
+
+        cache.get("c", this::load);
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+
+        // a was used last before c came in, so b was evicted and had to be loaded again
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.stats().evictions());
+        assertEquals(2, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("When a token is not found, then the miss is not cached")
+    void whenAbsent_thenNotCached() {
+        cache.get("missing", token -> { loads.incrementAndGet(); return Optional.empty(); });
+        cache.get("missing", token -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("When an entry is invalidated, then the next read goes to the loader")
+    void whenInvalidated_thenReloaded() {
+        cache.get("a", this::load);
+
+        cache.invalidate("a");
+        cache.get("a", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("When an invalidation happens while a load is in flight, then the loaded value is not cached")
+    void whenInvalidatedDuringLoad_thenStaleValueNotCached() {
+        cache.get("a", token -> {
+            cache.invalidate("a");
+            return load(token);
+        });
+
+        assertEquals(0, cache.stats().size());
+    }
+
+    private Optional<ServiceRequest> load(String token) {
+        loads.incrementAndGet();
+        return Optional.of(new ServiceRequest(token, "Estremoz", "Rua 1", LocalDateTime.now().plusDays(1), "Sofa"));
+    }
+}
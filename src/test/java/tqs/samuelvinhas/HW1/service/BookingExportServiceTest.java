@@ -0,0 +1,117 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.persistence.EntityManager;
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+import tqs.samuelvinhas.HW1.service.BookingExportService.Format;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingExportServiceTest {
+
+    @Mock
+    private ZeroMonosRepository repository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private BookingExportService exportService;
+    private ServiceRequest first;
+    private ServiceRequest second;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new BookingExportService(repository, entityManager, objectMapper);
+        first = new ServiceRequest("token-1", "Estremoz", "Rua 1, n3", LocalDateTime.of(2030, 5, 10, 9, 0), "Old sofa");
+        second = new ServiceRequest("token-2", "Aveiro", "Rua \"B\"", LocalDateTime.of(2030, 5, 10, 9, 30), "Fridge\nand oven");
+    }
+
+    @Test
+    @DisplayName("When exporting as NDJSON, then each booking is one JSON line")
+    void whenExportNdjson_thenOneJsonObjectPerLine() throws Exception {
+        // Arrange
+        when(repository.streamAllOrderByTimeSlot()).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long rows = exportService.export(Format.NDJSON, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        JsonNode firstLine = objectMapper.readTree(lines[0]);
+        assertEquals("token-1", firstLine.get("token").asText());
+        assertEquals("2030-05-10T09:00:00", firstLine.get("timeSlot").asText());
+        assertEquals("Fridge\nand oven", objectMapper.readTree(lines[1]).get("itemDescription").asText());
+    }
+
+    @Test
+    @DisplayName("When exporting as CSV, then a header comes first and special characters are quoted")
+    void whenExportCsv_thenHeaderAndEscapedFields() throws Exception {
+        // Arrange
+        when(repository.streamAllOrderByTimeSlot()).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        exportService.export(Format.CSV, out);
+
+        // Assert
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith(BookingExportService.CSV_HEADER + "\n"));
+        assertTrue(csv.contains("token-1,Estremoz,\"Rua 1, n3\",2030-05-10T09:00,Old sofa,RECEIVED,"));
+        assertTrue(csv.contains("token-2,Aveiro,\"Rua \"\"B\"\"\",2030-05-10T09:30,\"Fridge\nand oven\",RECEIVED,"));
+    }
+
+    @Test
+    @DisplayName("When exporting, then every written row is detached and the cursor is closed")
+    void whenExport_thenRowsDetachedAndStreamClosed() throws Exception {
+        // Arrange
+        AtomicBoolean closed = new AtomicBoolean();
+        when(repository.streamAllOrderByTimeSlot()).thenReturn(Stream.of(first, second).onClose(() -> closed.set(true)));
+
+        // Act
+        exportService.export(Format.NDJSON, new ByteArrayOutputStream());
+
+        // Assert
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("When there are no bookings, then the CSV export only has the header")
+    void whenNoBookings_thenCsvHeaderOnly() throws Exception {
+        when(repository.streamAllOrderByTimeSlot()).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(Format.CSV, out);
+
+        assertEquals(0, rows);
+        assertEquals(BookingExportService.CSV_HEADER + "\n", out.toString(StandardCharsets.UTF_8));
+    }
+}
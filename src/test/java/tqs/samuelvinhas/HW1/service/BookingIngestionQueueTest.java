@@ -0,0 +1,232 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIngestionQueueTest {
+
+    private static final LocalDateTime SLOT = LocalDateTime.of(2030, 5, 10, 9, 0);
+    private static final String TOKEN_1 = "0190a1b2-c3d4-7e5f-8a9b-000000000001";
+    private static final String TOKEN_2 = "0190a1b2-c3d4-7e5f-8a9b-000000000002";
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private ZeroMonosRepository repository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    private final SlotOccupancyIndex occupancyIndex = new SlotOccupancyIndex();
+    private final BookingStatistics statistics = new BookingStatistics();
+    private final BookingCache bookingCache = new BookingCache(100, Duration.ofMinutes(1));
+
+    private BookingIngestionQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(repository.reserveSlot(anyString(), any(LocalDateTime.class), anyInt())).thenReturn(Optional.of(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("When bookings are submitted, then they are written and the journal is emptied")
+    void whenSubmitted_thenWrittenAndJournalEmptied() throws IOException {
+        // Arrange
+        queue = queue(10);
+        queue.start();
+
+        // Act
+        queue.submit(booking(TOKEN_1, SLOT));
+        queue.submit(booking(TOKEN_2, SLOT.plusHours(1)));
+        queue.awaitWritten(TOKEN_1);
+        queue.awaitWritten(TOKEN_2);
+
+        // Assert
+        assertEquals(List.of(TOKEN_1, TOKEN_2), savedTokens());
+        verify(repository).reserveSlot("Estremoz", SLOT, 1);
+        BookingIngestionQueue.Stats stats = queue.stats();
+        assertEquals(0, stats.queued());
+        assertEquals(2, stats.written());
+        assertEquals(0, Files.size(directory.resolve("journal.ndjson")));
+    }
+
+    @Test
+    @DisplayName("When the queue already holds its capacity, then new bookings are rejected")
+    void whenQueueFull_thenRejected() throws InterruptedException {
+        // Arrange
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+        }).when(transactionTemplate).execute(any());
+        queue = queue(1);
+        queue.start();
+        queue.submit(booking(TOKEN_1, SLOT));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // Act & Assert
+        RejectedExecutionException exception = assertThrows(RejectedExecutionException.class,
+            () -> queue.submit(booking(TOKEN_2, SLOT)));
+        assertEquals(BookingIngestionQueue.QUEUE_FULL, exception.getMessage());
+        assertEquals(1, queue.stats().rejected());
+
+        release.countDown();
+        queue.awaitWritten(TOKEN_1);
+        assertEquals(List.of(TOKEN_1), savedTokens());
+    }
+
+    @Test
+    @DisplayName("When a queued booking's slot was filled in the database meanwhile, then it is dropped and published as deleted")
+    void whenSlotFilledBeforeWrite_thenDropped() throws InterruptedException {
+        // Arrange
+        queue = queue(10);
+        queue.start();
+        ServiceRequest kept = booking(TOKEN_1, SLOT);
+        ServiceRequest lost = booking(TOKEN_2, SLOT.plusHours(1));
+        for (ServiceRequest booking : List.of(kept, lost)) {
+            occupancyIndex.occupy(booking.getMunicipality(), booking.getTimeSlot());
+            statistics.recordCreated(booking);
+            bookingCache.put(booking);
+        }
+        when(repository.reserveSlot("Estremoz", lost.getTimeSlot(), 1)).thenReturn(Optional.empty());
+
+        // Act
+        queue.write(List.of(kept, lost));
+
+        // Assert
+        assertEquals(List.of(TOKEN_1), savedTokens());
+        assertEquals(1, occupancyIndex.bookingCounts("Estremoz", SLOT.toLocalDate()).size());
+        assertEquals(1, statistics.snapshot().total());
+        verify(events).publishEvent(BookingEvent.deleted(TOKEN_2));
+        assertEquals(1, queue.stats().dropped());
+    }
+
+    @Test
+    @DisplayName("When the database is unavailable, then the batch is retried until it is written")
+    void whenDatabaseUnavailable_thenRetried() throws InterruptedException {
+        // Arrange
+        queue = queue(10);
+        queue.start();
+        doThrow(new CannotCreateTransactionException("Connection refused"))
+            .doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+            .when(transactionTemplate).execute(any());
+
+        // Act
+        queue.write(List.of(booking(TOKEN_1, SLOT)));
+
+        // Assert
+        verify(transactionTemplate, times(2)).execute(any());
+        assertEquals(List.of(TOKEN_1), savedTokens());
+        assertEquals(1, queue.stats().written());
+    }
+
+    @Test
+    @DisplayName("When starting with bookings left in the journal, then the unsaved ones are written again")
+    void whenJournalHasBookings_thenUnsavedOnesWritten() throws IOException {
+        // Arrange
+        try (BookingJournal journal = new BookingJournal(directory.resolve("journal.ndjson"))) {
+            journal.append(booking(TOKEN_1, SLOT));
+            journal.append(booking(TOKEN_2, SLOT.plusHours(1)));
+        }
+        when(repository.findAllById(List.of(TOKEN_1, TOKEN_2))).thenReturn(List.of(booking(TOKEN_1, SLOT)));
+        queue = queue(10);
+
+        // Act
+        queue.start();
+        queue.awaitWritten(TOKEN_2);
+
+        // Assert
+        assertEquals(List.of(TOKEN_2), savedTokens());
+        assertEquals(1, occupancyIndex.bookingCounts("Estremoz", SLOT.toLocalDate()).get(SLOT.plusHours(1).toLocalTime()));
+        assertEquals(0, Files.size(directory.resolve("journal.ndjson")));
+    }
+
+    @Test
+    @DisplayName("When write-behind is disabled, then starting does nothing and bookings can't be submitted")
+    void whenDisabled_thenNotStarted() {
+        // Arrange
+        queue = new BookingIngestionQueue(repository, occupancyIndex, statistics, new SlotCapacity(1, Map.of()),
+            bookingCache, new BookingMetrics(new SimpleMeterRegistry()), transactionTemplate, events,
+            new WriteBehindProperties(false, 10, 10, directory.resolve("journal.ndjson"),
+                Duration.ofMillis(10), Duration.ofSeconds(5), Duration.ofSeconds(5)));
+
+        // Act
+        queue.start();
+
+        // Assert
+        assertFalse(queue.isRunning());
+        assertThrows(RejectedExecutionException.class, () -> queue.submit(booking(TOKEN_1, SLOT)));
+        assertFalse(Files.exists(directory.resolve("journal.ndjson")));
+    }
+
+    private BookingIngestionQueue queue(int capacity) {
+        return new BookingIngestionQueue(repository, occupancyIndex, statistics, new SlotCapacity(1, Map.of()),
+            bookingCache, new BookingMetrics(new SimpleMeterRegistry()), transactionTemplate, events,
+            new WriteBehindProperties(true, capacity, 10, directory.resolve("journal.ndjson"),
+                Duration.ofMillis(10), Duration.ofSeconds(5), Duration.ofSeconds(5)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> savedTokens() {
+        ArgumentCaptor<Iterable<ServiceRequest>> rows = ArgumentCaptor.forClass(Iterable.class);
+        verify(repository, atLeastOnce()).saveAll(rows.capture());
+        List<String> tokens = new ArrayList<>();
+        rows.getAllValues().forEach(batch -> batch.forEach(row -> tokens.add(row.getToken())));
+        return tokens;
+    }
+
+    private static ServiceRequest booking(String token, LocalDateTime timeSlot) {
+        return new ServiceRequest(token, "Estremoz", "Rua 1", timeSlot, "Sofa");
+    }
+}
@@ -0,0 +1,125 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingJournalTest {
+
+    private static final LocalDateTime SLOT = LocalDateTime.of(2030, 5, 10, 9, 0);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("When the journal is reopened, then every appended booking is recovered in order")
+    void whenReopened_thenAppendedBookingsRecovered() throws IOException {
+        // Arrange
+        Path file = directory.resolve("journal/bookings.ndjson");
+        try (BookingJournal journal = new BookingJournal(file)) {
+            journal.append(booking("0190a1b2-c3d4-7e5f-8a9b-000000000001", "Estremoz"));
+            ServiceRequest assigned = booking("0190a1b2-c3d4-7e5f-8a9b-000000000002", "Aveiro");
+            assigned.setState(REQUEST_STATE.ASSIGNED);
+            journal.append(assigned);
+        }
+
+        // Act
+        List<ServiceRequest> recovered;
+        try (BookingJournal journal = new BookingJournal(file)) {
+            recovered = journal.recover();
+        }
+
+        // Assert
+        assertEquals(List.of("0190a1b2-c3d4-7e5f-8a9b-000000000001", "0190a1b2-c3d4-7e5f-8a9b-000000000002"),
+            recovered.stream().map(ServiceRequest::getToken).toList());
+        ServiceRequest first = recovered.get(0);
+        assertEquals("Estremoz", first.getMunicipality());
+        assertEquals("Rua 1", first.getAddress());
+        assertEquals(SLOT, first.getTimeSlot());
+        assertEquals("Sofa", first.getItemDescription());
+        assertEquals(SLOT.minusDays(1), first.getDate());
+        assertEquals(REQUEST_STATE.RECEIVED, first.getState());
+        assertEquals(REQUEST_STATE.ASSIGNED, recovered.get(1).getState());
+    }
+
+    @Test
+    @DisplayName("When a line was written without a state, then the booking is recovered as received")
+    void whenLineWithoutState_thenRecoveredAsReceived() throws IOException {
+        // Arrange
+        Path file = directory.resolve("bookings.ndjson");
+        Files.writeString(file, "{\"token\":\"0190a1b2-c3d4-7e5f-8a9b-000000000001\",\"municipality\":\"Estremoz\","
+            + "\"address\":\"Rua 1\",\"timeSlot\":\"2030-05-10T09:00:00\",\"itemDescription\":\"Sofa\","
+            + "\"date\":\"2030-05-09T09:00:00\"}\n");
+
+        // Act
+        List<ServiceRequest> recovered;
+        try (BookingJournal journal = new BookingJournal(file)) {
+            recovered = journal.recover();
+        }
+
+        // Assert
+        assertEquals(1, recovered.size());
+        assertEquals(REQUEST_STATE.RECEIVED, recovered.get(0).getState());
+        assertEquals(SLOT, recovered.get(0).getTimeSlot());
+    }
+
+    @Test
+    @DisplayName("When every booking is reported written, then the journal is emptied")
+    void whenAllWritten_thenJournalEmptied() throws IOException {
+        try (BookingJournal journal = new BookingJournal(directory.resolve("bookings.ndjson"))) {
+            journal.append(booking("0190a1b2-c3d4-7e5f-8a9b-000000000001", "Estremoz"));
+            journal.append(booking("0190a1b2-c3d4-7e5f-8a9b-000000000002", "Aveiro"));
+
+            journal.written(1);
+            assertTrue(journal.size() > 0);
+
+            journal.written(1);
+            assertEquals(0, journal.size());
+
+            journal.append(booking("0190a1b2-c3d4-7e5f-8a9b-000000000003", "Faro"));
+            assertEquals(1, Files.readAllLines(directory.resolve("bookings.ndjson")).size());
+        }
+    }
+
+    @Test
+    @DisplayName("When the last line was torn by a crash, then it is discarded and later appends stay readable")
+    void whenLastLineTorn_thenDiscarded() throws IOException {
+        // Arrange
+        Path file = directory.resolve("bookings.ndjson");
+        try (BookingJournal journal = new BookingJournal(file)) {
+            journal.append(booking("0190a1b2-c3d4-7e5f-8a9b-000000000001", "Estremoz"));
+        }
+        Files.writeString(file, "{\"token\":\"0190a1b2-c3d4", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        // Act
+        try (BookingJournal journal = new BookingJournal(file)) {
+            assertEquals(1, journal.recover().size());
+            journal.append(booking("0190a1b2-c3d4-7e5f-8a9b-000000000002", "Aveiro"));
+        }
+
+        // Assert
+        try (BookingJournal journal = new BookingJournal(file)) {
+            assertEquals(List.of("Estremoz", "Aveiro"),
+                journal.recover().stream().map(ServiceRequest::getMunicipality).toList());
+        }
+    }
+
+    private static ServiceRequest booking(String token, String municipality) {
+        ServiceRequest booking = new ServiceRequest(token, municipality, "Rua 1", SLOT, "Sofa");
+        booking.setDate(SLOT.minusDays(1));
+        return booking;
+    }
+}
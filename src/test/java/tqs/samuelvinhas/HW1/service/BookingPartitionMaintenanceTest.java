@@ -0,0 +1,69 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingPartitionMaintenanceTest {
+
+    @Mock
+    private ZeroMonosRepository repository;
+
+    private BookingPartitionMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() {
+        maintenance = new BookingPartitionMaintenance(repository, 3);
+    }
+
+    @Test
+    @DisplayName("When maintenance runs, then partitions from this month through the months ahead are created")
+    void whenCreatePartitions_thenFromThisMonthThroughMonthsAhead() {
+        // Arrange
+        when(repository.createPartitions(any(), any())).thenReturn(1);
+        when(repository.countUnpartitioned()).thenReturn(4L);
+
+        // Act
+        BookingPartitionMaintenance.Run run = maintenance.createPartitions();
+
+        // Assert
+        LocalDate month = run.startedAt().toLocalDate().withDayOfMonth(1);
+        verify(repository).createPartitions(month, month.plusMonths(3));
+        assertEquals(month.plusMonths(3), run.through());
+        assertEquals(1, run.created());
+        assertEquals(4, run.unpartitioned());
+        assertSame(run, maintenance.getLastRun());
+    }
+
+    @Test
+    @DisplayName("When maintenance fails at startup, then the failure is logged instead of stopping startup")
+    void whenStartupRunFails_thenStartupContinues() {
+        // Arrange
+        when(repository.createPartitions(any(), any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        // Act & Assert
+        assertDoesNotThrow(maintenance::createAtStartup);
+        assertNull(maintenance.getLastRun());
+        assertThrows(DataAccessResourceFailureException.class, maintenance::createPartitions);
+    }
+
+    @Test
+    @DisplayName("When no months ahead are configured, then construction fails")
+    void whenMonthsAheadBelowOne_thenRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BookingPartitionMaintenance(repository, 0));
+        assertNull(maintenance.getLastRun());
+    }
+}
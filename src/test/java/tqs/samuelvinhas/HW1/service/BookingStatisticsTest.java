@@ -0,0 +1,91 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import tqs.samuelvinhas.HW1.data.BookingCount;
+import tqs.samuelvinhas.HW1.data.ServiceRequest;
+import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingStatisticsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 5, 10);
+
+    private BookingStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new BookingStatistics();
+    }
+
+    @Test
+    @DisplayName("When no bookings, then every state is zero and no municipality or day is listed")
+    void whenEmpty_thenZeroCounts() {
+        BookingStats stats = statistics.snapshot();
+
+        assertEquals(0, stats.total());
+        assertEquals(REQUEST_STATE.values().length, stats.byState().size());
+        assertTrue(stats.byState().values().stream().allMatch(count -> count == 0));
+        assertTrue(stats.byMunicipality().isEmpty());
+        assertTrue(stats.byDay().isEmpty());
+    }
+
+    @Test
+    @DisplayName("When rebuilt from grouped counts, then totals are aggregated per dimension")
+    void whenRebuild_thenCountsAggregated() {
+        statistics.rebuild(List.of(
+            new BookingCount("Estremoz", DAY, REQUEST_STATE.RECEIVED, 3),
+            new BookingCount("Estremoz", DAY.plusDays(1), REQUEST_STATE.ASSIGNED, 2),
+            new BookingCount("Aveiro", DAY, REQUEST_STATE.ASSIGNED, 1)
+        ));
+
+        BookingStats stats = statistics.snapshot();
+
+        assertEquals(6, stats.total());
+        assertEquals(3, stats.byState().get(REQUEST_STATE.RECEIVED));
+        assertEquals(3, stats.byState().get(REQUEST_STATE.ASSIGNED));
+        assertEquals(Map.of("Estremoz", 5L, "Aveiro", 1L), stats.byMunicipality());
+        assertEquals(Map.of(DAY, 4L, DAY.plusDays(1), 2L), stats.byDay());
+    }
+
+    @Test
+    @DisplayName("When a booking changes state and is then deleted, then counters follow")
+    void whenUpdateAndDelete_thenCountersFollow() {
+        ServiceRequest request = new ServiceRequest("t", "Estremoz", "Rua 1", DAY.atTime(9, 0), "Sofa");
+        statistics.recordCreated(request);
+
+        request.setState(REQUEST_STATE.IN_PROGRESS);
+        statistics.recordUpdated("Estremoz", DAY.atTime(9, 0), REQUEST_STATE.RECEIVED, request);
+
+        BookingStats afterUpdate = statistics.snapshot();
+        assertEquals(1, afterUpdate.total());
+        assertEquals(0, afterUpdate.byState().get(REQUEST_STATE.RECEIVED));
+        assertEquals(1, afterUpdate.byState().get(REQUEST_STATE.IN_PROGRESS));
+
+        statistics.recordDeleted(request);
+
+        BookingStats afterDelete = statistics.snapshot();
+        assertEquals(0, afterDelete.total());
+        assertTrue(afterDelete.byMunicipality().isEmpty());
+        assertTrue(afterDelete.byDay().isEmpty());
+    }
+
+    @Test
+    @DisplayName("When rebuilding again, then previous counters are discarded")
+    void whenRebuildTwice_thenPreviousDiscarded() {
+        statistics.recordCreated(new ServiceRequest("t", "Faro", "Rua 1", DAY.atTime(9, 0), "Sofa"));
+
+        statistics.rebuild(List.of(new BookingCount("Aveiro", DAY, REQUEST_STATE.COMPLETED, 2)));
+
+        BookingStats stats = statistics.snapshot();
+        assertEquals(2, stats.total());
+        assertEquals(Map.of("Aveiro", 2L), stats.byMunicipality());
+    }
+}
@@ -0,0 +1,55 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingTokensTest {
+
+    @Test
+    @DisplayName("When generating a token, then it is a version 7 UUID carrying the current time")
+    void whenNext_thenVersion7WithTimestamp() {
+        // Arrange
+        long before = System.currentTimeMillis();
+
+        // Act
+        UUID token = UUID.fromString(BookingTokens.next());
+
+        // Assert
+        assertEquals(7, token.version());
+        assertEquals(2, token.variant());
+        long millis = token.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= System.currentTimeMillis());
+    }
+
+    @Test
+    @DisplayName("When generating tokens in later milliseconds, then they sort in creation order")
+    void whenNextAcrossMilliseconds_thenTimeOrdered() {
+        // Act
+        String earlier = BookingTokens.next(1_700_000_000_000L).toString();
+        String later = BookingTokens.next(1_700_000_000_001L).toString();
+
+        // Assert
+        assertTrue(earlier.compareTo(later) < 0);
+    }
+
+    @Test
+    @DisplayName("When generating many tokens in the same millisecond, then they are all distinct")
+    void whenNextInSameMillisecond_thenDistinct() {
+        assertNotEquals(BookingTokens.next(1_700_000_000_000L), BookingTokens.next(1_700_000_000_000L));
+    }
+
+    @Test
+    @DisplayName("When validating tokens, then old random and new time-ordered UUIDs pass and anything else fails")
+    void whenIsValid_thenOnlyUuidStrings() {
+        assertTrue(BookingTokens.isValid(UUID.randomUUID().toString()));
+        assertTrue(BookingTokens.isValid(BookingTokens.next()));
+        assertFalse(BookingTokens.isValid(null));
+        assertFalse(BookingTokens.isValid("invalid-token"));
+        assertFalse(BookingTokens.isValid("0190a1b2c3d47e5f8a9b0c1d2e3f4a5b"));
+        assertFalse(BookingTokens.isValid("0190a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a5g"));
+    }
+}
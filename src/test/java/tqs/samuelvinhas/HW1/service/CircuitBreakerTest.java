@@ -0,0 +1,109 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import tqs.samuelvinhas.HW1.service.CircuitBreaker.State;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private MutableClock clock;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2030-01-01T10:00:00Z"));
+        breaker = new CircuitBreaker("test", 3, OPEN_DURATION, clock);
+    }
+
+    @Test
+    @DisplayName("When failures reach the threshold, then the breaker opens and rejects calls")
+    void whenThresholdReached_thenOpenAndReject() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onFailure();
+        }
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1, breaker.getRejectedCalls());
+    }
+
+    @Test
+    @DisplayName("When a success happens between failures, then the failure count starts over")
+    void whenSuccessBetweenFailures_thenStaysClosed() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("When the open period elapses, then a single trial call is let through")
+    void whenOpenPeriodElapsed_thenSingleTrialAllowed() {
+        open();
+        clock.advance(OPEN_DURATION);
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    @DisplayName("When the trial call succeeds, then the breaker closes")
+    void whenTrialSucceeds_thenClosed() {
+        open();
+        clock.advance(OPEN_DURATION);
+        breaker.tryAcquirePermission();
+
+        breaker.onSuccess();
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    @DisplayName("When the trial call fails, then the breaker opens again for a full period")
+    void whenTrialFails_thenReopened() {
+        open();
+        clock.advance(OPEN_DURATION);
+        breaker.tryAcquirePermission();
+
+        breaker.onFailure();
+
+        assertEquals(State.OPEN, breaker.getState());
+        clock.advance(OPEN_DURATION.minusSeconds(1));
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) { this.now = now; }
+
+        void advance(Duration duration) { now = now.plus(duration); }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+}
@@ -0,0 +1,151 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.observation.ObservationRegistry;
+
+import tqs.samuelvinhas.HW1.config.AppConfig;
+import tqs.samuelvinhas.HW1.service.MunicipalityCatalog.Source;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs MunicipalityService over the real pooled HTTP client from AppConfig
+ * against a local stub server that can be made slow or failing.
+ */
+class MunicipalityServiceStubServerTest {
+
+    private static final Duration READ_TIMEOUT = Duration.ofMillis(300);
+    private static final String BODY = "[\"Aveiro\", \"Estremoz\", \"Mora\"]";
+
+    private enum Mode { HEALTHY, SLOW, FAILING }
+
+    private volatile Mode mode = Mode.HEALTHY;
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private HttpServer server;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private CircuitBreaker circuitBreaker;
+    private MunicipalityService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/municipios", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        AppConfig config = new AppConfig();
+        connectionManager = config.httpConnectionManager(4, 4, Duration.ofMillis(300), READ_TIMEOUT, Duration.ofMinutes(1));
+        httpClient = config.httpClient(connectionManager, READ_TIMEOUT, Duration.ofMillis(300), Duration.ofSeconds(30));
+        RestTemplate restTemplate = config.restTemplate(httpClient, ObservationRegistry.NOOP);
+        circuitBreaker = new CircuitBreaker("municipalities", 3, Duration.ofMinutes(1), Clock.systemUTC());
+
+        ByteArrayResource snapshot = new ByteArrayResource("[\"Aveiro\"]".getBytes(StandardCharsets.UTF_8));
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/municipios";
+        service = new MunicipalityService(restTemplate, new ObjectMapper(), circuitBreaker, url, snapshot);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        connectionManager.close();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("When the upstream is healthy, then pooled connections are reused between refreshes")
+    void whenHealthy_thenCatalogRefreshedAndConnectionReused() {
+        service.refresh();
+        service.refresh();
+
+        assertEquals(List.of("Aveiro", "Estremoz", "Mora"), service.getAllMunicipalities());
+        assertEquals(2, hits.get());
+        assertEquals(0, connectionManager.getTotalStats().getLeased());
+        assertEquals(1, connectionManager.getTotalStats().getAvailable());
+    }
+
+    @Test
+    @DisplayName("When the upstream is slow, then the refresh gives up after the read timeout")
+    void whenSlow_thenRefreshTimesOutAndKeepsSnapshot() {
+        mode = Mode.SLOW;
+
+        long start = System.nanoTime();
+        service.refresh();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0, "refresh took " + elapsed);
+        assertEquals(Source.SNAPSHOT, service.getCatalog().source());
+        assertEquals(0, connectionManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    @DisplayName("When the upstream keeps failing, then the circuit opens and stops calling it")
+    void whenFailing_thenCircuitOpensAndUpstreamNoLongerCalled() {
+        mode = Mode.FAILING;
+
+        for (int i = 0; i < 5; i++) {
+            service.refresh();
+        }
+
+        assertEquals(3, hits.get());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(2, circuitBreaker.getRejectedCalls());
+        assertEquals(Source.SNAPSHOT, service.getCatalog().source());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        hits.incrementAndGet();
+        try (exchange) {
+            switch (mode) {
+                case SLOW -> {
+                    sleep(READ_TIMEOUT.multipliedBy(4));
+                    respond(exchange, 200, BODY);
+                }
+                case FAILING -> respond(exchange, 503, "");
+                default -> respond(exchange, 200, BODY);
+            }
+        } catch (IOException e) {
+            // client already gave up on a slow response
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tqs.samuelvinhas.HW1.service.MunicipalityCatalog.Source;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class MunicipalityServiceTest {
+
+    private static final String API = "http://geoapi.test/municipios";
+
+    private MockRestServiceServer server;
+    private MunicipalityService service;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        ByteArrayResource snapshot = new ByteArrayResource("[\"Aveiro\", \"Estremoz\"]".getBytes(StandardCharsets.UTF_8));
+        service = new MunicipalityService(restTemplate, new ObjectMapper(),
+            new CircuitBreaker("municipalities", 3, Duration.ofMinutes(1), Clock.systemUTC()),
+            API, snapshot);
+    }
+
+    @Test
+    @DisplayName("When the service starts, then the bundled snapshot is served without calling the API")
+    void whenStarted_thenServesSnapshot() {
+        assertEquals(List.of("Aveiro", "Estremoz"), service.getAllMunicipalities());
+        assertEquals(Source.SNAPSHOT, service.getCatalog().source());
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("When a refresh succeeds, then the upstream list replaces the snapshot")
+    void whenRefreshSucceeds_thenUpstreamCatalogServed() {
+        // Arrange
+        server.expect(requestTo(API))
+            .andRespond(withSuccess("[\"Aveiro\", \"Estremoz\", \"Mora\"]", MediaType.APPLICATION_JSON));
+        String snapshotEtag = service.getCatalog().etag();
+
+        // Act
+        service.refresh();
+
+        // Assert
+        server.verify();
+        assertEquals(List.of("Aveiro", "Estremoz", "Mora"), service.getAllMunicipalities());
+        assertEquals(Source.UPSTREAM, service.getCatalog().source());
+        assertNotEquals(snapshotEtag, service.getCatalog().etag());
+    }
+
+    @Test
+    @DisplayName("When the API is unreachable, then the previous catalog is kept")
+    void whenRefreshFails_thenPreviousCatalogKept() {
+        server.expect(requestTo(API)).andRespond(withServerError());
+        MunicipalityCatalog before = service.getCatalog();
+
+        service.refresh();
+
+        server.verify();
+        assertSame(before, service.getCatalog());
+    }
+
+    @Test
+    @DisplayName("When the half-open trial call throws an unexpected exception, then the breaker still lets the next trial through")
+    void whenTrialThrowsUnexpectedException_thenBreakerNotStuckHalfOpen() {
+        // Arrange (opens on the first failure and is half-open again right away)
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer trialServer = MockRestServiceServer.bindTo(restTemplate).build();
+        CircuitBreaker circuitBreaker = new CircuitBreaker("municipalities", 1, Duration.ZERO, Clock.systemUTC());
+        MunicipalityService trialService = new MunicipalityService(restTemplate, new ObjectMapper(), circuitBreaker, API,
+            new ByteArrayResource("[\"Aveiro\"]".getBytes(StandardCharsets.UTF_8)));
+        trialServer.expect(requestTo(API)).andRespond(withServerError());
+        trialServer.expect(requestTo(API)).andRespond(request -> {
+            throw new IllegalStateException("Unexpected failure");
+        });
+        trialServer.expect(requestTo(API))
+            .andRespond(withSuccess("[\"Aveiro\", \"Mora\"]", MediaType.APPLICATION_JSON));
+
+        // Act
+        trialService.refresh();
+        assertThrows(IllegalStateException.class, trialService::refresh);
+        trialService.refresh();
+
+        // Assert
+        trialServer.verify();
+        assertEquals(List.of("Aveiro", "Mora"), trialService.getAllMunicipalities());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("When the API returns an empty list, then the previous catalog is kept")
+    void whenRefreshReturnsEmpty_thenPreviousCatalogKept() {
+        server.expect(requestTo(API)).andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+        MunicipalityCatalog before = service.getCatalog();
+
+        service.refresh();
+
+        assertSame(before, service.getCatalog());
+    }
+
+    @Test
+    @DisplayName("When the upstream list matches the snapshot, then the ETag and Last-Modified do not change")
+    void whenRefreshWithSameContent_thenSameEtag() {
+        server.expect(requestTo(API))
+            .andRespond(withSuccess("[\"Aveiro\", \"Estremoz\"]", MediaType.APPLICATION_JSON));
+        MunicipalityCatalog snapshot = service.getCatalog();
+
+        service.refresh();
+
+        assertEquals(snapshot.etag(), service.getCatalog().etag());
+        assertEquals(snapshot.lastModified(), service.getCatalog().lastModified());
+        assertEquals(MunicipalityCatalog.Source.UPSTREAM, service.getCatalog().source());
+    }
+}
@@ -0,0 +1,94 @@
+package tqs.samuelvinhas.HW1.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import tqs.samuelvinhas.HW1.data.BookedSlot;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotOccupancyIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 5, 10);
+
+    private SlotOccupancyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SlotOccupancyIndex();
+    }
+
+    @Test
+    @DisplayName("When a slot is occupied, then it is reported as booked for that municipality and day only")
+    void whenOccupy_thenSlotBookedOnlyForThatMunicipalityAndDay() {
+        index.occupy("Estremoz", DAY.atTime(9, 0));
+
+        assertEquals(List.of(LocalTime.of(9, 0)), index.bookedTimes("Estremoz", DAY));
+        assertTrue(index.bookedTimes("Aveiro", DAY).isEmpty());
+        assertTrue(index.bookedTimes("Estremoz", DAY.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("When occupied slots are read, then the bitmap has one bit per slot of the day")
+    void whenOccupiedSlots_thenBitmapMatchesSlots() {
+        index.occupy("Estremoz", DAY.atTime(0, 0));
+        index.occupy("Estremoz", DAY.atTime(9, 45));
+
+        long bitmap = index.occupiedSlots("Estremoz", DAY);
+
+        assertEquals((1L << 0) | (1L << 19), bitmap);
+    }
+
+    @Test
+    @DisplayName("When trying to occupy a slot, then it succeeds only while the slot is below capacity")
+    void whenTryOccupy_thenLimitedByCapacity() {
+        assertTrue(index.tryOccupy("Estremoz", DAY.atTime(11, 0), 2));
+        assertTrue(index.tryOccupy("Estremoz", DAY.atTime(11, 10), 2));
+        assertFalse(index.tryOccupy("Estremoz", DAY.atTime(11, 20), 2));
+        assertFalse(index.tryOccupy("Aveiro", DAY.atTime(11, 0), 0));
+
+        assertEquals(2, index.bookingCounts("Estremoz", DAY).get(LocalTime.of(11, 0)));
+        assertEquals(0L, index.occupiedSlots("Aveiro", DAY));
+    }
+
+    @Test
+    @DisplayName("When a slot holds two bookings and one is released, then it stays booked")
+    void whenReleaseOneOfTwo_thenSlotStillBooked() {
+        index.occupy("Estremoz", DAY.atTime(10, 0));
+        index.occupy("Estremoz", DAY.atTime(10, 15));
+
+        index.release("Estremoz", DAY.atTime(10, 0));
+        assertEquals(List.of(LocalTime.of(10, 0)), index.bookedTimes("Estremoz", DAY));
+
+        index.release("Estremoz", DAY.atTime(10, 15));
+        assertEquals(0L, index.occupiedSlots("Estremoz", DAY));
+    }
+
+    @Test
+    @DisplayName("When rebuilding, then previous occupancy is replaced")
+    void whenRebuild_thenPreviousOccupancyReplaced() {
+        index.occupy("Estremoz", DAY.atTime(11, 0));
+
+        index.rebuild(List.of(
+            new BookedSlot("Aveiro", DAY.atTime(14, 30)),
+            new BookedSlot("Aveiro", DAY.atTime(17, 0))
+        ));
+
+        assertTrue(index.bookedTimes("Estremoz", DAY).isEmpty());
+        assertEquals(List.of(LocalTime.of(14, 30), LocalTime.of(17, 0)), index.bookedTimes("Aveiro", DAY));
+    }
+
+    @Test
+    @DisplayName("When releasing an unknown slot, then nothing happens")
+    void whenReleaseUnknownSlot_thenNoop() {
+        index.release("Estremoz", DAY.atTime(12, 0));
+        index.release(null, null);
+
+        assertEquals(0L, index.occupiedSlots("Estremoz", DAY));
+    }
+}
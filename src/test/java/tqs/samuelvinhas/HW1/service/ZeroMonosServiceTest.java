@@ -8,27 +8,77 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import tqs.samuelvinhas.HW1.data.BookedSlot;
+import tqs.samuelvinhas.HW1.data.BookingCount;
+import tqs.samuelvinhas.HW1.data.BookingSummary;
 import tqs.samuelvinhas.HW1.data.ServiceRequest;
 import tqs.samuelvinhas.HW1.data.ZeroMonosRepository;
 import tqs.samuelvinhas.HW1.data.ServiceRequest.REQUEST_STATE;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ZeroMonosServiceTest {
 
+    private static final String TOKEN = "0190a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a5b";
+    private static final String UNKNOWN_TOKEN = "0190a1b2-c3d4-7e5f-8a9b-ffffffffffff";
+    private static final String TOKEN_A = "0190a1b2-c3d4-7e5f-8a9b-00000000000a";
+    private static final String TOKEN_B = "0190a1b2-c3d4-7e5f-8a9b-00000000000b";
+    private static final String TOKEN_C = "0190a1b2-c3d4-7e5f-8a9b-00000000000c";
+
     @Mock
     private ZeroMonosRepository repository;
 
+    @Spy
+    private SlotOccupancyIndex occupancyIndex = new SlotOccupancyIndex();
+
+    @Spy
+    private BookingStatistics statistics = new BookingStatistics();
+
+    @Spy
+    private SlotCapacity capacity = new SlotCapacity(1, Map.of("Lisboa", 2));
+
+    @Spy
+    private BookingCache bookingCache = new BookingCache(100, Duration.ofMinutes(1));
+
+    @Spy
+    private BookingMetrics metrics = new BookingMetrics(new SimpleMeterRegistry());
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Mock
+    private BookingIngestionQueue ingestionQueue;
+
     @InjectMocks
     private ZeroMonosService service;
 
@@ -43,15 +93,17 @@ class ZeroMonosServiceTest {
         validRequest.setAddress("Rua Principal, n12");
         validRequest.setState(REQUEST_STATE.RECEIVED);
         validRequest.setDate(LocalDateTime.now());
-        validRequest.setToken("valid-token");
+        validRequest.setToken(TOKEN);
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(repository.reserveSlot(anyString(), any(LocalDateTime.class), anyInt())).thenReturn(Optional.of(1));
+        lenient().when(repository.deleteIfUnchanged(anyString(), any(), anyLong())).thenReturn(1);
     }
 
     @Test
     @DisplayName("When requesting service for an empty TimeSlot, then return token")
     void whenRequestServiceWithValidData_thenReturnToken() {
         // Arrange
-        when(repository.findByMunicipalityAndTimeSlot(anyString(), any(LocalDateTime.class)))
-            .thenReturn(Optional.empty());
         when(repository.save(any(ServiceRequest.class)))
             .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -62,16 +114,15 @@ class ZeroMonosServiceTest {
         assertNotNull(token);
         assertFalse(token.isEmpty());
         verify(repository, times(1)).save(any(ServiceRequest.class));
+        verify(repository).reserveSlot("Estremoz", validRequest.getTimeSlot(), 1);
+        verify(events).publishEvent(BookingEvent.created(validRequest));
     }
 
     @Test
-    @DisplayName("When requesting service with an already booked time slot, then throw exception")
+    @DisplayName("When requesting service with a fully booked time slot, then throw exception")
     void whenTimeSlotAlreadyBooked_thenThrowException() {
         // Arrange
-        ServiceRequest existingRequest = new ServiceRequest();
-        existingRequest.setToken("existing-token");
-        when(repository.findByMunicipalityAndTimeSlot(anyString(), any(LocalDateTime.class)))
-            .thenReturn(Optional.of(existingRequest));
+        when(repository.reserveSlot("Estremoz", validRequest.getTimeSlot(), 1)).thenReturn(Optional.empty());
 
         // Act & Assert
         IllegalStateException exception = assertThrows(
@@ -80,7 +131,68 @@ class ZeroMonosServiceTest {
         );
         
         assertEquals("Time slot already booked in this municipality.", exception.getMessage());
+        assertTrue(service.getAvailability("Estremoz", validRequest.getTimeSlot().toLocalDate()).booked().isEmpty());
+        verify(metrics).recordConflict("create", BookingMetrics.SLOT_TAKEN);
+        verify(repository, never()).save(any(ServiceRequest.class));
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    @DisplayName("When write-behind is enabled, then the booking is confirmed in memory and queued instead of saved")
+    void whenWriteBehindEnabled_thenQueuedInsteadOfSaved() {
+        // Arrange
+        when(ingestionQueue.isEnabled()).thenReturn(true);
+
+        // Act
+        String token = service.requestService(validRequest);
+
+        // Assert
+        verify(ingestionQueue).submit(validRequest);
+        verify(repository, never()).reserveSlot(anyString(), any(LocalDateTime.class), anyInt());
         verify(repository, never()).save(any(ServiceRequest.class));
+        assertEquals(0, service.getAvailability("Estremoz", validRequest.getTimeSlot().toLocalDate()).slots().get(0).remaining());
+        assertEquals(Optional.of(validRequest), service.getServiceRequest(token));
+        verify(events).publishEvent(BookingEvent.created(validRequest));
+    }
+
+    @Test
+    @DisplayName("When write-behind is enabled and the slot is full in memory, then throw without queueing")
+    void whenWriteBehindSlotFull_thenThrowWithoutQueueing() {
+        // Arrange
+        when(ingestionQueue.isEnabled()).thenReturn(true);
+        occupancyIndex.occupy("Estremoz", validRequest.getTimeSlot());
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> service.requestService(validRequest));
+        assertEquals(ZeroMonosService.SLOT_TAKEN, exception.getMessage());
+        verify(ingestionQueue, never()).submit(any());
+        verify(metrics).recordConflict("create", BookingMetrics.SLOT_TAKEN);
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    @DisplayName("When the write-behind queue is full, then the claimed place is given back and the rejection rethrown")
+    void whenWriteBehindQueueFull_thenPlaceReleased() {
+        // Arrange
+        when(ingestionQueue.isEnabled()).thenReturn(true);
+        doThrow(new RejectedExecutionException(BookingIngestionQueue.QUEUE_FULL)).when(ingestionQueue).submit(any());
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> service.requestService(validRequest));
+        assertTrue(service.getAvailability("Estremoz", validRequest.getTimeSlot().toLocalDate()).slots().isEmpty());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    @DisplayName("When insert fails for another reason than a booked slot, then rethrow it")
+    void whenInsertFailsWithoutSlotConflict_thenRethrow() {
+        // Arrange
+        when(repository.save(any(ServiceRequest.class)))
+            .thenThrow(new DataIntegrityViolationException("null value in column"));
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> service.requestService(validRequest));
+        verify(metrics, never()).recordConflict(anyString(), anyString());
     }
 
     @Test
@@ -88,8 +200,6 @@ class ZeroMonosServiceTest {
     void whenTimeSlotLessThanOneHour_thenThrowException() {
         // Arrange
         validRequest.setTimeSlot(LocalDateTime.now().plusMinutes(30)); // Less than 1 hour
-        when(repository.findByMunicipalityAndTimeSlot(anyString(), any(LocalDateTime.class)))
-            .thenReturn(Optional.empty());
 
         // Act & Assert
         IllegalStateException exception = assertThrows(
@@ -98,6 +208,7 @@ class ZeroMonosServiceTest {
         );
         
         assertEquals("Pick a time slot with at least 1 hour in advance.", exception.getMessage());
+        verify(repository, never()).save(any(ServiceRequest.class));
     }
 
     @Test
@@ -117,17 +228,141 @@ class ZeroMonosServiceTest {
     }
 
     @Test
-    @DisplayName("When getting service request with invalid token, then return empty")
+    @DisplayName("When getting service request with an unknown token, then return empty")
     void whenGetServiceRequestWithInvalidToken_thenReturnEmpty() {
         // Arrange
-        String token = "invalid-token";
+        when(repository.findById(UNKNOWN_TOKEN)).thenReturn(Optional.empty());
+
+        // Act
+        Optional<ServiceRequest> result = service.getServiceRequest(UNKNOWN_TOKEN);
+
+        // Assert
+        assertFalse(result.isPresent());
+    }
+
+    @Test
+    @DisplayName("When getting service request with a string that isn't a token, then return empty without querying")
+    void whenGetServiceRequestWithMalformedToken_thenEmptyWithoutQuery() {
+        // Act
+        Optional<ServiceRequest> result = service.getServiceRequest("invalid-token");
+
+        // Assert
+        assertFalse(result.isPresent());
+        verify(repository, never()).findById(anyString());
+        verify(repository, never()).findArchivedById(any());
+    }
+
+    @Test
+    @DisplayName("When getting an archived booking, then it is read from the archive")
+    void whenGetArchivedServiceRequest_thenFoundInArchive() {
+        // Arrange
+        validRequest.setState(REQUEST_STATE.COMPLETED);
+        when(repository.findById(TOKEN)).thenReturn(Optional.empty());
+        when(repository.findArchivedById(UUID.fromString(TOKEN))).thenReturn(Optional.of(validRequest));
+
+        // Act
+        Optional<ServiceRequest> result = service.getServiceRequest(TOKEN);
+
+        // Assert
+        assertEquals(Optional.of(validRequest), result);
+    }
+
+    @Test
+    @DisplayName("When updating an archived booking, then it is not found")
+    void whenUpdateArchivedServiceRequest_thenNotFound() {
+        // Arrange
+        when(repository.findById(TOKEN)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () -> service.updateServiceRequest(TOKEN, validRequest));
+        verify(repository, never()).findArchivedById(any());
+    }
+
+    @Test
+    @DisplayName("When the same booking is looked up twice, then the second lookup is served from the cache")
+    void whenGetServiceRequestTwice_thenRepositoryHitOnce() {
+        // Arrange
+        String token = validRequest.getToken();
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+
+        // Act
+        service.getServiceRequest(token);
+        Optional<ServiceRequest> result = service.getServiceRequest(token);
+
+        // Assert
+        assertEquals(Optional.of(validRequest), result);
+        verify(repository, times(1)).findById(token);
+        assertEquals(1, bookingCache.stats().hits());
+        assertEquals(1, bookingCache.stats().misses());
+    }
+
+    @Test
+    @DisplayName("When a booking read by its upper-case token is deleted, then the cached copy is invalidated too")
+    void whenGetByUpperCaseTokenThenDelete_thenCachedUnderCanonicalToken() {
+        // Arrange
+        String token = validRequest.getToken();
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+        service.getServiceRequest(token.toUpperCase());
+
+        // Act
+        service.deleteServiceRequest(token);
         when(repository.findById(token)).thenReturn(Optional.empty());
 
+        // Assert
+        assertEquals(Optional.empty(), service.getServiceRequest(token.toUpperCase()));
+        verify(repository, never()).findById(token.toUpperCase());
+        verify(ingestionQueue, never()).awaitWritten(token.toUpperCase());
+    }
+
+    @Test
+    @DisplayName("When a booking is created, then its status lookup needs no repository call")
+    void whenRequestService_thenBookingCached() {
+        // Arrange
+        when(repository.save(any(ServiceRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
         // Act
+        String token = service.requestService(validRequest);
         Optional<ServiceRequest> result = service.getServiceRequest(token);
 
         // Assert
-        assertFalse(result.isPresent());
+        assertEquals(Optional.of(validRequest), result);
+        verify(repository, never()).findById(anyString());
+    }
+
+    @Test
+    @DisplayName("When a booking is updated, then its cached copy is invalidated")
+    void whenUpdateServiceRequest_thenCacheInvalidated() {
+        // Arrange
+        String token = validRequest.getToken();
+        bookingCache.put(validRequest);
+        ServiceRequest updated = new ServiceRequest();
+        updated.setMunicipality("Aveiro");
+        updated.setTimeSlot(validRequest.getTimeSlot());
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+
+        when(repository.save(any(ServiceRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // Act
+        service.updateServiceRequest(token, updated);
+
+        // Assert
+        verify(bookingCache).invalidate(token);
+        assertEquals(0, bookingCache.stats().size());
+    }
+
+    @Test
+    @DisplayName("When a booking is deleted, then its cached copy is invalidated")
+    void whenDeleteServiceRequest_thenCacheInvalidated() {
+        // Arrange
+        String token = validRequest.getToken();
+        bookingCache.put(validRequest);
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+
+        // Act
+        service.deleteServiceRequest(token);
+
+        // Assert
+        verify(bookingCache).invalidate(token);
+        assertEquals(0, bookingCache.stats().size());
     }
 
     @Test
@@ -148,14 +383,51 @@ class ZeroMonosServiceTest {
         verify(repository, times(1)).findAll();
     }
 
+    @Test
+    @DisplayName("When updating with a stale expected version, then throw and leave the booking alone")
+    void whenUpdateWithStaleVersion_thenThrowOptimisticLockingFailure() {
+        // Arrange
+        String token = validRequest.getToken();
+        validRequest.setVersion(3);
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+        ServiceRequest updatedRequest = new ServiceRequest();
+        updatedRequest.setMunicipality("Estremoz");
+        updatedRequest.setTimeSlot(LocalDateTime.now().plusDays(2));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class,
+            () -> service.updateServiceRequest(token, updatedRequest, Set.of(2L)));
+        verify(repository, never()).save(any(ServiceRequest.class));
+        verify(metrics).recordConflict("update", BookingMetrics.MODIFIED);
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    @DisplayName("When the current version is among the expected versions, then the update goes through")
+    void whenUpdateWithCurrentVersion_thenUpdated() {
+        // Arrange
+        String token = validRequest.getToken();
+        validRequest.setVersion(3);
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+        ServiceRequest updatedRequest = new ServiceRequest();
+        updatedRequest.setMunicipality("Estremoz");
+        updatedRequest.setTimeSlot(LocalDateTime.now().plusDays(2));
+
+        when(repository.save(any(ServiceRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // Act
+        String resultToken = service.updateServiceRequest(token, updatedRequest, Set.of(2L, 3L));
+
+        // Assert
+        assertEquals(token, resultToken);
+        verify(repository).save(argThat(req -> req.getVersion() == 3));
+    }
+
     @Test
     @DisplayName("When updating existing request with a new valid TimeSlot, then return token")
     void whenUpdateExistingRequestWithNewValidTimeSlot_thenReturnToken() {
         // Arrange
         String token = validRequest.getToken();
         when(repository.findById(token)).thenReturn(Optional.of(validRequest));
-        when(repository.findByMunicipalityAndTimeSlot(anyString(), any(LocalDateTime.class)))
-            .thenReturn(Optional.empty());
         when(repository.save(any(ServiceRequest.class)))
             .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -176,7 +448,7 @@ class ZeroMonosServiceTest {
     @DisplayName("When updating non-existing request, then throw exception")
     void whenUpdateNonExistingRequest_thenThrowException() {
         // Arrange
-        String token = "invalid-token";
+        String token = UNKNOWN_TOKEN;
         when(repository.findById(token)).thenReturn(Optional.empty());
         ServiceRequest updatedRequest = new ServiceRequest();
 
@@ -195,28 +467,23 @@ class ZeroMonosServiceTest {
     void whenUpdateToConflictingTimeSlot_thenThrowException() {
         // Arrange
         String token = validRequest.getToken();
-        String token2 = "token-2";
         LocalDateTime conflictingTime = LocalDateTime.now().plusDays(2);
         
-        ServiceRequest request2 = new ServiceRequest();
-        request2.setToken(token2);
-        request2.setMunicipality(validRequest.getMunicipality());
-        request2.setTimeSlot(conflictingTime);
-        
         ServiceRequest updateRequest = new ServiceRequest();
         updateRequest.setMunicipality(validRequest.getMunicipality());
         updateRequest.setTimeSlot(conflictingTime);
         updateRequest.setAddress(validRequest.getAddress());
 
         when(repository.findById(validRequest.getToken())).thenReturn(Optional.of(validRequest));
-        when(repository.findByMunicipalityAndTimeSlot(validRequest.getMunicipality(), conflictingTime))
-            .thenReturn(Optional.of(request2));
+        when(repository.reserveSlot(validRequest.getMunicipality(), conflictingTime, 1)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(
             IllegalStateException.class,
             () -> service.updateServiceRequest(token, updateRequest)
         );
+        verify(repository, never()).save(any(ServiceRequest.class));
+        verify(metrics).recordConflict("update", BookingMetrics.SLOT_TAKEN);
     }
 
     @Test
@@ -229,8 +496,6 @@ class ZeroMonosServiceTest {
         updateRequest.setTimeSlot(LocalDateTime.now().plusMinutes(30));
 
         when(repository.findById(token)).thenReturn(Optional.of(validRequest));
-        when(repository.findByMunicipalityAndTimeSlot(anyString(), any(LocalDateTime.class)))
-            .thenReturn(Optional.empty());
         
         // Act & Assert
         IllegalStateException exception = assertThrows(
@@ -253,8 +518,6 @@ class ZeroMonosServiceTest {
         updated.setState(newState);
 
         when(repository.findById(token)).thenReturn(Optional.of(validRequest));
-        when(repository.findByMunicipalityAndTimeSlot(anyString(), any()))
-            .thenReturn(Optional.empty());
         when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
         // Act
@@ -264,13 +527,14 @@ class ZeroMonosServiceTest {
         assertEquals(token, resultToken);
         verify(repository, times(1)).save(any(ServiceRequest.class));
         verify(repository).save(argThat(req -> req.getState() == newState));
+        verify(repository, never()).reserveSlot(anyString(), any(LocalDateTime.class), anyInt());
     }
 
     @Test
     @DisplayName("When deleting existing request, then succeed")
     void whenDeleteExistingRequest_thenSucceed() {
         // Arrange
-        String token = "valid-token";
+        String token = TOKEN;
         ServiceRequest request = new ServiceRequest();
         request.setToken(token);
         when(repository.findById(token)).thenReturn(Optional.of(request));
@@ -279,18 +543,333 @@ class ZeroMonosServiceTest {
         service.deleteServiceRequest(token);
 
         // Assert
-        verify(repository, times(1)).deleteById(token);
+        verify(repository, times(1)).deleteIfUnchanged(token, null, 0L);
+        verify(events).publishEvent(BookingEvent.deleted(token));
     }
 
     @Test
     @DisplayName("When deleting non-existing request, then throw exception")
     void whenDeleteNonExistingRequest_thenThrowException() {
         // Arrange
-        String token = "invalid-token";
+        String token = UNKNOWN_TOKEN;
         when(repository.findById(token)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(NoSuchElementException.class, () -> service.deleteServiceRequest(token));
-        verify(repository, never()).deleteById(anyString());
+        verify(repository, never()).deleteIfUnchanged(anyString(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("When another delete removes the booking first, then not found and the slot and statistics are left alone")
+    void whenDeleteLosesRaceWithDelete_thenNotFoundWithoutReleasing() {
+        // Arrange
+        String token = validRequest.getToken();
+        occupancyIndex.occupy(validRequest.getMunicipality(), validRequest.getTimeSlot());
+        statistics.recordCreated(validRequest);
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+        when(repository.deleteIfUnchanged(token, validRequest.getTimeSlot(), validRequest.getVersion())).thenReturn(0);
+        when(repository.existsById(token)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () -> service.deleteServiceRequest(token));
+        verify(occupancyIndex, never()).release(anyString(), any(LocalDateTime.class));
+        assertEquals(1, service.getStatistics().total());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    @DisplayName("When the booking changes while being deleted, then throw OptimisticLockingFailureException and keep it counted")
+    void whenDeleteRacesWithUpdate_thenThrowOptimisticLockingFailure() {
+        // Arrange
+        String token = validRequest.getToken();
+        statistics.recordCreated(validRequest);
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+        when(repository.deleteIfUnchanged(token, validRequest.getTimeSlot(), validRequest.getVersion())).thenReturn(0);
+        when(repository.existsById(token)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> service.deleteServiceRequest(token));
+        verify(occupancyIndex, never()).release(anyString(), any(LocalDateTime.class));
+        verify(metrics).recordConflict("delete", BookingMetrics.MODIFIED);
+        assertEquals(1, service.getStatistics().total());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    @DisplayName("When a booking is created, then its slot becomes unavailable")
+    void whenRequestService_thenSlotOccupied() {
+        // Arrange
+        LocalDateTime timeSlot = LocalDate.now().plusDays(1).atTime(9, 0);
+        validRequest.setTimeSlot(timeSlot);
+
+        // Act
+        service.requestService(validRequest);
+
+        // Assert
+        SlotAvailability availability = service.getAvailability("Estremoz", timeSlot.toLocalDate());
+        assertEquals(List.of(LocalTime.of(9, 0)), availability.booked());
+        assertEquals(SlotOccupancyIndex.SLOT_MINUTES, availability.slotMinutes());
+    }
+
+    @Test
+    @DisplayName("When a slot takes several bookings, then availability shows the places left until it is full")
+    void whenSlotHasCapacity_thenAvailabilityShowsRemainingPlaces() {
+        // Arrange
+        LocalDate day = LocalDate.now().plusDays(2);
+        validRequest.setMunicipality("Lisboa");
+        validRequest.setTimeSlot(day.atTime(9, 0));
+        ServiceRequest second = new ServiceRequest(null, "Lisboa", "Rua Augusta, n1", day.atTime(9, 0), "Old bed");
+
+        // Act
+        service.requestService(validRequest);
+        SlotAvailability oneBooked = service.getAvailability("Lisboa", day);
+        service.requestService(second);
+        SlotAvailability twoBooked = service.getAvailability("Lisboa", day);
+
+        // Assert
+        assertEquals(2, oneBooked.capacity());
+        assertEquals(List.of(new SlotAvailability.Slot(LocalTime.of(9, 0), 1)), oneBooked.slots());
+        assertTrue(oneBooked.booked().isEmpty());
+        assertEquals(List.of(new SlotAvailability.Slot(LocalTime.of(9, 0), 0)), twoBooked.slots());
+        assertEquals(List.of(LocalTime.of(9, 0)), twoBooked.booked());
+        verify(repository, times(2)).reserveSlot("Lisboa", day.atTime(9, 0), 2);
+    }
+
+    @Test
+    @DisplayName("When a booking moves to another slot, then the old slot is freed")
+    void whenUpdateTimeSlot_thenOccupancyMoves() {
+        // Arrange
+        String token = validRequest.getToken();
+        LocalDate day = LocalDate.now().plusDays(3);
+        validRequest.setTimeSlot(day.atTime(10, 0));
+        occupancyIndex.occupy("Estremoz", day.atTime(10, 0));
+
+        ServiceRequest updated = new ServiceRequest();
+        updated.setMunicipality("Estremoz");
+        updated.setTimeSlot(day.atTime(15, 30));
+
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+
+        when(repository.save(any(ServiceRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // Act
+        service.updateServiceRequest(token, updated);
+
+        // Assert
+        assertEquals(List.of(LocalTime.of(15, 30)), service.getAvailability("Estremoz", day).booked());
+    }
+
+    @Test
+    @DisplayName("When write-behind is enabled and the new slot is full in memory, then the reschedule is refused before the database")
+    void whenWriteBehindRescheduleToFullSlot_thenRefusedInMemory() {
+        // Arrange
+        String token = validRequest.getToken();
+        LocalDate day = LocalDate.now().plusDays(3);
+        validRequest.setTimeSlot(day.atTime(10, 0));
+        occupancyIndex.occupy("Estremoz", day.atTime(10, 0));
+        // A queued booking holds the only place of the new slot, not yet in the database
+        occupancyIndex.occupy("Estremoz", day.atTime(15, 30));
+
+        ServiceRequest updated = new ServiceRequest();
+        updated.setMunicipality("Estremoz");
+        updated.setTimeSlot(day.atTime(15, 30));
+
+        when(ingestionQueue.isEnabled()).thenReturn(true);
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> service.updateServiceRequest(token, updated));
+        assertEquals(ZeroMonosService.SLOT_TAKEN, exception.getMessage());
+        verify(repository, never()).reserveSlot(anyString(), any(LocalDateTime.class), anyInt());
+        verify(repository, never()).save(any(ServiceRequest.class));
+        assertEquals(List.of(LocalTime.of(10, 0), LocalTime.of(15, 30)), service.getAvailability("Estremoz", day).booked());
+    }
+
+    @Test
+    @DisplayName("When write-behind is enabled and the reschedule rolls back, then its place in memory is given back")
+    void whenWriteBehindRescheduleRollsBack_thenHeldPlaceReleased() {
+        // Arrange
+        String token = validRequest.getToken();
+        LocalDate day = LocalDate.now().plusDays(3);
+        validRequest.setTimeSlot(day.atTime(10, 0));
+        occupancyIndex.occupy("Estremoz", day.atTime(10, 0));
+
+        ServiceRequest updated = new ServiceRequest();
+        updated.setMunicipality("Estremoz");
+        updated.setTimeSlot(day.atTime(15, 30));
+
+        when(ingestionQueue.isEnabled()).thenReturn(true);
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+        when(repository.reserveSlot("Estremoz", day.atTime(15, 30), 1)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> service.updateServiceRequest(token, updated));
+        assertEquals(List.of(LocalTime.of(10, 0)), service.getAvailability("Estremoz", day).booked());
+    }
+
+    @Test
+    @DisplayName("When write-behind is enabled and a reschedule commits, then the place it held is kept and not counted twice")
+    void whenWriteBehindRescheduleCommits_thenHeldPlaceKept() {
+        // Arrange
+        String token = validRequest.getToken();
+        LocalDate day = LocalDate.now().plusDays(3);
+        validRequest.setTimeSlot(day.atTime(10, 0));
+        occupancyIndex.occupy("Estremoz", day.atTime(10, 0));
+
+        ServiceRequest updated = new ServiceRequest();
+        updated.setMunicipality("Estremoz");
+        updated.setTimeSlot(day.atTime(15, 30));
+
+        when(ingestionQueue.isEnabled()).thenReturn(true);
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+        when(repository.save(any(ServiceRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        service.updateServiceRequest(token, updated);
+
+        // Assert
+        verify(occupancyIndex).tryOccupy("Estremoz", day.atTime(15, 30), 1);
+        verify(occupancyIndex, never()).occupy("Estremoz", day.atTime(15, 30));
+        assertEquals(1, occupancyIndex.bookingCounts("Estremoz", day).get(LocalTime.of(15, 30)));
+        assertEquals(List.of(LocalTime.of(15, 30)), service.getAvailability("Estremoz", day).booked());
+    }
+
+    @Test
+    @DisplayName("When a booking is deleted, then its slot becomes available")
+    void whenDeleteServiceRequest_thenSlotReleased() {
+        // Arrange
+        String token = validRequest.getToken();
+        occupancyIndex.occupy(validRequest.getMunicipality(), validRequest.getTimeSlot());
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+
+        // Act
+        service.deleteServiceRequest(token);
+
+        // Assert
+        assertTrue(service.getAvailability("Estremoz", validRequest.getTimeSlot().toLocalDate()).booked().isEmpty());
+    }
+
+    @Test
+    @DisplayName("When warming up, then occupancy is loaded from upcoming bookings")
+    void whenWarmUp_thenOccupancyLoadedFromRepository() {
+        // Arrange
+        LocalDate day = LocalDate.now().plusDays(1);
+        when(repository.findBookedSlotsFrom(LocalDate.now().atStartOfDay()))
+            .thenReturn(List.of(new BookedSlot("Aveiro", day.atTime(16, 0))));
+
+        // Act
+        service.warmUp();
+
+        // Assert
+        assertEquals(List.of(LocalTime.of(16, 0)), service.getAvailability("Aveiro", day).booked());
+    }
+
+    @Test
+    @DisplayName("When a page has more rows than the limit, then return a cursor after the last item")
+    void whenPageHasMoreRows_thenReturnNextCursor() {
+        // Arrange
+        LocalDateTime slot = LocalDateTime.now().plusDays(1);
+        ServiceRequest first = new ServiceRequest(TOKEN_A, "Estremoz", "Rua 1", slot, "Sofa");
+        ServiceRequest second = new ServiceRequest(TOKEN_B, "Estremoz", "Rua 2", slot, "Fridge");
+        ServiceRequest third = new ServiceRequest(TOKEN_C, "Estremoz", "Rua 3", slot.plusHours(1), "Bed");
+        BookingFilter filter = new BookingFilter(REQUEST_STATE.RECEIVED, "Estremoz", null, null);
+        when(repository.findPage(eq(REQUEST_STATE.RECEIVED), eq("Estremoz"), isNull(), isNull(), isNull(), isNull(), eq(Limit.of(3))))
+            .thenReturn(List.of(first, second, third));
+
+        // Act
+        BookingPage<ServiceRequest> page = service.getServiceRequestsPage(filter, null, 2);
+
+        // Assert
+        assertEquals(List.of(first, second), page.items());
+        assertEquals(new BookingCursor(slot, TOKEN_B), BookingCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    @DisplayName("When continuing from a cursor on the last page, then pass the keyset and return no cursor")
+    void whenLastPage_thenNoNextCursor() {
+        // Arrange
+        LocalDateTime slot = LocalDateTime.now().plusDays(1);
+        BookingCursor after = new BookingCursor(slot, TOKEN_B);
+        ServiceRequest last = new ServiceRequest(TOKEN_C, "Estremoz", "Rua 3", slot.plusHours(1), "Bed");
+        when(repository.findPage(isNull(), isNull(), isNull(), isNull(), eq(slot), eq(TOKEN_B), eq(Limit.of(ZeroMonosService.MAX_PAGE_SIZE + 1))))
+            .thenReturn(List.of(last));
+
+        // Act
+        BookingPage<ServiceRequest> page = service.getServiceRequestsPage(BookingFilter.none(), after, 50_000);
+
+        // Assert
+        assertEquals(List.of(last), page.items());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("When paging summaries, then the summary query is used and the cursor follows its last row")
+    void whenSummaryPageHasMoreRows_thenReturnNextCursorFromSummary() {
+        // Arrange
+        LocalDateTime slot = LocalDateTime.now().plusDays(1);
+        BookingSummary first = new BookingSummary(TOKEN_A, "Estremoz", "Rua 1", slot, REQUEST_STATE.RECEIVED, 0);
+        BookingSummary second = new BookingSummary(TOKEN_B, "Estremoz", "Rua 2", slot.plusHours(1), REQUEST_STATE.RECEIVED, 0);
+        when(repository.findSummaryPage(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), eq(Limit.of(2))))
+            .thenReturn(List.of(first, second));
+
+        // Act
+        BookingPage<BookingSummary> page = service.getBookingSummariesPage(BookingFilter.none(), null, 1);
+
+        // Assert
+        assertEquals(List.of(first), page.items());
+        assertEquals(new BookingCursor(slot, TOKEN_A), BookingCursor.decode(page.nextCursor()));
+        verify(repository, never()).findPage(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("When decoding a malformed cursor, then throw exception")
+    void whenDecodeMalformedCursor_thenThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> BookingCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> BookingCursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+
+    @Test
+    @DisplayName("When bookings are created, updated and deleted, then statistics follow without querying")
+    void whenBookingLifecycle_thenStatisticsFollow() {
+        // Arrange
+        String token = validRequest.getToken();
+        when(repository.findById(token)).thenReturn(Optional.of(validRequest));
+
+        ServiceRequest updated = new ServiceRequest();
+        updated.setMunicipality("Estremoz");
+        updated.setTimeSlot(validRequest.getTimeSlot());
+        updated.setState(REQUEST_STATE.COMPLETED);
+
+        when(repository.save(any(ServiceRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // Act & Assert
+        service.requestService(validRequest);
+        assertEquals(1, service.getStatistics().byState().get(REQUEST_STATE.RECEIVED));
+
+        service.updateServiceRequest(token, updated);
+        BookingStats afterUpdate = service.getStatistics();
+        assertEquals(0, afterUpdate.byState().get(REQUEST_STATE.RECEIVED));
+        assertEquals(1, afterUpdate.byState().get(REQUEST_STATE.COMPLETED));
+
+        service.deleteServiceRequest(token);
+        assertEquals(0, service.getStatistics().total());
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("When warming up, then statistics are rebuilt from one grouped query")
+    void whenWarmUp_thenStatisticsRebuilt() {
+        // Arrange
+        LocalDate day = LocalDate.now();
+        when(repository.countGroupedByMunicipalityDayAndState())
+            .thenReturn(List.of(new BookingCount("Aveiro", day, REQUEST_STATE.ASSIGNED, 4)));
+
+        // Act
+        service.warmUp();
+
+        // Assert
+        BookingStats stats = service.getStatistics();
+        assertEquals(4, stats.total());
+        assertEquals(4, stats.byMunicipality().get("Aveiro"));
+        assertEquals(4, stats.byDay().get(day));
     }
-}
\ No newline at end of file
+}